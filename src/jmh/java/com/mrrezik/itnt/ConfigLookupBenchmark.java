@@ -0,0 +1,71 @@
+package com.mrrezik.itnt.managers;
+
+import com.mrrezik.itnt.HeadlessPlugin;
+import com.mrrezik.itnt.itnt;
+import com.mrrezik.itnt.objects.CustomTNT;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ConfigManager.getTNTType по ID и по алиасу, плюс сбор ключей для автодополнения.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConfigLookupBenchmark {
+
+    @Param({"7", "100", "1000"})
+    public int types;
+
+    private itnt plugin;
+    private ConfigManager configManager;
+    private String id;
+    private String alias;
+    private String mixedCase;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        plugin = HeadlessPlugin.start(Files.createTempDirectory("itnt-bench").toFile(),
+                HeadlessPlugin.generateConfig(types, 4, 4.0f, false, false, false));
+        configManager = plugin.getConfigManager();
+
+        int middle = types / 2;
+        id = "tnt" + middle;
+        alias = "alias" + middle + "b";
+        mixedCase = "ALIAS" + middle + "A";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        HeadlessPlugin.stop(plugin);
+    }
+
+    @Benchmark
+    public CustomTNT byId() {
+        return configManager.getTNTType(id);
+    }
+
+    @Benchmark
+    public CustomTNT byAlias() {
+        return configManager.getTNTType(alias);
+    }
+
+    @Benchmark
+    public CustomTNT byMixedCaseAlias() {
+        return configManager.getTNTType(mixedCase);
+    }
+
+    @Benchmark
+    public CustomTNT miss() {
+        return configManager.getTNTType("unknown-tnt");
+    }
+
+    @Benchmark
+    public Set<String> tabCompleteKeys() {
+        return configManager.getTNTTypeKeys();
+    }
+}
\ No newline at end of file
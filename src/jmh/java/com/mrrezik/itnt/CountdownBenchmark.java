@@ -0,0 +1,59 @@
+package com.mrrezik.itnt.tasks;
+
+import com.mrrezik.itnt.HeadlessPlugin;
+import com.mrrezik.itnt.fake.FakeScheduler;
+import com.mrrezik.itnt.fake.FakeServer;
+import com.mrrezik.itnt.fake.FakeWorld;
+import com.mrrezik.itnt.itnt;
+import com.mrrezik.itnt.objects.CustomTNT;
+import org.bukkit.Location;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость одного тика TNTCountdownTask в пересчете на один заряд.
+ * Фитиль длинный (1 час), поэтому за время замера ни один заряд не взрывается.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CountdownBenchmark {
+
+    private static final int CHARGES = 1000;
+
+    @Param({"true", "false"})
+    public boolean holograms;
+
+    private itnt plugin;
+    private FakeScheduler scheduler;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        plugin = HeadlessPlugin.start(Files.createTempDirectory("itnt-bench").toFile(),
+                HeadlessPlugin.generateConfig(1, 3600, 4.0f, holograms, false, false));
+        scheduler = FakeServer.get().getScheduler();
+
+        FakeWorld world = FakeServer.get().addWorld("bench-countdown", FakeWorld.AIR);
+        CustomTNT tnt = plugin.getConfigManager().getTNTType("tnt0");
+        for (int i = 0; i < CHARGES; i++) {
+            Location location = new Location(world.asBukkit(), (i % 32) * 4, 64, (i / 32) * 4);
+            plugin.getTntManager().primeTNT(location, tnt, null);
+        }
+        // Первый тик переносит задачи из очереди в активный список
+        scheduler.tick();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        HeadlessPlugin.stop(plugin);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHARGES)
+    public void tick() {
+        scheduler.tick();
+    }
+}
\ No newline at end of file
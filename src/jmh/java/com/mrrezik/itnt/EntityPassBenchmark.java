@@ -0,0 +1,74 @@
+package com.mrrezik.itnt.managers;
+
+import com.mrrezik.itnt.HeadlessPlugin;
+import com.mrrezik.itnt.fake.FakeEntity;
+import com.mrrezik.itnt.fake.FakeServer;
+import com.mrrezik.itnt.fake.FakeWorld;
+import com.mrrezik.itnt.itnt;
+import com.mrrezik.itnt.objects.CustomTNT;
+import org.bukkit.Location;
+import org.bukkit.entity.Zombie;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Проход ExplosionEngine по существам: урон, экранирование блоками и отбрасывание для N существ рядом со взрывом.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EntityPassBenchmark {
+
+    @Param({"1", "16", "256"})
+    public int entities;
+
+    private itnt plugin;
+    private ExplosionEngine engine;
+    private FakeWorld world;
+    private Location center;
+    private CustomTNT config;
+    private final List<FakeEntity> spawned = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        plugin = HeadlessPlugin.start(Files.createTempDirectory("itnt-bench").toFile(),
+                HeadlessPlugin.generateConfig(1, 4, 4.0f, false, false, false));
+        engine = plugin.getTntManager().getExplosionEngine();
+        // tnt0 - entity-damage: true
+        config = plugin.getConfigManager().getTNTType("tnt0");
+
+        world = FakeServer.get().addWorld("bench-entities", SphereScanBenchmark.terrainOf("stone"));
+        world.setReadOnly(true);
+        center = new Location(world.asBukkit(), 0.5, 64.5, 0.5);
+
+        Random random = new Random(42);
+        for (int i = 0; i < entities; i++) {
+            Location at = new Location(world.asBukkit(), random.nextDouble() * 12 - 6, 64, random.nextDouble() * 12 - 6);
+            spawned.add(world.spawnEntity(at, Zombie.class));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void restore() {
+        for (FakeEntity entity : spawned) {
+            entity.restore();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        HeadlessPlugin.stop(plugin);
+        world.reset();
+    }
+
+    @Benchmark
+    public void entityPass() {
+        engine.applyEntities(world.asBukkit(), center, config, null);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,112 @@
+package com.mrrezik.itnt.fake;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.util.Vector;
+
+import java.util.UUID;
+
+/**
+ * Сущность фейкового мира (TNTPrimed, ArmorStand, Item и т.д.).
+ * Хранит только то, что читает плагин: UUID, позицию, фитиль и флаг удаления.
+ */
+public class FakeEntity {
+
+    private final FakeWorld world;
+    private final UUID uniqueId = UUID.randomUUID();
+    private final Entity proxy;
+    private final Location location;
+    private final PersistentDataContainer dataContainer = Fakes.proxy(PersistentDataContainer.class, (n, a) -> Fakes.UNHANDLED);
+
+    private boolean dead;
+    private int fuseTicks;
+    private String customName;
+    private Vector velocity = new Vector();
+    private double health = 20.0;
+
+    FakeEntity(FakeWorld world, Class<? extends Entity> type, Location location) {
+        this.world = world;
+        this.location = location;
+        this.proxy = Fakes.proxy(type, this::handle);
+    }
+
+    public Entity asBukkit() { return proxy; }
+    public UUID getUniqueId() { return uniqueId; }
+    public boolean isDead() { return dead; }
+    public String getCustomName() { return customName; }
+    public Location getLocation() { return location.clone(); }
+    public double getHealth() { return health; }
+
+    /**
+     * Восстанавливает здоровье и скорость (между итерациями бенчмарка).
+     */
+    public void restore() {
+        health = 20.0;
+        velocity = new Vector();
+    }
+
+    private Object handle(String method, Object[] args) {
+        switch (method) {
+            case "getUniqueId":
+                return uniqueId;
+            case "getWorld":
+                return world.asBukkit();
+            case "getLocation":
+                if (args.length == 1 && args[0] != null) {
+                    Location target = (Location) args[0];
+                    target.setWorld(location.getWorld());
+                    target.setX(location.getX());
+                    target.setY(location.getY());
+                    target.setZ(location.getZ());
+                    return target;
+                }
+                return location.clone();
+            case "teleport":
+                if (args[0] instanceof Location) {
+                    Location to = (Location) args[0];
+                    location.setX(to.getX());
+                    location.setY(to.getY());
+                    location.setZ(to.getZ());
+                    return true;
+                }
+                return false;
+            case "remove":
+                dead = true;
+                world.removeEntity(uniqueId);
+                return null;
+            case "isDead":
+                return dead;
+            case "isValid":
+                return !dead;
+            case "setFuseTicks":
+                fuseTicks = (Integer) args[0];
+                return null;
+            case "getFuseTicks":
+                return fuseTicks;
+            case "setCustomName":
+                customName = (String) args[0];
+                return null;
+            case "getCustomName":
+                return customName;
+            case "getHeight":
+                return 1.8;
+            case "getEyeLocation":
+                return location.clone().add(0, 1.62, 0);
+            case "getVelocity":
+                return velocity.clone();
+            case "setVelocity":
+                velocity = ((Vector) args[0]).clone();
+                return null;
+            case "getHealth":
+                return health;
+            case "damage":
+                health = Math.max(0.0, health - (Double) args[0]);
+                return null;
+            case "getPersistentDataContainer":
+                return dataContainer;
+            default:
+                return Fakes.UNHANDLED;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,156 @@
+package com.mrrezik.itnt.fake;
+
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Однопоточный планировщик, который продвигается вручную через {@link #tick()}.
+ * Асинхронные задачи выполняются сразу в вызывающем потоке.
+ */
+public class FakeScheduler {
+
+    private final BukkitScheduler proxy;
+    private final List<ScheduledTask> tasks = new ArrayList<>();
+    private final List<ScheduledTask> pending = new ArrayList<>();
+    private final Map<Integer, ScheduledTask> byId = new HashMap<>();
+    private long currentTick;
+    private int nextId = 1;
+
+    public FakeScheduler() {
+        this.proxy = Fakes.proxy(BukkitScheduler.class, this::handle);
+    }
+
+    public BukkitScheduler asBukkit() {
+        return proxy;
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    public int getTaskCount() {
+        return tasks.size() + pending.size();
+    }
+
+    /**
+     * Выполняет один серверный тик: все задачи, у которых подошло время.
+     * Задачи, запланированные во время тика, начнут выполняться со следующего.
+     */
+    public void tick() {
+        currentTick++;
+        if (!pending.isEmpty()) {
+            tasks.addAll(pending);
+            pending.clear();
+        }
+
+        int write = 0;
+        for (int read = 0; read < tasks.size(); read++) {
+            ScheduledTask task = tasks.get(read);
+            if (!task.cancelled && task.nextTick <= currentTick) {
+                task.runnable.run();
+                if (task.period > 0) {
+                    task.nextTick = currentTick + task.period;
+                } else {
+                    task.cancelled = true;
+                }
+            }
+            if (!task.cancelled) {
+                tasks.set(write++, task);
+            } else {
+                byId.remove(task.id);
+            }
+        }
+        tasks.subList(write, tasks.size()).clear();
+    }
+
+    public void clear() {
+        tasks.clear();
+        pending.clear();
+        byId.clear();
+    }
+
+    private Object handle(String name, Object[] args) {
+        switch (name) {
+            case "runTask":
+                return schedule((Runnable) args[1], 0L, -1L);
+            case "runTaskLater":
+            case "scheduleSyncDelayedTask":
+                return schedule((Runnable) args[1], (Long) args[2], -1L);
+            case "runTaskTimer":
+            case "scheduleSyncRepeatingTask":
+                return schedule((Runnable) args[1], (Long) args[2], (Long) args[3]);
+            case "runTaskAsynchronously":
+                ((Runnable) args[1]).run();
+                return schedule(() -> { }, 0L, -1L);
+            case "cancelTask":
+                cancel((Integer) args[0]);
+                return null;
+            case "cancelTasks":
+                clear();
+                return null;
+            case "isCurrentlyRunning":
+            case "isQueued":
+                return find((Integer) args[0]) != null;
+            default:
+                return Fakes.UNHANDLED;
+        }
+    }
+
+    private BukkitTask schedule(Runnable runnable, long delay, long period) {
+        ScheduledTask task = new ScheduledTask(nextId++, runnable, currentTick + Math.max(1L, delay), period);
+        pending.add(task);
+        byId.put(task.id, task);
+        return task.handle;
+    }
+
+    private void cancel(int id) {
+        ScheduledTask task = find(id);
+        if (task != null) {
+            task.cancelled = true;
+        }
+    }
+
+    private ScheduledTask find(int id) {
+        ScheduledTask task = byId.get(id);
+        return task == null || task.cancelled ? null : task;
+    }
+
+    private static final class ScheduledTask {
+        private final int id;
+        private final Runnable runnable;
+        private final long period;
+        private final BukkitTask handle;
+        private long nextTick;
+        private boolean cancelled;
+
+        private ScheduledTask(int id, Runnable runnable, long nextTick, long period) {
+            this.id = id;
+            this.runnable = runnable;
+            this.nextTick = nextTick;
+            this.period = period;
+            this.handle = Fakes.proxy(BukkitTask.class, (name, args) -> {
+                switch (name) {
+                    case "getTaskId":
+                        return this.id;
+                    case "isCancelled":
+                        return cancelled;
+                    case "isSync":
+                        return true;
+                    case "cancel":
+                        cancelled = true;
+                        return null;
+                    case "getOwner":
+                        return (Plugin) null;
+                    default:
+                        return Fakes.UNHANDLED;
+                }
+            });
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,117 @@
+package com.mrrezik.itnt.fake;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.ConsoleHandler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Фейковый сервер Bukkit для запуска плагина без Minecraft и без сети.
+ * Регистрируется в {@link Bukkit} один раз на JVM.
+ */
+public class FakeServer {
+
+    private static FakeServer instance;
+
+    private final Server proxy;
+    private final FakeScheduler scheduler = new FakeScheduler();
+    private final PluginManager pluginManager = Fakes.proxy(PluginManager.class, (n, a) -> Fakes.UNHANDLED);
+    private final Map<String, FakeWorld> worlds = new LinkedHashMap<>();
+    private final Logger logger = Logger.getLogger("iTNT-Headless");
+    private Plugin commandOwner;
+
+    private FakeServer() {
+        logger.setUseParentHandlers(false);
+        ConsoleHandler handler = new ConsoleHandler();
+        handler.setLevel(Level.WARNING);
+        logger.addHandler(handler);
+        this.proxy = Fakes.proxy(Server.class, this::handle);
+    }
+
+    /**
+     * @return Единственный фейковый сервер (создается и регистрируется при первом вызове)
+     */
+    public static synchronized FakeServer get() {
+        if (instance == null) {
+            instance = new FakeServer();
+            Bukkit.setServer(instance.proxy);
+        }
+        return instance;
+    }
+
+    public Server asBukkit() { return proxy; }
+    public FakeScheduler getScheduler() { return scheduler; }
+
+    public FakeWorld addWorld(String name, FakeWorld.Terrain terrain) {
+        FakeWorld world = new FakeWorld(name, terrain);
+        worlds.put(name, world);
+        return world;
+    }
+
+    /**
+     * Плагин, которому будут принадлежать команды из getPluginCommand (JavaPlugin.getCommand).
+     */
+    public void setCommandOwner(Plugin plugin) {
+        this.commandOwner = plugin;
+    }
+
+    private Object handle(String method, Object[] args) throws Exception {
+        switch (method) {
+            case "getLogger":
+                return logger;
+            case "getScheduler":
+                return scheduler.asBukkit();
+            case "getPluginManager":
+                return pluginManager;
+            case "getName":
+                return "FakeServer";
+            case "getVersion":
+                return "headless";
+            case "getBukkitVersion":
+                return "1.17.1-R0.1-SNAPSHOT";
+            case "isPrimaryThread":
+                return true;
+            case "getCurrentTick":
+                return (int) scheduler.getCurrentTick();
+            case "getWorlds": {
+                List<World> list = new ArrayList<>();
+                for (FakeWorld world : worlds.values()) {
+                    list.add(world.asBukkit());
+                }
+                return list;
+            }
+            case "getWorld":
+                if (args[0] instanceof String) {
+                    FakeWorld world = worlds.get((String) args[0]);
+                    return world == null ? null : world.asBukkit();
+                }
+                for (FakeWorld world : worlds.values()) {
+                    if (world.asBukkit().getUID().equals((UUID) args[0])) return world.asBukkit();
+                }
+                return null;
+            case "getPluginCommand":
+                return createCommand((String) args[0]);
+            default:
+                return Fakes.UNHANDLED;
+        }
+    }
+
+    private PluginCommand createCommand(String name) throws Exception {
+        if (commandOwner == null) return null;
+        Constructor<PluginCommand> constructor = PluginCommand.class.getDeclaredConstructor(String.class, Plugin.class);
+        constructor.setAccessible(true);
+        return constructor.newInstance(name, commandOwner);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,251 @@
+package com.mrrezik.itnt.fake;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.entity.ArmorStand;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Item;
+import org.bukkit.entity.TNTPrimed;
+import org.bukkit.persistence.PersistentDataContainer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Мир в памяти: блоки задаются генератором рельефа, изменения хранятся поверх него.
+ * В режиме read-only изменения блоков только считаются (для стабильных бенчмарков).
+ */
+public class FakeWorld {
+
+    /**
+     * Генератор исходного рельефа.
+     */
+    @FunctionalInterface
+    public interface Terrain {
+        Material typeAt(int x, int y, int z);
+    }
+
+    public static final Terrain AIR = (x, y, z) -> Material.AIR;
+
+    private final String name;
+    private final UUID uid = UUID.randomUUID();
+    private final World proxy;
+    private final Terrain terrain;
+    private final Map<Long, Material> changes = new HashMap<>();
+    private final Map<UUID, FakeEntity> entities = new HashMap<>();
+    private final PersistentDataContainer dataContainer = Fakes.proxy(PersistentDataContainer.class, (n, a) -> Fakes.UNHANDLED);
+
+    private boolean readOnly;
+    private long blockWrites;
+    private long explosions;
+    private long effects;
+
+    public FakeWorld(String name, Terrain terrain) {
+        this.name = name;
+        this.terrain = terrain;
+        this.proxy = Fakes.proxy(World.class, this::handle);
+    }
+
+    public World asBukkit() { return proxy; }
+    public String getName() { return name; }
+
+    public void setReadOnly(boolean readOnly) { this.readOnly = readOnly; }
+    public long getBlockWrites() { return blockWrites; }
+    public long getExplosions() { return explosions; }
+    public long getEffects() { return effects; }
+    public int getEntityCount() { return entities.size(); }
+
+    public Material getType(int x, int y, int z) {
+        Material changed = changes.get(key(x, y, z));
+        return changed != null ? changed : terrain.typeAt(x, y, z);
+    }
+
+    public void setType(int x, int y, int z, Material type) {
+        blockWrites++;
+        if (!readOnly) {
+            changes.put(key(x, y, z), type);
+        }
+    }
+
+    public Block getBlockAt(int x, int y, int z) {
+        return new FakeBlock(this, x, y, z).asBukkit();
+    }
+
+    /**
+     * Сбрасывает изменения блоков, сущности и счетчики.
+     */
+    public void reset() {
+        changes.clear();
+        entities.clear();
+        blockWrites = 0;
+        explosions = 0;
+        effects = 0;
+    }
+
+    /**
+     * Создает сущность заданного типа (например, Zombie для бенчмарка урона).
+     */
+    public FakeEntity spawnEntity(Location location, Class<? extends Entity> type) {
+        return spawn(location, type);
+    }
+
+    void removeEntity(UUID id) {
+        entities.remove(id);
+    }
+
+    private Object handle(String method, Object[] args) {
+        switch (method) {
+            case "getName":
+                return name;
+            case "getUID":
+                return uid;
+            case "getMinHeight":
+                return 0;
+            case "getMaxHeight":
+                return 256;
+            case "getBlockAt":
+                if (args.length == 1) {
+                    Location loc = (Location) args[0];
+                    return getBlockAt(loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
+                }
+                return getBlockAt((Integer) args[0], (Integer) args[1], (Integer) args[2]);
+            case "spawn":
+                return spawn((Location) args[0], (Class<?>) args[1]).asBukkit();
+            case "spawnEntity":
+                return spawn((Location) args[0], ((EntityType) args[1]).getEntityClass()).asBukkit();
+            case "dropItem":
+            case "dropItemNaturally":
+                return spawn((Location) args[0], Item.class).asBukkit();
+            case "getEntity":
+                FakeEntity entity = entities.get((UUID) args[0]);
+                return entity == null ? null : entity.asBukkit();
+            case "getNearbyEntities":
+                if (args.length >= 4 && args[0] instanceof Location) {
+                    return nearbyEntities((Location) args[0], (Double) args[1], (Double) args[2], (Double) args[3]);
+                }
+                return Fakes.UNHANDLED;
+            case "createExplosion":
+                explosions++;
+                return true;
+            case "playSound":
+            case "spawnParticle":
+            case "playEffect":
+                effects++;
+                return null;
+            case "getPersistentDataContainer":
+                return dataContainer;
+            default:
+                return Fakes.UNHANDLED;
+        }
+    }
+
+    private FakeEntity spawn(Location location, Class<?> type) {
+        Class<? extends Entity> entityType = type != null && Entity.class.isAssignableFrom(type)
+                ? type.asSubclass(Entity.class)
+                : ArmorStand.class;
+        if (entityType == Entity.class) {
+            entityType = TNTPrimed.class;
+        }
+        FakeEntity entity = new FakeEntity(this, entityType, location.clone());
+        entities.put(entity.getUniqueId(), entity);
+        return entity;
+    }
+
+    private List<Entity> nearbyEntities(Location center, double dx, double dy, double dz) {
+        List<Entity> result = new ArrayList<>();
+        for (FakeEntity entity : entities.values()) {
+            Location loc = entity.getLocation();
+            if (Math.abs(loc.getX() - center.getX()) <= dx
+                    && Math.abs(loc.getY() - center.getY()) <= dy
+                    && Math.abs(loc.getZ() - center.getZ()) <= dz) {
+                result.add(entity.asBukkit());
+            }
+        }
+        return result;
+    }
+
+    private static long key(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFFL) << 38 | ((long) z & 0x3FFFFFFL) << 12 | ((long) y & 0xFFFL);
+    }
+
+    /**
+     * Блок фейкового мира. Создается на каждый вызов getBlockAt, как и CraftBlock.
+     */
+    static final class FakeBlock {
+        private final FakeWorld world;
+        private final int x, y, z;
+        private final Block proxy;
+
+        FakeBlock(FakeWorld world, int x, int y, int z) {
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.proxy = Fakes.proxy(Block.class, this::handle);
+        }
+
+        Block asBukkit() { return proxy; }
+
+        private Object handle(String method, Object[] args) {
+            switch (method) {
+                case "getType":
+                    return world.getType(x, y, z);
+                case "setType":
+                    world.setType(x, y, z, (Material) args[0]);
+                    return null;
+                case "breakNaturally":
+                    if (world.getType(x, y, z).isAir()) return false;
+                    world.setType(x, y, z, Material.AIR);
+                    return true;
+                case "isLiquid": {
+                    Material type = world.getType(x, y, z);
+                    return type == Material.WATER || type == Material.LAVA || type == Material.BUBBLE_COLUMN;
+                }
+                case "isEmpty":
+                    return world.getType(x, y, z).isAir();
+                case "isReplaceable": {
+                    Material type = world.getType(x, y, z);
+                    return type.isAir() || type == Material.WATER || type == Material.LAVA;
+                }
+                case "getX":
+                    return x;
+                case "getY":
+                    return y;
+                case "getZ":
+                    return z;
+                case "getWorld":
+                    return world.asBukkit();
+                case "getLocation":
+                    if (args.length == 1 && args[0] != null) {
+                        Location target = (Location) args[0];
+                        target.setWorld(world.asBukkit());
+                        target.setX(x);
+                        target.setY(y);
+                        target.setZ(z);
+                        target.setYaw(0);
+                        target.setPitch(0);
+                        return target;
+                    }
+                    return new Location(world.asBukkit(), x, y, z);
+                case "getRelative":
+                    if (args[0] instanceof BlockFace) {
+                        BlockFace face = (BlockFace) args[0];
+                        int distance = args.length > 1 ? (Integer) args[1] : 1;
+                        return world.getBlockAt(x + face.getModX() * distance, y + face.getModY() * distance, z + face.getModZ() * distance);
+                    }
+                    return world.getBlockAt(x + (Integer) args[0], y + (Integer) args[1], z + (Integer) args[2]);
+                case "getBlockKey":
+                    return key(x, y, z);
+                default:
+                    return Fakes.UNHANDLED;
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,83 @@
+package com.mrrezik.itnt.fake;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Утилиты для "легких" фейков Bukkit-интерфейсов через java.lang.reflect.Proxy.
+ * Неизвестные методы возвращают значения по умолчанию (false, 0, null, пустые коллекции).
+ */
+public final class Fakes {
+
+    private Fakes() {
+    }
+
+    /**
+     * Обработчик вызовов фейка. Возвращает {@link #UNHANDLED}, если метод не реализован.
+     */
+    @FunctionalInterface
+    public interface Handler {
+        Object handle(String name, Object[] args) throws Throwable;
+    }
+
+    public static final Object UNHANDLED = new Object();
+
+    @SuppressWarnings("unchecked")
+    public static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(Fakes.class.getClassLoader(), new Class<?>[]{type}, new DefaultingHandler(handler));
+    }
+
+    public static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) return false;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        if (type == double.class) return 0.0;
+        if (type == float.class) return 0.0f;
+        if (type == short.class) return (short) 0;
+        if (type == byte.class) return (byte) 0;
+        if (type == char.class) return (char) 0;
+        if (type == List.class || type == java.util.Collection.class) return Collections.emptyList();
+        if (type == Set.class) return Collections.emptySet();
+        if (type == Map.class) return Collections.emptyMap();
+        return null;
+    }
+
+    private static final class DefaultingHandler implements InvocationHandler {
+        private final Handler handler;
+
+        private DefaultingHandler(Handler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "equals":
+                    if (args != null && args.length == 1 && method.getParameterTypes()[0] == Object.class) {
+                        return proxy == args[0];
+                    }
+                    break;
+                case "hashCode":
+                    if (args == null) return System.identityHashCode(proxy);
+                    break;
+                case "toString":
+                    if (args == null) return "Fake" + proxy.getClass().getInterfaces()[0].getSimpleName();
+                    break;
+                default:
+                    break;
+            }
+
+            Object result = handler.handle(name, args == null ? new Object[0] : args);
+            if (result != UNHANDLED) {
+                return result;
+            }
+            return defaultValue(method.getReturnType());
+        }
+    }
+}
\ No newline at end of file
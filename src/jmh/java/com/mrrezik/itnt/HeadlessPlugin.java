@@ -0,0 +1,83 @@
+package com.mrrezik.itnt;
+
+import com.mrrezik.itnt.fake.FakeServer;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.java.JavaPluginLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Запускает настоящий iTNT на {@link FakeServer}: без Minecraft, без сети.
+ */
+public final class HeadlessPlugin {
+
+    private HeadlessPlugin() {
+    }
+
+    /**
+     * @param dataFolder Папка плагина (будет создана)
+     * @param configYaml Содержимое config.yml или null для конфига по умолчанию
+     * @return Включенный плагин
+     */
+    public static itnt start(File dataFolder, String configYaml) {
+        FakeServer server = FakeServer.get();
+        try {
+            Files.createDirectories(dataFolder.toPath());
+            if (configYaml != null) {
+                Files.write(new File(dataFolder, "config.yml").toPath(), configYaml.getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        PluginDescriptionFile description = new PluginDescriptionFile("iTNT", "headless", itnt.class.getName());
+        @SuppressWarnings("deprecation")
+        JavaPluginLoader loader = new JavaPluginLoader(server.asBukkit());
+
+        itnt plugin = new itnt(loader, description, dataFolder, new File(dataFolder, "iTNT.jar"));
+        server.setCommandOwner(plugin);
+        plugin.onEnable();
+        return plugin;
+    }
+
+    public static void stop(itnt plugin) {
+        plugin.onDisable();
+        FakeServer.get().getScheduler().clear();
+    }
+
+    /**
+     * Генерирует config.yml с заданным числом типов ТНТ (у каждого два алиаса).
+     */
+    public static String generateConfig(int types, int fuseSeconds, float power, boolean holograms,
+                                        boolean breakObsidian, boolean explodeInWater) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("hologram:\n");
+        sb.append("  enabled: ").append(holograms).append('\n');
+        sb.append("  provider: \"ArmorStand\"\n");
+        sb.append("  format: \"&#FF6347%name% &f- &e%time%s\"\n");
+        sb.append("  offset-y: 0.8\n");
+        sb.append("metrics:\n");
+        sb.append("  enabled: true\n");
+        sb.append("  timings: false\n");
+        sb.append("messages:\n");
+        sb.append("  prefix: \"&8[&ci&4TNT&8] &r\"\n");
+        sb.append("tnt:\n");
+        for (int i = 0; i < types; i++) {
+            sb.append("  tnt").append(i).append(":\n");
+            sb.append("    display-name: \"&#FFB800Bench TNT ").append(i).append("\"\n");
+            sb.append("    aliases: [\"alias").append(i).append("a\", \"alias").append(i).append("b\"]\n");
+            sb.append("    fuse-time: ").append(fuseSeconds).append('\n');
+            sb.append("    power: ").append(power).append('\n');
+            sb.append("    block-damage: true\n");
+            sb.append("    entity-damage: ").append(i % 2 == 0).append('\n');
+            sb.append("    explode-in-water: ").append(explodeInWater).append('\n');
+            sb.append("    break-obsidian: ").append(breakObsidian).append('\n');
+            sb.append("    disabled-worlds: []\n");
+        }
+        return sb.toString();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,208 @@
+package com.mrrezik.itnt.loadtest;
+
+import com.mrrezik.itnt.HeadlessPlugin;
+import com.mrrezik.itnt.fake.FakeScheduler;
+import com.mrrezik.itnt.fake.FakeServer;
+import com.mrrezik.itnt.fake.FakeWorld;
+import com.mrrezik.itnt.itnt;
+import com.mrrezik.itnt.managers.MetricsManager;
+import com.mrrezik.itnt.managers.TNTManager;
+import com.mrrezik.itnt.objects.CustomTNT;
+import com.mrrezik.itnt.utils.LatencyHistogram;
+import org.bukkit.Location;
+import org.bukkit.Material;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Нагрузочный тест массового поджига: настоящие менеджеры iTNT на фейковом мире и планировщике.
+ * Для каждого сценария поджигает N зарядов в одном тике, затем гоняет тики до последнего взрыва.
+ * Время фитилей симулированное (50 мс на тик), поэтому прогон идет с полной скоростью.
+ * Запуск: ./gradlew loadTest [-PloadTest.charges=10,100,1000,10000]
+ */
+public final class LoadTest {
+
+    private static final int FUSE_SECONDS = 4;
+    private static final float POWER = 4.0f;
+    private static final int MAX_TICKS = 20 * 60;
+    private static final int SEA_LEVEL = 64;
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int[] chargeCounts = args.length > 0 ? parseCounts(args[0]) : new int[]{10, 100, 1000, 10000};
+        File report = args.length > 1 ? new File(args[1]) : null;
+
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format(Locale.ROOT, "%-8s %-9s %-5s %-10s %10s %10s %10s %10s %10s %10s %9s",
+                "charges", "layout", "holo", "medium", "prime(ms)", "p50(ms)", "p99(ms)", "max(ms)",
+                "ticks", "alloc MB/s", "peak MB"));
+
+        for (int charges : chargeCounts) {
+            for (Layout layout : Layout.values()) {
+                for (boolean holograms : new boolean[]{false, true}) {
+                    for (Medium medium : Medium.values()) {
+                        Result result = run(charges, layout, holograms, medium);
+                        String line = String.format(Locale.ROOT, "%-8d %-9s %-5s %-10s %10.2f %10.3f %10.3f %10.3f %10d %10.1f %9.1f",
+                                charges, layout.name().toLowerCase(Locale.ROOT), holograms ? "on" : "off",
+                                medium.name().toLowerCase(Locale.ROOT), result.primeMillis,
+                                nanosToMillis(result.ticks.getPercentile(50)), nanosToMillis(result.ticks.getPercentile(99)),
+                                nanosToMillis(result.ticks.getMax()), result.ticks.getCount(),
+                                result.allocatedBytesPerSecond / (1024.0 * 1024.0), result.peakHeapBytes / (1024.0 * 1024.0));
+                        System.out.println(line);
+                        lines.add(line);
+                    }
+                }
+            }
+        }
+
+        if (report != null) {
+            Files.createDirectories(report.getAbsoluteFile().getParentFile().toPath());
+            Files.write(report.toPath(), lines, StandardCharsets.UTF_8);
+            System.out.println("Report: " + report.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Расположение зарядов.
+     */
+    enum Layout {
+        /** Плотный куб (пушка/стена): взрывы перекрываются. */
+        CLUSTERED,
+        /** Сетка с шагом 32 блока: взрывы не пересекаются. */
+        SPREAD
+    }
+
+    /**
+     * Среда, в которой взрываются заряды.
+     */
+    enum Medium {
+        DRY((x, y, z) -> y < SEA_LEVEL ? Material.STONE : Material.AIR),
+        UNDERWATER((x, y, z) -> y < SEA_LEVEL - 8 ? Material.STONE : Material.WATER);
+
+        private final FakeWorld.Terrain terrain;
+
+        Medium(FakeWorld.Terrain terrain) {
+            this.terrain = terrain;
+        }
+    }
+
+    private static final class Result {
+        private final LatencyHistogram ticks = new LatencyHistogram();
+        private double primeMillis;
+        private double allocatedBytesPerSecond;
+        private long peakHeapBytes;
+    }
+
+    private static Result run(int charges, Layout layout, boolean holograms, Medium medium) throws IOException {
+        File dataFolder = Files.createTempDirectory("itnt-loadtest").toFile();
+        itnt plugin = HeadlessPlugin.start(dataFolder,
+                HeadlessPlugin.generateConfig(1, FUSE_SECONDS, POWER, holograms, false, true));
+        FakeScheduler scheduler = FakeServer.get().getScheduler();
+        FakeWorld world = FakeServer.get().addWorld("loadtest", medium.terrain);
+        TNTManager tntManager = plugin.getTntManager();
+        CustomTNT tnt = plugin.getConfigManager().getTNTType("tnt0");
+
+        // Симулированное время: 50 мс на тик планировщика
+        long baseTick = scheduler.getCurrentTick();
+        tntManager.setClock(() -> (scheduler.getCurrentTick() - baseTick) * 50L);
+
+        System.gc();
+        resetPeakHeap();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+
+        Result result = new Result();
+
+        // 1. Массовый поджиг в одном тике
+        long start = System.nanoTime();
+        for (int i = 0; i < charges; i++) {
+            tntManager.primeTNT(positionOf(world, layout, medium, i), tnt, null);
+        }
+        result.primeMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+        // Под водой вода сразу затекает обратно в блок, из которого убрали ТНТ
+        if (medium == Medium.UNDERWATER) {
+            for (int i = 0; i < charges; i++) {
+                Location location = positionOf(world, layout, medium, i);
+                world.setType(location.getBlockX(), location.getBlockY(), location.getBlockZ(), Material.WATER);
+            }
+        }
+
+        // 2. Тики до последнего взрыва
+        int ticks = 0;
+        while ((!tntManager.getActiveTNTs().isEmpty() || scheduler.getTaskCount() > 0) && ticks < MAX_TICKS) {
+            long tickStart = System.nanoTime();
+            scheduler.tick();
+            result.ticks.record(System.nanoTime() - tickStart);
+            ticks++;
+        }
+
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        // Аллокации на секунду игрового времени (20 тиков), а не реального
+        double simulatedSeconds = Math.max(1, ticks) / 20.0;
+        result.allocatedBytesPerSecond = allocated / simulatedSeconds;
+        result.peakHeapBytes = peakHeap();
+
+        long detonations = plugin.getMetricsManager().getCounter(tnt.getId(), MetricsManager.Counter.DETONATIONS);
+        if (detonations != charges) {
+            System.err.println("Warning: " + detonations + "/" + charges + " charges detonated in " + ticks + " ticks");
+        }
+
+        HeadlessPlugin.stop(plugin);
+        world.reset();
+        return result;
+    }
+
+    private static Location positionOf(FakeWorld world, Layout layout, Medium medium, int index) {
+        int y = medium == Medium.DRY ? SEA_LEVEL : SEA_LEVEL - 4;
+        if (layout == Layout.CLUSTERED) {
+            // Куб 16x16 по горизонтали, растущий вверх
+            return new Location(world.asBukkit(), index % 16, y + index / 256, (index / 16) % 16);
+        }
+        int side = 128;
+        return new Location(world.asBukkit(), (index % side) * 32, y, (index / side) * 32);
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static int[] parseCounts(String value) {
+        String[] parts = value.split(",");
+        int[] counts = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            counts[i] = Integer.parseInt(parts[i].trim());
+        }
+        return counts;
+    }
+
+    private static double nanosToMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
\ No newline at end of file
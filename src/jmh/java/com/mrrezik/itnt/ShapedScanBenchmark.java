@@ -0,0 +1,65 @@
+package com.mrrezik.itnt.managers;
+
+import com.mrrezik.itnt.HeadlessPlugin;
+import com.mrrezik.itnt.fake.FakeServer;
+import com.mrrezik.itnt.fake.FakeWorld;
+import com.mrrezik.itnt.itnt;
+import com.mrrezik.itnt.objects.CustomTNT;
+import com.mrrezik.itnt.utils.LongHashSet;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.block.BlockFace;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выбор блоков направленного заряда (проход по ядру формы) в сплошном камне.
+ * Для сравнения со сферой той же длины - SphereScanBenchmark с power = length.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ShapedScanBenchmark {
+
+    @Param({"tunnel", "cone", "disk", "cube"})
+    public String shape;
+
+    @Param({"8", "32"})
+    public int length;
+
+    private itnt plugin;
+    private ExplosionEngine engine;
+    private FakeWorld world;
+    private Location center;
+    private CustomTNT config;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        String yaml = HeadlessPlugin.generateConfig(1, 4, 4.0f, false, false, true)
+                + "    shape:\n"
+                + "      type: \"" + shape + "\"\n"
+                + "      length: " + length + "\n"
+                + "      radius: 2.0\n"
+                + "      angle: 30.0\n";
+        plugin = HeadlessPlugin.start(Files.createTempDirectory("itnt-bench").toFile(), yaml);
+        engine = plugin.getTntManager().getExplosionEngine();
+        config = plugin.getConfigManager().getTNTType("tnt0");
+
+        world = FakeServer.get().addWorld("bench-shaped", (x, y, z) -> Material.STONE);
+        world.setReadOnly(true);
+        center = new Location(world.asBukkit(), 0.5, 128.5, 0.5);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        HeadlessPlugin.stop(plugin);
+    }
+
+    @Benchmark
+    public LongHashSet selectShaped() {
+        return engine.selectShaped(world.asBukkit(), center, config, BlockFace.NORTH, false);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,73 @@
+package com.mrrezik.itnt.managers;
+
+import com.mrrezik.itnt.HeadlessPlugin;
+import com.mrrezik.itnt.fake.FakeServer;
+import com.mrrezik.itnt.fake.FakeWorld;
+import com.mrrezik.itnt.itnt;
+import com.mrrezik.itnt.objects.CustomTNT;
+import com.mrrezik.itnt.utils.LongHashSet;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выбор блоков ExplosionEngine (лучи) на разном рельефе: камень, стена с обсидианом, вода.
+ * Мир работает в режиме read-only, поэтому каждый вызов сканирует одинаковый рельеф.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SphereScanBenchmark {
+
+    @Param({"4.0", "10.0"})
+    public float power;
+
+    @Param({"stone", "obsidian", "water"})
+    public String terrain;
+
+    private itnt plugin;
+    private ExplosionEngine engine;
+    private FakeWorld world;
+    private Location center;
+    private CustomTNT config;
+    private boolean inWater;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        plugin = HeadlessPlugin.start(Files.createTempDirectory("itnt-bench").toFile(),
+                HeadlessPlugin.generateConfig(1, 4, power, false, true, true));
+        engine = plugin.getTntManager().getExplosionEngine();
+        config = plugin.getConfigManager().getTNTType("tnt0");
+
+        world = FakeServer.get().addWorld("bench-" + terrain, terrainOf(terrain));
+        world.setReadOnly(true);
+        center = new Location(world.asBukkit(), 0.5, 64.5, 0.5);
+        inWater = world.getType(0, 64, 0) == Material.WATER;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        HeadlessPlugin.stop(plugin);
+    }
+
+    @Benchmark
+    public LongHashSet selectBlocks() {
+        return engine.selectBlocks(world.asBukkit(), center, config, inWater);
+    }
+
+    static FakeWorld.Terrain terrainOf(String name) {
+        switch (name) {
+            case "obsidian":
+                // Шахматная стена обсидиана и камня (типичная защита базы)
+                return (x, y, z) -> ((x + y + z) & 1) == 0 ? Material.OBSIDIAN : Material.STONE;
+            case "water":
+                return (x, y, z) -> y < 56 ? Material.STONE : Material.WATER;
+            default:
+                return (x, y, z) -> y < 64 ? Material.STONE : Material.AIR;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,170 @@
+package com.mrrezik.itnt.loadtest;
+
+import com.mrrezik.itnt.HeadlessPlugin;
+import com.mrrezik.itnt.fake.FakeScheduler;
+import com.mrrezik.itnt.fake.FakeServer;
+import com.mrrezik.itnt.fake.FakeWorld;
+import com.mrrezik.itnt.itnt;
+import com.mrrezik.itnt.managers.MetricsManager;
+import com.mrrezik.itnt.managers.MetricsManager.Counter;
+import com.mrrezik.itnt.managers.TNTManager;
+import com.mrrezik.itnt.managers.TraceRecorder;
+import com.mrrezik.itnt.managers.TraceRecorder.Kind;
+import com.mrrezik.itnt.objects.CustomTNT;
+import com.mrrezik.itnt.objects.TraceEvent;
+import com.mrrezik.itnt.utils.LatencyHistogram;
+import org.bukkit.Location;
+import org.bukkit.Material;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Воспроизведение трассы, записанной на сервере (/itnt trace), на настоящих менеджерах iTNT
+ * с фейковым миром и планировщиком. Входные события (поджиг, установка и разрушение блока ТНТ)
+ * подаются в тот же тик от начала записи, что и на сервере; остальное (взрывы, голограммы, отмены)
+ * порождают сами менеджеры, а записанные значения служат для сверки.
+ * Время фитилей симулированное, прогон идет с полной скоростью. Рельеф - плоский камень ниже y=64.
+ * Запуск: ./gradlew traceReplay -PtraceReplay.file=trace.bin [-PtraceReplay.config=config.yml]
+ */
+public final class TraceReplay {
+
+    private static final int SEA_LEVEL = 64;
+    // Сколько тиков после последнего события ждать оставшиеся взрывы
+    private static final int MAX_TAIL_TICKS = 20 * 120;
+
+    private TraceReplay() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: TraceReplay <trace.bin> [config.yml] [report.txt]");
+            System.exit(1);
+        }
+        List<TraceEvent> events = TraceRecorder.read(new File(args[0]));
+        String configYaml = args.length > 1 && !args[1].isEmpty()
+                ? new String(Files.readAllBytes(new File(args[1]).toPath()), StandardCharsets.UTF_8)
+                : null;
+        File report = args.length > 2 ? new File(args[2]) : null;
+
+        File dataFolder = Files.createTempDirectory("itnt-replay").toFile();
+        itnt plugin = HeadlessPlugin.start(dataFolder, configYaml);
+        FakeScheduler scheduler = FakeServer.get().getScheduler();
+        TNTManager tntManager = plugin.getTntManager();
+
+        long baseTick = scheduler.getCurrentTick();
+        tntManager.setClock(() -> (scheduler.getCurrentTick() - baseTick) * 50L);
+
+        Map<String, FakeWorld> worlds = new HashMap<>();
+        long[] recorded = new long[Kind.values().length];
+        for (TraceEvent event : events) {
+            if (event.getKind() != null) recorded[event.getKind().ordinal()]++;
+        }
+
+        LatencyHistogram ticks = new LatencyHistogram();
+        long worstNanos = 0;
+        int worstTick = 0;
+        int unknownTypes = 0;
+        int lastEventTick = events.isEmpty() ? 0 : events.get(events.size() - 1).getTick();
+
+        int index = 0;
+        int tick = 0;
+        while (index < events.size() || !tntManager.getActiveTNTs().isEmpty() || scheduler.getTaskCount() > 0) {
+            if (tick > lastEventTick + MAX_TAIL_TICKS) break;
+
+            long start = System.nanoTime();
+            while (index < events.size() && events.get(index).getTick() <= tick) {
+                if (!apply(plugin, worlds, events.get(index))) unknownTypes++;
+                index++;
+            }
+            scheduler.tick();
+            long elapsed = System.nanoTime() - start;
+
+            ticks.record(elapsed);
+            if (elapsed > worstNanos) {
+                worstNanos = elapsed;
+                worstTick = tick;
+            }
+            tick++;
+        }
+
+        MetricsManager metrics = plugin.getMetricsManager();
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format(Locale.ROOT, "trace: %s (%d events, %d ticks recorded)", args[0], events.size(), lastEventTick + 1));
+        lines.add(String.format(Locale.ROOT, "replay: %d ticks, p50=%.3f ms p99=%.3f ms max=%.3f ms (tick %d)",
+                ticks.getCount(), nanosToMillis(ticks.getPercentile(50)), nanosToMillis(ticks.getPercentile(99)),
+                nanosToMillis(worstNanos), worstTick));
+        lines.add(String.format(Locale.ROOT, "%-16s %10s %10s", "event", "recorded", "replayed"));
+        lines.add(row("prime", recorded[Kind.PRIME.ordinal()], sum(plugin, metrics, Counter.PRIMES)));
+        lines.add(row("detonate", recorded[Kind.DETONATE.ordinal()], sum(plugin, metrics, Counter.DETONATIONS)));
+        lines.add(row("cancel", recorded[Kind.CANCEL.ordinal()], sum(plugin, metrics, Counter.CANCELLATIONS)));
+        lines.add(row("hologram-create", recorded[Kind.HOLOGRAM_CREATE.ordinal()], sum(plugin, metrics, Counter.HOLOGRAM_CREATES)));
+        lines.add(row("hologram-update", recorded[Kind.HOLOGRAM_UPDATE.ordinal()], sum(plugin, metrics, Counter.HOLOGRAM_UPDATES)));
+        lines.add(row("hologram-move", recorded[Kind.HOLOGRAM_MOVE.ordinal()], sum(plugin, metrics, Counter.HOLOGRAM_MOVES)));
+        lines.add(row("hologram-delete", recorded[Kind.HOLOGRAM_DELETE.ordinal()], sum(plugin, metrics, Counter.HOLOGRAM_DELETES)));
+        if (unknownTypes > 0) {
+            lines.add("warning: " + unknownTypes + " events reference TNT types missing from the replay config");
+        }
+
+        for (String line : lines) {
+            System.out.println(line);
+        }
+        if (report != null) {
+            Files.createDirectories(report.getAbsoluteFile().getParentFile().toPath());
+            Files.write(report.toPath(), lines, StandardCharsets.UTF_8);
+            System.out.println("Report: " + report.getAbsolutePath());
+        }
+
+        HeadlessPlugin.stop(plugin);
+    }
+
+    /**
+     * Подает входное событие в менеджеры. Выходные события (взрывы, голограммы) пропускаются.
+     * @return false, если тип ТНТ из события не найден в конфиге
+     */
+    private static boolean apply(itnt plugin, Map<String, FakeWorld> worlds, TraceEvent event) {
+        if (event.getKind() == null) return true;
+        FakeWorld world = worlds.computeIfAbsent(event.getWorld(),
+                name -> FakeServer.get().addWorld(name, (x, y, z) -> y < SEA_LEVEL ? Material.STONE : Material.AIR));
+
+        switch (event.getKind()) {
+            case PRIME: {
+                CustomTNT tnt = plugin.getConfigManager().getTNTType(event.getTntId());
+                if (tnt == null) return false;
+                plugin.getTntManager().primeTNT(new Location(world.asBukkit(), event.getX(), event.getY(), event.getZ()), tnt, null);
+                return true;
+            }
+            case PLACE:
+                world.setType(event.getX(), event.getY(), event.getZ(), Material.TNT);
+                return true;
+            case BREAK:
+                world.setType(event.getX(), event.getY(), event.getZ(), Material.AIR);
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    private static long sum(itnt plugin, MetricsManager metrics, Counter counter) {
+        long total = 0;
+        for (CustomTNT tnt : plugin.getConfigManager().getAllTNTTypes()) {
+            total += metrics.getCounter(tnt.getId(), counter);
+        }
+        return total;
+    }
+
+    private static String row(String name, long recorded, long replayed) {
+        return String.format(Locale.ROOT, "%-16s %10d %10d", name, recorded, replayed);
+    }
+
+    private static double nanosToMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
\ No newline at end of file
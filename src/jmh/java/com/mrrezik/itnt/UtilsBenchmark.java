@@ -0,0 +1,49 @@
+package com.mrrezik.itnt.utils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Форматирование цветов: вызывается на каждое обновление голограммы и каждое сообщение.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UtilsBenchmark {
+
+    private String hologramLine;
+    private String legacyLine;
+    private String plainLine;
+    private List<String> lore;
+
+    @Setup
+    public void setup() {
+        hologramLine = "&#FF6347&#FFB800Обсидиановый ТНТ &f- &e3.5s";
+        legacyLine = "&8[&ci&4TNT&8] &r&fВы получили &eТНТ &f(&b64&f шт.)";
+        plainLine = "Plain text without any color codes";
+        lore = List.of("&7Ломает только обсидиан,", "&7не нанося урон игрокам.", "",
+                "&#FFD700Особые свойства:", "&f- &aУрон по игрокам: &cНет", "<#00FF00>Взрыв в воде: &aДа");
+    }
+
+    @Benchmark
+    public String colorHex() {
+        return Utils.color(hologramLine);
+    }
+
+    @Benchmark
+    public String colorLegacy() {
+        return Utils.color(legacyLine);
+    }
+
+    @Benchmark
+    public String colorPlain() {
+        return Utils.color(plainLine);
+    }
+
+    @Benchmark
+    public List<String> colorLore() {
+        return Utils.color(lore);
+    }
+}
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.mrrezik.itnt.objects;
 
 import org.bukkit.Location;
+import org.bukkit.block.BlockFace;
 import java.util.UUID;
 
 public class ActiveTNT {
@@ -11,15 +12,20 @@ public class ActiveTNT {
     private final long startTime;
     private final long fuseTicks;
     private final UUID entityId; // <-- ДОБАВЛЕНО: UUID сущности TNTPrimed
+    private final UUID placerId; // Игрок, который поджег ТНТ (null - цепная реакция, редстоун и т.п.)
+    private final BlockFace direction; // Направление формы заряда (shape), для сферы не важно
 
     // Обновленный конструктор
-    public ActiveTNT(UUID trackingId, Location location, CustomTNT config, long startTime, long fuseTicks, UUID entityId) { // <-- ИЗМЕНЕНО
+    public ActiveTNT(UUID trackingId, Location location, CustomTNT config, long startTime, long fuseTicks, UUID entityId,
+                     UUID placerId, BlockFace direction) {
         this.trackingId = trackingId;
         this.location = location;
         this.config = config;
         this.startTime = startTime;
         this.fuseTicks = fuseTicks;
         this.entityId = entityId; // <-- ДОБАВЛЕНО
+        this.placerId = placerId;
+        this.direction = direction;
     }
 
     public UUID getTrackingId() { return trackingId; }
@@ -28,4 +34,6 @@ public class ActiveTNT {
     public long getStartTime() { return startTime; }
     public long getFuseTicks() { return fuseTicks; }
     public UUID getEntityId() { return entityId; } // <-- ДОБАВЛЕНО
+    public UUID getPlacerId() { return placerId; }
+    public BlockFace getDirection() { return direction; }
 }
\ No newline at end of file
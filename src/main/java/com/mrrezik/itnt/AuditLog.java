@@ -0,0 +1,420 @@
+package com.mrrezik.itnt.managers;
+
+import com.mrrezik.itnt.itnt;
+import com.mrrezik.itnt.objects.ActiveTNT;
+import com.mrrezik.itnt.objects.AuditRecord;
+import com.mrrezik.itnt.utils.AuditRingBuffer;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Журнал взрывов для расследования гриферства: кто, что, где и сколько блоков.
+ * Записи фиксированного размера идут через кольцевой буфер без блокировок в фоновый поток,
+ * который дописывает их в файлы plugins/iTNT/audit/audit-&lt;время&gt;.bin с ротацией по размеру.
+ * Тип ТНТ в записи - номер в таблице строк файла audit-&lt;время&gt;.ids (строки "номер=id"),
+ * номер появляется в таблице раньше первой записи с ним.
+ * Поиск (/itnt log) читает файлы кусками и находит начало интервала бинарным поиском по времени.
+ */
+public class AuditLog {
+
+    // Формат файла: заголовок (magic, версия, размер записи), затем записи по RECORD_SIZE байт
+    private static final byte[] MAGIC = "ITNTAUD1".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 16;
+    // timestamp(8) + world(16) + placer(16) + x,y,z(12) + blocks(4) + номер типа в таблице строк(4)
+    static final int RECORD_SIZE = 8 + 16 + 16 + 12 + 4 + 4;
+    // Версия 1: вместо номера - id типа, обрезанный до 16 байт UTF-8
+    private static final int V1_TYPE_ID_BYTES = 16;
+    private static final int V1_RECORD_SIZE = 8 + 16 + 16 + 12 + 4 + V1_TYPE_ID_BYTES;
+
+    private static final String FILE_PREFIX = "audit-";
+    private static final String FILE_SUFFIX = ".bin";
+    private static final String NAMES_SUFFIX = ".ids";
+    private static final int READ_CHUNK_RECORDS = 512;
+    // Запас поиска по времени: записи версии 1 и шаги системных часов могут идти немного не по порядку
+    private static final long TIME_SLACK_MILLIS = 1000L;
+
+    private final itnt plugin;
+    private final File directory;
+
+    private boolean enabled;
+    private long maxFileBytes;
+    private int maxFiles;
+
+    private AuditRingBuffer ring;
+    private volatile boolean running;
+    private Thread writerThread;
+
+    // Номера типов ТНТ: только растут за время работы сервера (переживают перезагрузку конфига)
+    private final Map<String, Integer> typeRefs = new ConcurrentHashMap<>();
+    private final List<String> typeNames = new CopyOnWriteArrayList<>();
+
+    // Только поток записи
+    private FileChannel channel;
+    private long channelSize;
+    private File namesFile;
+    private final BitSet namesWritten = new BitSet();
+
+    public AuditLog(itnt plugin) {
+        this.plugin = plugin;
+        this.directory = new File(plugin.getDataFolder(), "audit");
+    }
+
+    /**
+     * Загружает настройки из секции audit в config.yml и (пере)запускает поток записи.
+     */
+    public void loadSettings() {
+        stop();
+        FileConfiguration config = plugin.getConfig();
+        enabled = config.getBoolean("audit.enabled", true);
+        maxFileBytes = Math.max(1L, config.getLong("audit.max-file-size-mb", 16)) * 1024L * 1024L;
+        maxFiles = Math.max(1, config.getInt("audit.max-files", 10));
+        if (!enabled) return;
+
+        ring = new AuditRingBuffer(config.getInt("audit.buffer-size", 4096), RECORD_SIZE);
+        running = true;
+        writerThread = new Thread(this::writeLoop, "iTNT-Audit");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Останавливает поток записи, дописав все, что осталось в буфере.
+     */
+    public void stop() {
+        Thread thread = writerThread;
+        if (thread == null) return;
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(5000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writerThread = null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Записывает взрыв. Не блокирует и не делает ввод-вывод: только копирует 60 байт в буфер.
+     * Время берется при захвате слота, поэтому в файле записи идут по времени и с нескольких потоков регионов.
+     */
+    public void record(ActiveTNT activeTNT, int blocks) {
+        if (!enabled || ring == null) return;
+        Location location = activeTNT.getLocation();
+        World world = location.getWorld();
+        if (world == null) return;
+
+        UUID worldId = world.getUID();
+        UUID placerId = activeTNT.getPlacerId();
+        int typeRef = typeRef(activeTNT.getConfig().getId());
+
+        ring.offerStamped((slot, now) -> {
+            slot.putLong(now);
+            slot.putLong(worldId.getMostSignificantBits());
+            slot.putLong(worldId.getLeastSignificantBits());
+            slot.putLong(placerId != null ? placerId.getMostSignificantBits() : 0L);
+            slot.putLong(placerId != null ? placerId.getLeastSignificantBits() : 0L);
+            slot.putInt(location.getBlockX());
+            slot.putInt(location.getBlockY());
+            slot.putInt(location.getBlockZ());
+            slot.putInt(blocks);
+            slot.putInt(typeRef);
+        });
+    }
+
+    private int typeRef(String typeId) {
+        Integer ref = typeRefs.get(typeId);
+        if (ref != null) return ref;
+        synchronized (typeRefs) {
+            ref = typeRefs.get(typeId);
+            if (ref == null) {
+                ref = typeNames.size();
+                typeNames.add(typeId); // до публикации номера: поток записи найдет имя по нему
+                typeRefs.put(typeId, ref);
+            }
+            return ref;
+        }
+    }
+
+    /**
+     * @return Число записей, отброшенных из-за переполнения буфера
+     */
+    public long getDropped() {
+        return ring == null ? 0L : ring.getDropped();
+    }
+
+    // --- Поток записи ---
+
+    private void writeLoop() {
+        ByteBuffer batch = ByteBuffer.allocateDirect(RECORD_SIZE * 256);
+        try {
+            while (true) {
+                batch.clear();
+                int count = ring.drainTo(batch);
+                if (count == 0) {
+                    if (!running) break;
+                    LockSupport.parkNanos(50_000_000L); // 50 мс: журнал не требует мгновенной записи
+                    continue;
+                }
+                batch.flip();
+                ensureChannel(batch.remaining());
+                writeNames(batch);
+                while (batch.hasRemaining()) {
+                    channelSize += channel.write(batch);
+                }
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warning("Audit log write failed: " + e.getMessage());
+        } finally {
+            closeChannel();
+        }
+    }
+
+    /**
+     * Дописывает в таблицу строк текущего файла типы, которые встречаются в порции впервые.
+     */
+    private void writeNames(ByteBuffer batch) throws IOException {
+        StringBuilder lines = null;
+        for (int base = batch.position(); base < batch.limit(); base += RECORD_SIZE) {
+            int ref = batch.getInt(base + 56);
+            if (namesWritten.get(ref)) continue;
+            namesWritten.set(ref);
+            if (lines == null) lines = new StringBuilder();
+            lines.append(ref).append('=').append(typeNames.get(ref)).append('\n');
+        }
+        if (lines != null) {
+            Files.write(namesFile.toPath(), lines.toString().getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+    }
+
+    /**
+     * Открывает текущий файл или начинает новый, если следующая порция не помещается.
+     */
+    private void ensureChannel(int bytes) throws IOException {
+        if (channel != null && channelSize + bytes <= maxFileBytes) return;
+        closeChannel();
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        File file = new File(directory, FILE_PREFIX + System.currentTimeMillis() + FILE_SUFFIX);
+        namesFile = namesFileOf(file);
+        namesWritten.clear();
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        channelSize = channel.size();
+        if (channelSize == 0) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.put(MAGIC).putInt(VERSION).putInt(RECORD_SIZE).flip();
+            while (header.hasRemaining()) {
+                channelSize += channel.write(header);
+            }
+        }
+        deleteOldFiles();
+    }
+
+    private void closeChannel() {
+        if (channel == null) return;
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException ignored) {
+            // Файл уже записан, ошибка закрытия не критична
+        }
+        channel = null;
+    }
+
+    private void deleteOldFiles() {
+        List<File> files = listFiles();
+        for (int i = maxFiles; i < files.size(); i++) {
+            if (!files.get(i).delete()) {
+                plugin.getLogger().warning("Cannot delete old audit file " + files.get(i).getName());
+            }
+            File names = namesFileOf(files.get(i));
+            if (names.exists() && !names.delete()) {
+                plugin.getLogger().warning("Cannot delete old audit file " + names.getName());
+            }
+        }
+    }
+
+    // --- Поиск ---
+
+    /**
+     * Ищет взрывы в квадрате вокруг точки за интервал времени. Вызывать асинхронно.
+     * @return До limit записей, новые первыми
+     */
+    public List<AuditRecord> query(UUID worldId, int x, int z, int radius, long since, long until, int limit) throws IOException {
+        List<AuditRecord> result = new ArrayList<>();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+        for (File file : listFiles()) {
+            if (result.size() >= limit) break;
+            // Файлы начинаются в момент создания: более новые, чем until, пропускаем
+            if (startTimeOf(file) > until + TIME_SLACK_MILLIS) continue;
+
+            List<AuditRecord> matches = new ArrayList<>();
+            try (FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                if (in.size() < HEADER_SIZE) continue;
+                header.clear();
+                readFully(in, header, 0);
+                int version = header.getInt(MAGIC.length);
+                int recordSize = header.getInt(MAGIC.length + 4);
+                if (version == 1 ? recordSize != V1_RECORD_SIZE : version != VERSION || recordSize != RECORD_SIZE) {
+                    continue; // чужой или поврежденный файл
+                }
+                long records = (in.size() - HEADER_SIZE) / recordSize;
+                if (records <= 0) continue;
+                Map<Integer, String> names = version == VERSION ? readNames(namesFileOf(file)) : null;
+
+                ByteBuffer chunk = ByteBuffer.allocate(recordSize * READ_CHUNK_RECORDS);
+                long index = lowerBound(in, records, recordSize, since - TIME_SLACK_MILLIS);
+                while (index < records) {
+                    chunk.clear();
+                    int count = (int) Math.min(READ_CHUNK_RECORDS, records - index);
+                    chunk.limit(count * recordSize);
+                    readFully(in, chunk, HEADER_SIZE + index * recordSize);
+                    chunk.flip();
+
+                    boolean pastUntil = false;
+                    for (int i = 0; i < count; i++) {
+                        int base = i * recordSize;
+                        long timestamp = chunk.getLong(base);
+                        if (timestamp > until + TIME_SLACK_MILLIS) {
+                            pastUntil = true;
+                            break;
+                        }
+                        if (timestamp < since || timestamp > until) continue;
+                        if (chunk.getLong(base + 8) != worldId.getMostSignificantBits()
+                                || chunk.getLong(base + 16) != worldId.getLeastSignificantBits()) continue;
+                        int rx = chunk.getInt(base + 40);
+                        int rz = chunk.getInt(base + 48);
+                        if (Math.abs(rx - x) > radius || Math.abs(rz - z) > radius) continue;
+                        matches.add(decode(chunk, base, worldId, names));
+                    }
+                    if (pastUntil) break;
+                    index += count;
+                }
+            }
+
+            // В файле записи идут по возрастанию времени, а ответ - новые первыми
+            for (int i = matches.size() - 1; i >= 0 && result.size() < limit; i--) {
+                result.add(matches.get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return Индекс первой записи с временем >= since (бинарный поиск по позиционным чтениям)
+     */
+    private static long lowerBound(FileChannel in, long records, int recordSize, long since) throws IOException {
+        ByteBuffer timestamp = ByteBuffer.allocate(8);
+        long lo = 0, hi = records;
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            timestamp.clear();
+            readFully(in, timestamp, HEADER_SIZE + mid * recordSize);
+            if (timestamp.getLong(0) < since) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static void readFully(FileChannel in, ByteBuffer target, long position) throws IOException {
+        while (target.hasRemaining()) {
+            int read = in.read(target, position);
+            if (read < 0) throw new IOException("Unexpected end of audit file");
+            position += read;
+        }
+    }
+
+    /**
+     * Читает таблицу строк файла (строки "номер=id типа").
+     */
+    private static Map<Integer, String> readNames(File file) throws IOException {
+        Map<Integer, String> names = new HashMap<>();
+        if (!file.isFile()) return names;
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            int separator = line.indexOf('=');
+            if (separator <= 0) continue;
+            try {
+                names.put(Integer.parseInt(line.substring(0, separator)), line.substring(separator + 1));
+            } catch (NumberFormatException ignored) {
+                // Недописанная строка (сервер упал во время записи)
+            }
+        }
+        return names;
+    }
+
+    /**
+     * @param names Таблица строк файла; null - файл версии 1 с id типа в самой записи
+     */
+    private static AuditRecord decode(ByteBuffer chunk, int base, UUID worldId, Map<Integer, String> names) {
+        long placerMost = chunk.getLong(base + 24);
+        long placerLeast = chunk.getLong(base + 32);
+        UUID placerId = placerMost == 0L && placerLeast == 0L ? null : new UUID(placerMost, placerLeast);
+
+        String tntId;
+        if (names != null) {
+            int ref = chunk.getInt(base + 56);
+            tntId = names.getOrDefault(ref, "#" + ref);
+        } else {
+            byte[] typeId = new byte[V1_TYPE_ID_BYTES];
+            int length = 0;
+            for (int i = 0; i < V1_TYPE_ID_BYTES; i++) {
+                typeId[i] = chunk.get(base + 56 + i);
+                if (typeId[i] != 0) length = i + 1;
+            }
+            tntId = new String(typeId, 0, length, StandardCharsets.UTF_8);
+        }
+
+        return new AuditRecord(chunk.getLong(base), worldId, placerId,
+                chunk.getInt(base + 40), chunk.getInt(base + 44), chunk.getInt(base + 48),
+                chunk.getInt(base + 52), tntId);
+    }
+
+    /**
+     * @return Файлы журнала, новые первыми
+     */
+    private List<File> listFiles() {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX));
+        if (files == null) return Collections.emptyList();
+        List<File> list = new ArrayList<>(Arrays.asList(files));
+        list.sort(Comparator.comparingLong(AuditLog::startTimeOf).reversed());
+        return list;
+    }
+
+    private static File namesFileOf(File file) {
+        String name = file.getName();
+        return new File(file.getParentFile(), name.substring(0, name.length() - FILE_SUFFIX.length()) + NAMES_SUFFIX);
+    }
+
+    private static long startTimeOf(File file) {
+        String name = file.getName();
+        try {
+            return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+}
\ No newline at end of file
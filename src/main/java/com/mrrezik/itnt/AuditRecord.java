@@ -0,0 +1,39 @@
+package com.mrrezik.itnt.objects;
+
+import java.util.UUID;
+
+/**
+ * Одна запись журнала взрывов (результат /itnt log).
+ * Неизменяемый класс.
+ */
+public class AuditRecord {
+    private final long timestamp;
+    private final UUID worldId;
+    private final UUID placerId; // null, если ТНТ поджег не игрок
+    private final int x;
+    private final int y;
+    private final int z;
+    private final int blocks;
+    private final String tntId;
+
+    public AuditRecord(long timestamp, UUID worldId, UUID placerId, int x, int y, int z, int blocks, String tntId) {
+        this.timestamp = timestamp;
+        this.worldId = worldId;
+        this.placerId = placerId;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.blocks = blocks;
+        this.tntId = tntId;
+    }
+
+    // --- Getters ---
+    public long getTimestamp() { return timestamp; }
+    public UUID getWorldId() { return worldId; }
+    public UUID getPlacerId() { return placerId; }
+    public int getX() { return x; }
+    public int getY() { return y; }
+    public int getZ() { return z; }
+    public int getBlocks() { return blocks; }
+    public String getTntId() { return tntId; }
+}
\ No newline at end of file
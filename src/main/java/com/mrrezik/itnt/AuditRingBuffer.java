@@ -0,0 +1,137 @@
+package com.mrrezik.itnt.utils;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Кольцевой буфер записей фиксированного размера: много писателей, один читатель, без блокировок.
+ * Писатель занимает номер слота через CAS, пишет байты в свой слот и публикует номер.
+ * Если буфер полон (читатель не успевает), запись отбрасывается и учитывается в счетчике.
+ */
+public class AuditRingBuffer {
+
+    /**
+     * Заполняет запись в слоте буфера (позиция уже выставлена на начало слота).
+     */
+    @FunctionalInterface
+    public interface RecordWriter {
+        void write(ByteBuffer slot);
+    }
+
+    /**
+     * То же, что RecordWriter, но с временем, взятым при захвате слота.
+     */
+    @FunctionalInterface
+    public interface StampedWriter {
+        void write(ByteBuffer slot, long timestamp);
+    }
+
+    private final int capacity;
+    private final int mask;
+    private final int recordSize;
+    private final ByteBuffer data;
+    // Номер последовательности, опубликованной в слоте (-1 - пусто)
+    private final AtomicLongArray published;
+
+    private final AtomicLong head = new AtomicLong(); // следующий номер для писателя
+    private volatile long tail; // следующий номер для читателя
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * @param capacity Число записей (округляется вверх до степени двойки)
+     * @param recordSize Размер одной записи в байтах
+     */
+    public AuditRingBuffer(int capacity, int recordSize) {
+        this.capacity = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = this.capacity - 1;
+        this.recordSize = recordSize;
+        this.data = ByteBuffer.allocateDirect(this.capacity * recordSize);
+        this.published = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            published.set(i, -1L);
+        }
+    }
+
+    /**
+     * Добавляет запись. Безопасно вызывать из любого потока.
+     * @return false, если буфер полон и запись отброшена
+     */
+    public boolean offer(RecordWriter writer) {
+        long sequence;
+        do {
+            sequence = head.get();
+            if (isFull(sequence)) return false;
+        } while (!head.compareAndSet(sequence, sequence + 1));
+
+        writer.write(slotOf(sequence));
+        published.set((int) (sequence & mask), sequence); // публикация (volatile write)
+        return true;
+    }
+
+    /**
+     * Добавляет запись со временем System.currentTimeMillis(), взятым при захвате слота:
+     * время не убывает в порядке слотов, даже если писатели из разных потоков заполняют слоты в другом порядке.
+     * @return false, если буфер полон и запись отброшена
+     */
+    public boolean offerStamped(StampedWriter writer) {
+        long sequence;
+        long timestamp;
+        do {
+            sequence = head.get();
+            if (isFull(sequence)) return false;
+            // Время читается до CAS: следующий писатель увидит head только после нашего CAS,
+            // значит и время прочитает позже
+            timestamp = System.currentTimeMillis();
+        } while (!head.compareAndSet(sequence, sequence + 1));
+
+        writer.write(slotOf(sequence), timestamp);
+        published.set((int) (sequence & mask), sequence);
+        return true;
+    }
+
+    private boolean isFull(long sequence) {
+        if (sequence - tail < capacity) return false;
+        dropped.incrementAndGet();
+        return true;
+    }
+
+    private ByteBuffer slotOf(long sequence) {
+        int slot = (int) (sequence & mask);
+        ByteBuffer view = data.duplicate();
+        view.position(slot * recordSize).limit(slot * recordSize + recordSize);
+        return view.slice();
+    }
+
+    /**
+     * Переносит опубликованные записи в target (только поток читателя).
+     * @return Число перенесенных записей
+     */
+    public int drainTo(ByteBuffer target) {
+        int count = 0;
+        long next = tail;
+        ByteBuffer view = data.duplicate();
+        while (target.remaining() >= recordSize) {
+            int slot = (int) (next & mask);
+            if (published.get(slot) != next) break; // еще не записано
+            view.limit(slot * recordSize + recordSize).position(slot * recordSize);
+            target.put(view);
+            next++;
+            count++;
+        }
+        tail = next; // освобождаем слоты для писателей
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return published.get((int) (tail & mask)) != tail;
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
\ No newline at end of file
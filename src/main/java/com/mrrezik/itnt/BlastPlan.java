@@ -0,0 +1,143 @@
+package com.mrrezik.itnt.managers;
+
+import com.mrrezik.itnt.objects.BlastTable;
+import com.mrrezik.itnt.objects.CustomTNT;
+import com.mrrezik.itnt.utils.LongHashSet;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Предрасчет блоков одного взрыва во время фитиля: каждый тик проводится порция лучей,
+ * их результаты хранятся по лучам. Если блок на пути уже проведенного луча меняется,
+ * луч помечается "грязным" и в тик взрыва проводится заново; остальные лучи берутся из плана.
+ * Начальная сила каждого луча выбирается один раз при создании плана.
+ */
+final class BlastPlan {
+
+    private static final int RAY_COUNT = ExplosionEngine.RAY_COUNT;
+    // Если грязных лучей больше половины, проще провести все лучи заново
+    private static final int MAX_DIRTY_RAYS = RAY_COUNT / 2;
+    // Квадрат расстояния от центра блока до луча, при котором луч считается проходящим через блок
+    // (половина диагонали блока ~0.87 с запасом на шаг луча)
+    private static final double HIT_DISTANCE_SQ = 1.0;
+
+    private final World world;
+    private final double cx, cy, cz;
+    private final boolean inWater;
+    private final BlastTable.Layer table;
+    private final float[] intensities = new float[RAY_COUNT];
+    private final int raysPerTick;
+    private final int reach;
+    final int minX, minY, minZ, maxX, maxY, maxZ;
+
+    // Результаты проведенных лучей: блоки луча r - keys[start(r)..rayEnd[r])
+    private long[] keys = new long[256];
+    private final int[] rayEnd = new int[RAY_COUNT];
+    private int traced;
+    private final BitSet dirty = new BitSet(RAY_COUNT);
+    private int dirtyCount;
+    private boolean invalid;
+    private final LongHashSet scratch = new LongHashSet(32);
+
+    /**
+     * @param center Центр взрыва (центр блока ТНТ)
+     * @param fuseTicks Длина фитиля: лучи распределяются так, чтобы закончить за тик-два до взрыва
+     */
+    BlastPlan(World world, Location center, CustomTNT config, boolean inWater, long fuseTicks) {
+        this.world = world;
+        this.cx = center.getX();
+        this.cy = center.getY();
+        this.cz = center.getZ();
+        this.inWater = inWater;
+        this.table = config.getBlastTable().getLayer(inWater && !config.isExplodeInWater());
+
+        float power = config.getPower();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int ray = 0; ray < RAY_COUNT; ray++) {
+            intensities[ray] = power * (0.7f + random.nextFloat() * 0.6f);
+        }
+        this.raysPerTick = (int) Math.ceil(RAY_COUNT / (double) Math.max(1L, fuseTicks - 2));
+
+        this.reach = ExplosionEngine.reachOf(power);
+        this.minX = center.getBlockX() - reach;
+        this.minY = center.getBlockY() - reach;
+        this.minZ = center.getBlockZ() - reach;
+        this.maxX = center.getBlockX() + reach;
+        this.maxY = center.getBlockY() + reach;
+        this.maxZ = center.getBlockZ() + reach;
+    }
+
+    World getWorld() {
+        return world;
+    }
+
+    /**
+     * Проводит очередную порцию лучей (вызывается каждый тик фитиля).
+     */
+    synchronized void advance() {
+        if (invalid || !table.canBreakAny()) return;
+        int end = Math.min(RAY_COUNT, traced + raysPerTick);
+        while (traced < end) {
+            int start = traced == 0 ? 0 : rayEnd[traced - 1];
+            scratch.clear();
+            ExplosionEngine.traceRay(world, table, cx, cy, cz, traced, intensities[traced], scratch);
+            if (start + scratch.size() > keys.length) {
+                keys = Arrays.copyOf(keys, Math.max(keys.length * 2, start + scratch.size()));
+            }
+            rayEnd[traced] = start + scratch.copyTo(keys, start);
+            traced++;
+        }
+    }
+
+    /**
+     * Блок изменился: лучи, уже проведенные через него, станут грязными.
+     */
+    synchronized void blockChanged(int x, int y, int z) {
+        if (invalid || traced == 0) return;
+        if (x < minX || x > maxX || y < minY || y > maxY || z < minZ || z > maxZ) return;
+
+        double vx = x + 0.5 - cx, vy = y + 0.5 - cy, vz = z + 0.5 - cz;
+        double lengthSq = vx * vx + vy * vy + vz * vz;
+        for (int ray = 0; ray < traced; ray++) {
+            if (dirty.get(ray)) continue;
+            double t = vx * ExplosionEngine.rayDirection(ray, 0)
+                    + vy * ExplosionEngine.rayDirection(ray, 1)
+                    + vz * ExplosionEngine.rayDirection(ray, 2);
+            if (t < -1.0 || t > reach + 1.0) continue;
+            if (lengthSq - t * t <= HIT_DISTANCE_SQ) {
+                dirty.set(ray);
+                if (++dirtyCount > MAX_DIRTY_RAYS) {
+                    invalid = true;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Собирает итоговое множество блоков: чистые лучи из плана, грязные и непроведенные - заново.
+     * @param inWaterNow Находится ли центр в жидкости в момент взрыва
+     * @return Блоки взрыва или null, если план устарел целиком (нужен обычный проход)
+     */
+    synchronized LongHashSet finish(boolean inWaterNow) {
+        if (invalid || inWaterNow != inWater) return null;
+        int stored = traced == 0 ? 0 : rayEnd[traced - 1];
+        LongHashSet selected = new LongHashSet(Math.max(16, stored));
+        if (!table.canBreakAny()) return selected;
+
+        for (int ray = 0; ray < RAY_COUNT; ray++) {
+            if (ray >= traced || dirty.get(ray)) {
+                ExplosionEngine.traceRay(world, table, cx, cy, cz, ray, intensities[ray], selected);
+                continue;
+            }
+            for (int i = ray == 0 ? 0 : rayEnd[ray - 1]; i < rayEnd[ray]; i++) {
+                selected.add(keys[i]);
+            }
+        }
+        return selected;
+    }
+}
\ No newline at end of file
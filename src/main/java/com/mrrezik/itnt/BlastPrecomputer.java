@@ -0,0 +1,152 @@
+package com.mrrezik.itnt.managers;
+
+import com.mrrezik.itnt.itnt;
+import com.mrrezik.itnt.objects.ActiveTNT;
+import com.mrrezik.itnt.objects.CustomTNT;
+import com.mrrezik.itnt.utils.LongHashSet;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Распределяет расчет блоков взрыва по тикам фитиля, чтобы в тик взрыва (особенно массового)
+ * оставалось только собрать готовый список. Планы индексируются по чанкам, которые задевают:
+ * изменения блоков в этих чанках (события в BlockChangeListener, а также восстановление рельефа
+ * и отложенное разрушение, которые событий не порождают) помечают затронутые лучи для пересчета.
+ * Только для обычной формы (sphere): ядро направленного заряда и так проходится за один проход.
+ */
+public class BlastPrecomputer {
+
+    private final itnt plugin;
+    private volatile boolean enabled;
+
+    // <trackingId, план>
+    private final Map<UUID, BlastPlan> plans = new ConcurrentHashMap<>();
+    // <мир, <чанк, планы, задевающие чанк>>
+    private final Map<World, Map<Long, List<BlastPlan>>> byChunk = new ConcurrentHashMap<>();
+
+    public BlastPrecomputer(itnt plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Загружает настройки из секции precompute в config.yml.
+     */
+    public void loadSettings() {
+        enabled = plugin.getConfig().getBoolean("precompute.enabled", true);
+        if (!enabled) {
+            clear();
+        }
+    }
+
+    /**
+     * Создает план для только что зажженного ТНТ.
+     */
+    public void start(ActiveTNT activeTNT) {
+        CustomTNT config = activeTNT.getConfig();
+        if (!enabled || !config.getShape().isSphere() || !config.getBlastTable().canBreakAny()
+                || activeTNT.getFuseTicks() < 2) {
+            return;
+        }
+        Location center = activeTNT.getLocation().clone().add(0.5, 0.5, 0.5);
+        World world = center.getWorld();
+        if (world == null) return;
+
+        BlastPlan plan = new BlastPlan(world, center, config, center.getBlock().isLiquid(), activeTNT.getFuseTicks());
+        plans.put(activeTNT.getTrackingId(), plan);
+
+        Map<Long, List<BlastPlan>> chunks = byChunk.computeIfAbsent(world, w -> new ConcurrentHashMap<>());
+        for (int chunkX = plan.minX >> 4; chunkX <= plan.maxX >> 4; chunkX++) {
+            for (int chunkZ = plan.minZ >> 4; chunkZ <= plan.maxZ >> 4; chunkZ++) {
+                chunks.compute(chunkKey(chunkX, chunkZ), (key, list) -> {
+                    List<BlastPlan> result = list != null ? list : new CopyOnWriteArrayList<>();
+                    result.add(plan);
+                    return result;
+                });
+            }
+        }
+    }
+
+    /**
+     * Очередная порция лучей (каждый тик фитиля).
+     */
+    public void advance(UUID trackingId) {
+        BlastPlan plan = plans.get(trackingId);
+        if (plan != null) {
+            plan.advance();
+        }
+    }
+
+    /**
+     * Забирает план в момент взрыва.
+     * @return Блоки взрыва или null, если плана нет или он устарел
+     */
+    LongHashSet take(UUID trackingId, boolean inWater) {
+        BlastPlan plan = plans.remove(trackingId);
+        if (plan == null) return null;
+        unregister(plan);
+        return plan.finish(inWater);
+    }
+
+    /**
+     * Удаляет план отмененного ТНТ.
+     */
+    public void discard(UUID trackingId) {
+        BlastPlan plan = plans.remove(trackingId);
+        if (plan != null) {
+            unregister(plan);
+        }
+    }
+
+    public void clear() {
+        plans.clear();
+        byChunk.clear();
+    }
+
+    /**
+     * Блок изменился (установка, разрушение, жидкость, поршни, чужие взрывы и т.п.).
+     */
+    public void blockChanged(Block block) {
+        if (plans.isEmpty()) return;
+        Map<Long, List<BlastPlan>> chunks = byChunk.get(block.getWorld());
+        if (chunks == null) return;
+        int x = block.getX(), z = block.getZ();
+        List<BlastPlan> list = chunks.get(chunkKey(x >> 4, z >> 4));
+        if (list == null) return;
+        int y = block.getY();
+        for (BlastPlan plan : list) {
+            plan.blockChanged(x, y, z);
+        }
+    }
+
+    public boolean isTracking() {
+        return !plans.isEmpty();
+    }
+
+    public int getPlanCount() {
+        return plans.size();
+    }
+
+    private void unregister(BlastPlan plan) {
+        Map<Long, List<BlastPlan>> chunks = byChunk.get(plan.getWorld());
+        if (chunks == null) return;
+        for (int chunkX = plan.minX >> 4; chunkX <= plan.maxX >> 4; chunkX++) {
+            for (int chunkZ = plan.minZ >> 4; chunkZ <= plan.maxZ >> 4; chunkZ++) {
+                chunks.computeIfPresent(chunkKey(chunkX, chunkZ), (key, list) -> {
+                    list.remove(plan);
+                    return list.isEmpty() ? null : list;
+                });
+            }
+        }
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.mrrezik.itnt.jfr;
+
+import com.mrrezik.itnt.objects.CustomTNT;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.bukkit.Location;
+
+/**
+ * Выбор блоков взрыва: лучи, ядро формы или готовый план предрасчета.
+ */
+@Name("itnt.BlastScan")
+@Label("TNT Blast Scan")
+@Description("Selection of blocks destroyed by a custom blast")
+public class BlastScanEvent extends ChargeEvent {
+
+    @Label("Blocks Selected")
+    int blocks;
+
+    @Label("Radius")
+    @Description("Reach of the blast in blocks")
+    int radius;
+
+    @Label("Precomputed")
+    @Description("Blocks were taken from the plan computed during the fuse")
+    boolean precomputed;
+
+    public void report(Location location, CustomTNT config, int blocks, int radius, boolean precomputed) {
+        end();
+        if (!shouldCommit()) return;
+        describe(location, config);
+        this.blocks = blocks;
+        this.radius = radius;
+        this.precomputed = precomputed;
+        commit();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,150 @@
+package com.mrrezik.itnt.objects;
+
+import org.bukkit.block.BlockFace;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Форма направленного заряда (секция shape у типа ТНТ): конус, тоннель, диск или куб.
+ * При загрузке конфига форма компилируется в ядро - массив смещений (dx, dy, dz) от центра,
+ * отсортированный по расстоянию, по одному ядру на каждое из шести направлений.
+ * Взрыв такого заряда проходит по массиву, без лучей и без перебора сферы.
+ * Неизменяемый класс.
+ */
+public class BlastShape {
+
+    public enum Type {
+        /** Обычный взрыв лучами (радиус зависит от power). */
+        SPHERE,
+        /** Конус вдоль направления: length - высота, angle - половина угла раскрытия. */
+        CONE,
+        /** Тоннель (бур) вдоль направления: length - длина, radius - радиус сечения. */
+        TUNNEL,
+        /** Плоский диск поперек направления: radius - радиус, length - толщина. */
+        DISK,
+        /** Куб с полустороной radius (направление не важно). */
+        CUBE
+    }
+
+    public enum Orient {
+        /** По грани блока, на которую кликнул игрок (заряд бьет внутрь поверхности). */
+        FACE,
+        /** По направлению взгляда поджигателя. */
+        FACING
+    }
+
+    /** Направления ядер, индекс - позиция в массиве. */
+    private static final BlockFace[] DIRECTIONS = {
+            BlockFace.DOWN, BlockFace.UP, BlockFace.NORTH, BlockFace.SOUTH, BlockFace.WEST, BlockFace.EAST
+    };
+
+    public static final BlastShape SPHERE = new BlastShape(Type.SPHERE, Orient.FACE, null, 0);
+
+    /** Наибольшая половина угла конуса; шире - почти плоскость, ядро растет как tan(angle). */
+    public static final double MAX_CONE_ANGLE = 60.0;
+    /** Наибольший радиус сечения конуса - как предел радиуса тоннеля и диска. */
+    private static final double MAX_CONE_RADIUS = 32.0;
+
+    private final Type type;
+    private final Orient orient;
+    private final int[][] kernels; // [направление][dx, dy, dz, dx, dy, dz, ...]
+    private final int reach; // максимальное смещение по любой оси
+
+    private BlastShape(Type type, Orient orient, int[][] kernels, int reach) {
+        this.type = type;
+        this.orient = orient;
+        this.kernels = kernels;
+        this.reach = reach;
+    }
+
+    /**
+     * Компилирует форму.
+     * @param length Длина (конус, тоннель) или толщина (диск), в блоках
+     * @param radius Радиус (тоннель, диск) или полусторона (куб), в блоках
+     * @param angle Половина угла раскрытия конуса, в градусах
+     */
+    public static BlastShape compile(Type type, Orient orient, int length, double radius, double angle) {
+        if (type == Type.SPHERE) return SPHERE;
+
+        int[][] kernels = new int[DIRECTIONS.length][];
+        int reach = 0;
+        for (int d = 0; d < DIRECTIONS.length; d++) {
+            // Куб не зависит от направления - одно ядро на все шесть
+            kernels[d] = type == Type.CUBE && d > 0 ? kernels[0] : buildKernel(type, DIRECTIONS[d], length, radius, angle);
+            for (int value : kernels[d]) {
+                reach = Math.max(reach, Math.abs(value));
+            }
+        }
+        return new BlastShape(type, orient, kernels, reach);
+    }
+
+    private static int[] buildKernel(Type type, BlockFace direction, int length, double radius, double angle) {
+        int ax = direction.getModX(), ay = direction.getModY(), az = direction.getModZ();
+        double tan = Math.tan(Math.toRadians(Math.max(1.0, Math.min(MAX_CONE_ANGLE, angle))));
+        double coneRadius = Math.min(MAX_CONE_RADIUS, length * tan);
+        int bound = Math.max(length, (int) Math.ceil(type == Type.CONE ? coneRadius : radius)) + 1;
+
+        List<int[]> offsets = new ArrayList<>();
+        for (int dx = -bound; dx <= bound; dx++) {
+            for (int dy = -bound; dy <= bound; dy++) {
+                for (int dz = -bound; dz <= bound; dz++) {
+                    // t - смещение вдоль направления, radial - расстояние до оси
+                    int t = dx * ax + dy * ay + dz * az;
+                    double radial = Math.sqrt(dx * dx + dy * dy + dz * dz - t * t);
+                    if (contains(type, t, radial, dx, dy, dz, length, radius, tan)) {
+                        offsets.add(new int[]{dx, dy, dz});
+                    }
+                }
+            }
+        }
+        offsets.sort((a, b) -> Integer.compare(a[0] * a[0] + a[1] * a[1] + a[2] * a[2], b[0] * b[0] + b[1] * b[1] + b[2] * b[2]));
+
+        int[] kernel = new int[offsets.size() * 3];
+        for (int i = 0; i < offsets.size(); i++) {
+            System.arraycopy(offsets.get(i), 0, kernel, i * 3, 3);
+        }
+        return kernel;
+    }
+
+    private static boolean contains(Type type, int t, double radial, int dx, int dy, int dz,
+                                    int length, double radius, double tan) {
+        switch (type) {
+            case CONE:
+                return t >= 0 && t <= length && radial <= Math.min(t * tan + 0.5, MAX_CONE_RADIUS);
+            case TUNNEL:
+                return t >= 0 && t <= length && radial <= radius;
+            case DISK:
+                return Math.abs(t) <= length / 2 && radial <= radius;
+            case CUBE:
+                return Math.abs(dx) <= radius && Math.abs(dy) <= radius && Math.abs(dz) <= radius;
+            default:
+                return false;
+        }
+    }
+
+    public boolean isSphere() {
+        return type == Type.SPHERE;
+    }
+
+    /**
+     * @return Ядро для направления: тройки (dx, dy, dz), ближние к центру первыми
+     */
+    public int[] getKernel(BlockFace direction) {
+        for (int d = 0; d < DIRECTIONS.length; d++) {
+            if (DIRECTIONS[d] == direction) return kernels[d];
+        }
+        return kernels[0]; // по умолчанию - вниз
+    }
+
+    /**
+     * @return Число блоков в ядре (одинаково для всех направлений с точностью до поворота)
+     */
+    public int size() {
+        return kernels == null ? 0 : kernels[0].length / 3;
+    }
+
+    public Type getType() { return type; }
+    public Orient getOrient() { return orient; }
+    public int getReach() { return reach; }
+}
\ No newline at end of file
@@ -0,0 +1,133 @@
+package com.mrrezik.itnt.objects;
+
+import org.bukkit.Material;
+
+import java.util.Set;
+
+/**
+ * Скомпилированная таблица материалов для одного типа ТНТ.
+ * Сопротивление и "ломаемость" каждого материала считаются один раз при загрузке конфига,
+ * поэтому во внутреннем цикле взрыва остается одно чтение массива по Material.ordinal().
+ * Неизменяемый класс.
+ */
+public class BlastTable {
+
+    /** Сопротивление "прозрачного" блока: луч проходит без потерь (воздух, жидкость при explode-in-water). */
+    public static final float PASSABLE = -1.0f;
+
+    // Жидкость без explode-in-water гасит луч, как вода у ванильного ТНТ (и в воде, и снаружи: рвы и подводные постройки целы)
+    private static final float FLUID_RESISTANCE = 100.0f;
+
+    private static final Material[] MATERIALS = Material.values();
+
+    private final Layer open;
+    private final Layer submerged;
+    // Твердые блоки (обсидиан и т.п.): без дропа, с частицами трещин. Не зависит от среды взрыва
+    private final boolean[] cracking;
+
+    private BlastTable(Layer open, Layer submerged, boolean[] cracking) {
+        this.open = open;
+        this.submerged = submerged;
+        this.cracking = cracking;
+    }
+
+    /**
+     * Компилирует таблицу.
+     * @param blockDamage Ломать обычные блоки
+     * @param explodeInWater Ломать блоки, если ТНТ взорвался в жидкости
+     * @param breakable Материалы, которые ломаются всегда и не держат взрыв (break-obsidian + materials.breakable)
+     * @param immune Материалы, которые никогда не ломаются (materials.immune)
+     * @param maxResistance Блоки с сопротивлением выше порога не ломаются (< 0 - без порога)
+     * @param cracking Материалы, которые при разрушении не дропаются и дают частицы трещин (обсидиан и т.п.)
+     */
+    public static BlastTable compile(boolean blockDamage, boolean explodeInWater, Set<Material> breakable,
+                                     Set<Material> immune, float maxResistance, Set<Material> cracking) {
+        Layer open = new Layer();
+        Layer submerged = new Layer();
+        boolean[] cracks = new boolean[MATERIALS.length];
+        for (Material type : cracking) {
+            cracks[type.ordinal()] = true;
+        }
+
+        for (Material type : MATERIALS) {
+            if (type.isLegacy() || !type.isBlock()) continue;
+            int i = type.ordinal();
+
+            if (type.isAir()) {
+                open.set(i, PASSABLE, false);
+                submerged.set(i, PASSABLE, false);
+            } else if (isFluid(type)) {
+                float resistance = explodeInWater ? PASSABLE : FLUID_RESISTANCE;
+                open.set(i, resistance, false);
+                submerged.set(i, resistance, false);
+            } else if (immune.contains(type)) {
+                float resistance = type.getBlastResistance();
+                open.set(i, resistance, false);
+                submerged.set(i, resistance, false);
+            } else if (breakable.contains(type)) {
+                open.set(i, 0.0f, true);
+                submerged.set(i, 0.0f, true);
+            } else {
+                float resistance = type.getBlastResistance();
+                boolean breaks = blockDamage && (maxResistance < 0 || resistance <= maxResistance);
+                open.set(i, resistance, breaks);
+                // В жидкости без explode-in-water ломается только список breakable
+                submerged.set(i, resistance, breaks && explodeInWater);
+            }
+        }
+        return new BlastTable(open, submerged, cracks);
+    }
+
+    /**
+     * @param fluidsBlock true, если ТНТ в жидкости и explode-in-water выключен
+     */
+    public Layer getLayer(boolean fluidsBlock) {
+        return fluidsBlock ? submerged : open;
+    }
+
+    /**
+     * @return true, если взрыв хоть что-то может сломать (иначе проход по блокам не нужен)
+     */
+    public boolean canBreakAny() {
+        return open.breakableCount > 0 || submerged.breakableCount > 0;
+    }
+
+    /**
+     * @return true, если разрушенный блок не дропается, а оставляет частицы трещин
+     */
+    public boolean cracks(Material type) {
+        return cracking[type.ordinal()];
+    }
+
+    private static boolean isFluid(Material type) {
+        return type == Material.WATER || type == Material.LAVA || type == Material.BUBBLE_COLUMN;
+    }
+
+    /**
+     * Плотные массивы по ordinal материала для одной среды взрыва.
+     */
+    public static final class Layer {
+        private final float[] resistance = new float[MATERIALS.length];
+        private final boolean[] breakable = new boolean[MATERIALS.length];
+        private int breakableCount;
+
+        private void set(int ordinal, float resistance, boolean breakable) {
+            this.resistance[ordinal] = resistance;
+            this.breakable[ordinal] = breakable;
+            if (breakable) breakableCount++;
+        }
+
+        /** @return Сопротивление материала или {@link #PASSABLE} */
+        public float resistance(Material type) {
+            return resistance[type.ordinal()];
+        }
+
+        public boolean isBreakable(Material type) {
+            return breakable[type.ordinal()];
+        }
+
+        public boolean canBreakAny() {
+            return breakableCount > 0;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,121 @@
+package com.mrrezik.itnt.listeners;
+
+import com.mrrezik.itnt.itnt;
+import com.mrrezik.itnt.managers.BlastPrecomputer;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.*;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+
+import java.util.List;
+
+/**
+ * Сообщает BlastPrecomputer об изменениях блоков рядом с зажженными ТНТ,
+ * чтобы предрассчитанные лучи через эти блоки были проведены заново в момент взрыва.
+ * Пока нет ни одного плана, каждый обработчик - одна проверка.
+ */
+public class BlockChangeListener implements Listener {
+
+    private final BlastPrecomputer blastPrecomputer;
+
+    public BlockChangeListener(itnt plugin) {
+        this.blastPrecomputer = plugin.getBlastPrecomputer();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBreak(BlockBreakEvent event) {
+        changed(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlace(BlockPlaceEvent event) {
+        changed(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBurn(BlockBurnEvent event) {
+        changed(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onFade(BlockFadeEvent event) {
+        changed(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onForm(BlockFormEvent event) {
+        changed(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onSpread(BlockSpreadEvent event) {
+        changed(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onFlow(BlockFromToEvent event) {
+        changed(event.getToBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onLeavesDecay(LeavesDecayEvent event) {
+        changed(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityChangeBlock(EntityChangeBlockEvent event) {
+        changed(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonExtend(BlockPistonExtendEvent event) {
+        changedMoved(event.getBlock(), event.getBlocks(), event.getDirection());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonRetract(BlockPistonRetractEvent event) {
+        changedMoved(event.getBlock(), event.getBlocks(), event.getDirection());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        changedAll(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        changedAll(event.blockList());
+    }
+
+    /**
+     * Поршень: меняются сдвигаемые блоки и их соседи по оси движения, а также место головки.
+     */
+    private void changedMoved(Block piston, List<Block> blocks, BlockFace direction) {
+        if (!blastPrecomputer.isTracking()) return;
+        BlockFace opposite = direction.getOppositeFace();
+        for (Block block : blocks) {
+            blastPrecomputer.blockChanged(block);
+            blastPrecomputer.blockChanged(block.getRelative(direction));
+            blastPrecomputer.blockChanged(block.getRelative(opposite));
+        }
+        blastPrecomputer.blockChanged(piston.getRelative(direction));
+        blastPrecomputer.blockChanged(piston.getRelative(opposite));
+    }
+
+    private void changedAll(List<Block> blocks) {
+        if (!blastPrecomputer.isTracking()) return;
+        for (Block block : blocks) {
+            blastPrecomputer.blockChanged(block);
+        }
+    }
+
+    private void changed(Block block) {
+        if (blastPrecomputer.isTracking()) {
+            blastPrecomputer.blockChanged(block);
+        }
+    }
+}
\ No newline at end of file
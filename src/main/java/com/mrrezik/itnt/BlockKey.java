@@ -0,0 +1,26 @@
+package com.mrrezik.itnt.utils;
+
+/**
+ * Упаковка координат блока в одно long: x и z по 26 бит, y - 12 бит (со знаком).
+ */
+public final class BlockKey {
+
+    private BlockKey() {
+    }
+
+    public static long pack(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFFL) << 38 | ((long) z & 0x3FFFFFFL) << 12 | ((long) y & 0xFFFL);
+    }
+
+    public static int x(long key) {
+        return (int) (key >> 38);
+    }
+
+    public static int y(long key) {
+        return (int) (key << 52 >> 52);
+    }
+
+    public static int z(long key) {
+        return (int) (key << 26 >> 38);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,70 @@
+package com.mrrezik.itnt.scheduler;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * Обычный Bukkit-планировщик: все "регионы" - это главный поток сервера.
+ */
+public class BukkitTaskScheduler implements TaskScheduler {
+
+    private final Plugin plugin;
+
+    public BukkitTaskScheduler(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public TaskHandle runAt(Location location, Runnable task) {
+        return wrap(Bukkit.getScheduler().runTask(plugin, task));
+    }
+
+    @Override
+    public TaskHandle runAtLater(Location location, Runnable task, long delayTicks) {
+        return wrap(Bukkit.getScheduler().runTaskLater(plugin, task, delayTicks));
+    }
+
+    @Override
+    public TaskHandle runAtTimer(Location location, Runnable task, long delayTicks, long periodTicks) {
+        return wrap(Bukkit.getScheduler().runTaskTimer(plugin, task, delayTicks, periodTicks));
+    }
+
+    @Override
+    public TaskHandle runFor(Entity entity, Runnable task) {
+        return wrap(Bukkit.getScheduler().runTask(plugin, () -> {
+            if (entity.isValid()) task.run();
+        }));
+    }
+
+    @Override
+    public TaskHandle runGlobal(Runnable task) {
+        return wrap(Bukkit.getScheduler().runTask(plugin, task));
+    }
+
+    @Override
+    public TaskHandle runAsync(Runnable task) {
+        return wrap(Bukkit.getScheduler().runTaskAsynchronously(plugin, task));
+    }
+
+    @Override
+    public boolean isRegionized() {
+        return false;
+    }
+
+    private static TaskHandle wrap(BukkitTask task) {
+        return new TaskHandle() {
+            @Override
+            public void cancel() {
+                task.cancel();
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return task.isCancelled();
+            }
+        };
+    }
+}
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.mrrezik.itnt.jfr;
+
+import com.mrrezik.itnt.objects.CustomTNT;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+/**
+ * Общая часть событий Java Flight Recorder, привязанных к заряду: тип ТНТ и место.
+ * Поля заполняются только если событие будет записано (shouldCommit),
+ * поэтому без записи JFR замер стоит begin() и одной проверки.
+ */
+@Category({"iTNT"})
+@StackTrace(false)
+abstract class ChargeEvent extends Event {
+
+    @Label("TNT Type")
+    String tntType;
+
+    @Label("World")
+    String world;
+
+    @Label("X")
+    int x;
+
+    @Label("Y")
+    int y;
+
+    @Label("Z")
+    int z;
+
+    /**
+     * Завершает замер и записывает событие, если запись JFR включена и порог пройден.
+     */
+    public void report(Location location, CustomTNT config) {
+        end();
+        if (!shouldCommit()) return;
+        describe(location, config);
+        commit();
+    }
+
+    final void describe(Location location, CustomTNT config) {
+        tntType = config != null ? config.getId() : null;
+        if (location != null) {
+            World w = location.getWorld();
+            world = w != null ? w.getName() : null;
+            x = location.getBlockX();
+            y = location.getBlockY();
+            z = location.getBlockZ();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,72 @@
+package com.mrrezik.itnt.managers;
+
+import com.mrrezik.itnt.api.ChargeInfo;
+import com.mrrezik.itnt.api.ChargeSnapshot;
+import com.mrrezik.itnt.objects.ActiveTNT;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Индекс активных зарядов для внешних плагинов (только чтение).
+ * Поток сервера при поджиге и удалении заряда только меняет ConcurrentHashMap и номер версии.
+ * Снимок с индексами строит читатель (в своем потоке) при первом запросе после изменения,
+ * дальше все читатели этой версии получают один и тот же неизменяемый снимок.
+ */
+public class ChargeIndex {
+
+    private final Map<UUID, ChargeInfo> charges = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private volatile ChargeSnapshot cached;
+
+    /**
+     * Добавляет зажженный заряд.
+     * @param detonatesAt Ожидаемое время взрыва, мс
+     */
+    public void add(ActiveTNT activeTNT, long detonatesAt) {
+        Location location = activeTNT.getLocation();
+        World world = location.getWorld();
+        if (world == null) return;
+        charges.put(activeTNT.getTrackingId(), new ChargeInfo(activeTNT.getTrackingId(), activeTNT.getConfig().getId(),
+                world.getUID(), world.getName(), location.getBlockX(), location.getBlockY(), location.getBlockZ(),
+                activeTNT.getPlacerId(), activeTNT.getStartTime(), detonatesAt));
+        version.incrementAndGet();
+    }
+
+    public void remove(UUID trackingId) {
+        if (charges.remove(trackingId) != null) {
+            version.incrementAndGet();
+        }
+    }
+
+    public void clear() {
+        charges.clear();
+        version.incrementAndGet();
+    }
+
+    /**
+     * Текущий снимок. Можно вызывать из любого потока; не блокирует поток сервера.
+     * Снимок слабо согласован: изменения, сделанные во время построения, могут в него попасть,
+     * но следующий запрос после них увидит новую версию.
+     */
+    public ChargeSnapshot snapshot() {
+        long current = version.get();
+        ChargeSnapshot snapshot = cached;
+        if (snapshot != null && snapshot.getVersion() == current) return snapshot;
+
+        snapshot = ChargeSnapshot.build(current, System.currentTimeMillis(), charges.values());
+        cached = snapshot;
+        return snapshot;
+    }
+
+    /**
+     * @return Номер текущей версии (для дешевой проверки "изменилось ли что-то")
+     */
+    public long getVersion() {
+        return version.get();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.mrrezik.itnt.api;
+
+import java.util.UUID;
+
+/**
+ * Неизменяемые сведения об одном зажженном заряде для внешних плагинов.
+ * Не держит ссылок на мир и сущности, поэтому безопасно читается из любого потока.
+ */
+public final class ChargeInfo {
+
+    private final UUID trackingId;
+    private final String tntId;
+    private final UUID worldId;
+    private final String worldName;
+    private final int x;
+    private final int y;
+    private final int z;
+    private final UUID placerId;
+    private final long primedAt;
+    private final long detonatesAt;
+
+    public ChargeInfo(UUID trackingId, String tntId, UUID worldId, String worldName, int x, int y, int z,
+                      UUID placerId, long primedAt, long detonatesAt) {
+        this.trackingId = trackingId;
+        this.tntId = tntId;
+        this.worldId = worldId;
+        this.worldName = worldName;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.placerId = placerId;
+        this.primedAt = primedAt;
+        this.detonatesAt = detonatesAt;
+    }
+
+    public UUID getTrackingId() { return trackingId; }
+    public String getTntId() { return tntId; }
+    public UUID getWorldId() { return worldId; }
+    public String getWorldName() { return worldName; }
+    /** Координаты блока, где был поджиг (сущность могла сместиться). */
+    public int getX() { return x; }
+    public int getY() { return y; }
+    public int getZ() { return z; }
+    public int getChunkX() { return x >> 4; }
+    public int getChunkZ() { return z >> 4; }
+    /** UUID поджигателя или null. */
+    public UUID getPlacerId() { return placerId; }
+    /** Время поджига, мс (System.currentTimeMillis). */
+    public long getPrimedAt() { return primedAt; }
+    /** Ожидаемое время взрыва, мс. */
+    public long getDetonatesAt() { return detonatesAt; }
+}
\ No newline at end of file
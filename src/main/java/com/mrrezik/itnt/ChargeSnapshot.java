@@ -0,0 +1,140 @@
+package com.mrrezik.itnt.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Неизменяемый снимок активных зарядов с индексами по миру, чанку и поджигателю.
+ * Снимок строится один раз на версию и дальше только читается, поэтому запросы
+ * безопасны из любых потоков (веб-панели, боты) и никогда не блокируют основной поток.
+ */
+public final class ChargeSnapshot {
+
+    private final long version;
+    private final long createdAt;
+    private final List<ChargeInfo> all;
+    // <мир, заряды мира>
+    private final Map<UUID, List<ChargeInfo>> byWorld;
+    // <мир, <чанк, заряды чанка>>
+    private final Map<UUID, Map<Long, List<ChargeInfo>>> byChunk;
+    // <поджигатель, заряды>
+    private final Map<UUID, List<ChargeInfo>> byPlacer;
+
+    private ChargeSnapshot(long version, long createdAt, List<ChargeInfo> all, Map<UUID, List<ChargeInfo>> byWorld,
+                           Map<UUID, Map<Long, List<ChargeInfo>>> byChunk, Map<UUID, List<ChargeInfo>> byPlacer) {
+        this.version = version;
+        this.createdAt = createdAt;
+        this.all = all;
+        this.byWorld = byWorld;
+        this.byChunk = byChunk;
+        this.byPlacer = byPlacer;
+    }
+
+    /**
+     * Строит снимок и его индексы.
+     */
+    public static ChargeSnapshot build(long version, long createdAt, Iterable<ChargeInfo> charges) {
+        List<ChargeInfo> all = new ArrayList<>();
+        Map<UUID, List<ChargeInfo>> byWorld = new HashMap<>();
+        Map<UUID, Map<Long, List<ChargeInfo>>> byChunk = new HashMap<>();
+        Map<UUID, List<ChargeInfo>> byPlacer = new HashMap<>();
+
+        for (ChargeInfo charge : charges) {
+            all.add(charge);
+            byWorld.computeIfAbsent(charge.getWorldId(), w -> new ArrayList<>()).add(charge);
+            byChunk.computeIfAbsent(charge.getWorldId(), w -> new HashMap<>())
+                    .computeIfAbsent(chunkKey(charge.getChunkX(), charge.getChunkZ()), c -> new ArrayList<>(2))
+                    .add(charge);
+            if (charge.getPlacerId() != null) {
+                byPlacer.computeIfAbsent(charge.getPlacerId(), p -> new ArrayList<>()).add(charge);
+            }
+        }
+
+        byWorld.replaceAll((world, list) -> Collections.unmodifiableList(list));
+        byPlacer.replaceAll((placer, list) -> Collections.unmodifiableList(list));
+        for (Map<Long, List<ChargeInfo>> chunks : byChunk.values()) {
+            chunks.replaceAll((chunk, list) -> Collections.unmodifiableList(list));
+        }
+        return new ChargeSnapshot(version, createdAt, Collections.unmodifiableList(all), byWorld, byChunk, byPlacer);
+    }
+
+    /**
+     * @return Номер версии: растет при каждом поджиге и удалении заряда
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return Время построения снимка, мс
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public int size() {
+        return all.size();
+    }
+
+    public List<ChargeInfo> getAll() {
+        return all;
+    }
+
+    public List<ChargeInfo> inWorld(UUID worldId) {
+        return byWorld.getOrDefault(worldId, Collections.emptyList());
+    }
+
+    public List<ChargeInfo> inChunk(UUID worldId, int chunkX, int chunkZ) {
+        Map<Long, List<ChargeInfo>> chunks = byChunk.get(worldId);
+        if (chunks == null) return Collections.emptyList();
+        return chunks.getOrDefault(chunkKey(chunkX, chunkZ), Collections.emptyList());
+    }
+
+    /**
+     * @return Заряды в шаре радиуса radius вокруг точки (по координатам блока поджига)
+     */
+    public List<ChargeInfo> inRadius(UUID worldId, double x, double y, double z, double radius) {
+        Map<Long, List<ChargeInfo>> chunks = byChunk.get(worldId);
+        if (chunks == null) return Collections.emptyList();
+
+        int minChunkX = (int) Math.floor(x - radius) >> 4, maxChunkX = (int) Math.floor(x + radius) >> 4;
+        int minChunkZ = (int) Math.floor(z - radius) >> 4, maxChunkZ = (int) Math.floor(z + radius) >> 4;
+        long area = (long) (maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1);
+        double radiusSq = radius * radius;
+        List<ChargeInfo> result = new ArrayList<>();
+
+        if (area > chunks.size()) {
+            // Радиус больше занятой области - дешевле пройти по чанкам с зарядами
+            for (List<ChargeInfo> list : chunks.values()) {
+                collect(list, x, y, z, radiusSq, result);
+            }
+        } else {
+            for (int cx = minChunkX; cx <= maxChunkX; cx++) {
+                for (int cz = minChunkZ; cz <= maxChunkZ; cz++) {
+                    List<ChargeInfo> list = chunks.get(chunkKey(cx, cz));
+                    if (list != null) collect(list, x, y, z, radiusSq, result);
+                }
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    public List<ChargeInfo> byPlacer(UUID placerId) {
+        return byPlacer.getOrDefault(placerId, Collections.emptyList());
+    }
+
+    private static void collect(List<ChargeInfo> list, double x, double y, double z, double radiusSq, List<ChargeInfo> result) {
+        for (ChargeInfo charge : list) {
+            double dx = charge.getX() + 0.5 - x, dy = charge.getY() + 0.5 - y, dz = charge.getZ() + 0.5 - z;
+            if (dx * dx + dy * dy + dz * dz <= radiusSq) result.add(charge);
+        }
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return (long) chunkX << 32 | (chunkZ & 0xFFFFFFFFL);
+    }
+}
\ No newline at end of file
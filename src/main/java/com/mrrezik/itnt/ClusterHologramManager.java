@@ -0,0 +1,261 @@
+package com.mrrezik.itnt.managers;
+
+import com.mrrezik.itnt.itnt;
+import com.mrrezik.itnt.managers.MetricsManager.Counter;
+import com.mrrezik.itnt.objects.ActiveTNT;
+import com.mrrezik.itnt.objects.CustomTNT;
+import com.mrrezik.itnt.scheduler.TaskHandle;
+import com.mrrezik.itnt.utils.BlockKey;
+import com.mrrezik.itnt.utils.Utils;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Общие голограммы для плотных групп зарядов (hologram.aggregate).
+ * Заряды одного типа, поставленные в одну ячейку сетки cell-size, показываются одной голограммой
+ * вида "x50 Мега-бомба - 1.8s (мин)". Группа обновляется при поджиге и взрыве заряда,
+ * поэтому число голограмм и их обновлений зависит от числа групп, а не зарядов.
+ */
+public class ClusterHologramManager {
+
+    private final itnt plugin;
+
+    // <мир, <ячейка сетки, группы разных типов в ячейке>>
+    private final Map<World, Map<Long, List<Cluster>>> grid = new HashMap<>();
+
+    private boolean enabled;
+    private int cellSize;
+    private String format;
+
+    public ClusterHologramManager(itnt plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Загружает настройки из секции hologram.aggregate в config.yml.
+     */
+    public void loadSettings() {
+        clear();
+        FileConfiguration config = plugin.getConfig();
+        enabled = plugin.getConfigManager().isHologramEnabled() && config.getBoolean("hologram.aggregate.enabled", false);
+        cellSize = Math.max(1, config.getInt("hologram.aggregate.cell-size", 4));
+        format = config.getString("hologram.aggregate.format", "&fx%count% &#FF6347%name% &f- &e%time%s &7(мин)");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Добавляет зажженный заряд в группу его ячейки (создает группу и голограмму, если ее нет).
+     */
+    public synchronized void add(ActiveTNT activeTNT) {
+        Location location = activeTNT.getLocation();
+        World world = location.getWorld();
+        if (world == null) return;
+
+        long cell = cellOf(location);
+        List<Cluster> clusters = grid.computeIfAbsent(world, w -> new HashMap<>())
+                .computeIfAbsent(cell, c -> new ArrayList<>(1));
+        Cluster cluster = find(clusters, activeTNT.getConfig());
+        if (cluster == null) {
+            cluster = new Cluster(world, activeTNT.getConfig());
+            cluster.add(activeTNT);
+            clusters.add(cluster);
+            cluster.start();
+        } else {
+            cluster.add(activeTNT);
+        }
+    }
+
+    /**
+     * Убирает заряд из группы (взрыв или отмена). Пустая группа удаляет свою голограмму.
+     */
+    public synchronized void remove(ActiveTNT activeTNT) {
+        Location location = activeTNT.getLocation();
+        Map<Long, List<Cluster>> cells = grid.get(location.getWorld());
+        if (cells == null) return;
+
+        long cell = cellOf(location);
+        List<Cluster> clusters = cells.get(cell);
+        if (clusters == null) return;
+        Cluster cluster = find(clusters, activeTNT.getConfig());
+        if (cluster == null || !cluster.remove(activeTNT)) return;
+
+        clusters.remove(cluster);
+        if (clusters.isEmpty()) {
+            cells.remove(cell);
+            if (cells.isEmpty()) grid.remove(location.getWorld());
+        }
+        cluster.stop();
+    }
+
+    /**
+     * Останавливает все группы и удаляет их голограммы (перезагрузка и выключение).
+     */
+    public synchronized void clear() {
+        for (Map<Long, List<Cluster>> cells : grid.values()) {
+            for (List<Cluster> clusters : cells.values()) {
+                for (Cluster cluster : clusters) {
+                    cluster.stop();
+                }
+            }
+        }
+        grid.clear();
+    }
+
+    /**
+     * @return Число групп с голограммой
+     */
+    public synchronized int getClusterCount() {
+        int count = 0;
+        for (Map<Long, List<Cluster>> cells : grid.values()) {
+            for (List<Cluster> clusters : cells.values()) {
+                count += clusters.size();
+            }
+        }
+        return count;
+    }
+
+    private long cellOf(Location location) {
+        return BlockKey.pack(
+                Math.floorDiv(location.getBlockX(), cellSize),
+                Math.floorDiv(location.getBlockY(), cellSize),
+                Math.floorDiv(location.getBlockZ(), cellSize));
+    }
+
+    private static Cluster find(List<Cluster> clusters, CustomTNT config) {
+        for (Cluster cluster : clusters) {
+            if (cluster.config == config) return cluster;
+        }
+        return null;
+    }
+
+    /**
+     * Группа зарядов одного типа в одной ячейке: одна голограмма над центром группы.
+     * Таймер обновления выполняется в потоке региона группы.
+     */
+    private final class Cluster implements Runnable {
+        private final UUID hologramId = UUID.randomUUID();
+        private final World world;
+        private final CustomTNT config;
+        private final List<ActiveTNT> members = new ArrayList<>();
+        private double sumX, sumY, sumZ;
+        private boolean moved;
+        private Location lastCenter;
+        private int ticks;
+        private TaskHandle task;
+
+        private Cluster(World world, CustomTNT config) {
+            this.world = world;
+            this.config = config;
+        }
+
+        private synchronized void add(ActiveTNT activeTNT) {
+            members.add(activeTNT);
+            Location location = activeTNT.getLocation();
+            sumX += location.getBlockX() + 0.5;
+            sumY += location.getBlockY();
+            sumZ += location.getBlockZ() + 0.5;
+            moved = true;
+        }
+
+        /**
+         * @return true, если в группе больше нет зарядов
+         */
+        private synchronized boolean remove(ActiveTNT activeTNT) {
+            if (!members.remove(activeTNT)) return false;
+            Location location = activeTNT.getLocation();
+            sumX -= location.getBlockX() + 0.5;
+            sumY -= location.getBlockY();
+            sumZ -= location.getBlockZ() + 0.5;
+            moved = true;
+            return members.isEmpty();
+        }
+
+        private synchronized Location center() {
+            int count = members.size();
+            return new Location(world, sumX / count, sumY / count, sumZ / count);
+        }
+
+        private void start() {
+            Location center = center();
+            moved = false;
+            lastCenter = center;
+            plugin.getHologramManager().createHologram(center, Utils.color(text(1, config.getFuseTime())), hologramId);
+            plugin.getMetricsManager().increment(config, Counter.HOLOGRAM_CREATES);
+            plugin.getTraceRecorder().record(TraceRecorder.Kind.HOLOGRAM_CREATE, center, config, 0);
+            task = plugin.getTaskScheduler().runAtTimer(center, this, 1L, 1L);
+        }
+
+        private void stop() {
+            if (task != null) task.cancel();
+            plugin.getHologramManager().deleteHologram(hologramId);
+            plugin.getMetricsManager().increment(config, Counter.HOLOGRAM_DELETES);
+            plugin.getTraceRecorder().record(TraceRecorder.Kind.HOLOGRAM_DELETE, lastCenter, config, 0);
+        }
+
+        @Override
+        public void run() {
+            LoadGovernor governor = plugin.getLoadGovernor();
+            if (ticks++ % governor.getHologramInterval() != 0) return;
+
+            int count;
+            long minRemainingMillis = Long.MAX_VALUE;
+            Location center;
+            boolean reposition;
+            long now = plugin.getTntManager().currentTimeMillis();
+            synchronized (this) {
+                count = members.size();
+                if (count == 0) return;
+                for (ActiveTNT member : members) {
+                    long remaining = member.getStartTime() + member.getFuseTicks() * 50L - now;
+                    minRemainingMillis = Math.min(minRemainingMillis, remaining);
+                }
+                center = center();
+                reposition = moved;
+                moved = false;
+            }
+            if (!governor.isHologramVisible(center)) {
+                if (reposition) {
+                    synchronized (this) {
+                        moved = true; // переместим, когда голограмму снова станет видно
+                    }
+                }
+                return;
+            }
+
+            HologramManager hologramManager = plugin.getHologramManager();
+            MetricsManager metricsManager = plugin.getMetricsManager();
+            TraceRecorder traceRecorder = plugin.getTraceRecorder();
+            if (reposition) {
+                lastCenter = center;
+                hologramManager.moveHologram(hologramId, center);
+                metricsManager.increment(config, Counter.HOLOGRAM_MOVES);
+                traceRecorder.record(TraceRecorder.Kind.HOLOGRAM_MOVE, center, config, 0);
+            }
+            hologramManager.updateHologram(hologramId, Utils.color(text(count, Math.max(0L, minRemainingMillis) / 1000.0)));
+            metricsManager.increment(config, Counter.HOLOGRAM_UPDATES);
+            traceRecorder.record(TraceRecorder.Kind.HOLOGRAM_UPDATE, center, config, 0);
+        }
+
+        /**
+         * Одиночный заряд показывается обычным форматом hologram.format.
+         */
+        private String text(int count, double seconds) {
+            String time = String.format("%.1f", seconds);
+            String pattern = count == 1 ? plugin.getConfigManager().getHologramFormat() : format;
+            return pattern
+                    .replace("%count%", String.valueOf(count))
+                    .replace("%name%", config.getDisplayName())
+                    .replace("%time%", time);
+        }
+    }
+}
\ No newline at end of file
@@ -1,10 +1,16 @@
 package com.mrrezik.itnt.managers;
 
 import com.mrrezik.itnt.itnt;
+import com.mrrezik.itnt.objects.BlastShape;
+import com.mrrezik.itnt.objects.BlastTable;
 import com.mrrezik.itnt.objects.CustomTNT;
+import com.mrrezik.itnt.objects.WorldPolicyTable;
+import com.mrrezik.itnt.utils.MessageTemplate;
+import com.mrrezik.itnt.utils.PrefixIndex;
 import com.mrrezik.itnt.utils.Utils;
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
+import org.bukkit.World;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.inventory.ItemStack;
@@ -24,7 +30,24 @@ public class ConfigManager {
     // Кеш для быстрого доступа
     private final Map<String, CustomTNT> tntCache = new HashMap<>();
     private final Map<String, String> tntAliasMap = new HashMap<>(); // <alias, tnt-id>
-    private final Map<String, String> messages = new HashMap<>();
+    // Сообщения, разобранные в шаблоны: с префиксом и без
+    private final Map<String, MessageTemplate> messages = new HashMap<>();
+    private final Map<String, MessageTemplate> rawMessages = new HashMap<>();
+    // Готовые предметы (1 шт.) по ID: мета с цветами и NBT собирается один раз при загрузке
+    private final Map<String, ItemStack> itemTemplates = new HashMap<>();
+    // ID и алиасы для автодополнения
+    private PrefixIndex tntKeyIndex = new PrefixIndex(Collections.emptyList());
+    // Итоговые настройки типов по мирам
+    private WorldPolicyTable worldPolicies = new WorldPolicyTable(Collections.emptyMap(), new CustomTNT[1][0]);
+
+    // Ключи секции мира, которые меняют сам тип (disabled только запрещает)
+    private static final String[] WORLD_OVERRIDE_KEYS = {
+            "fuse-time", "power-multiplier", "block-damage", "entity-damage", "explode-in-water", "break-obsidian"
+    };
+
+    // Ломаются только с break-obsidian; при разрушении не дропаются и дают частицы трещин
+    private static final Set<Material> OBSIDIAN_LIKE = Collections.unmodifiableSet(
+            EnumSet.of(Material.OBSIDIAN, Material.CRYING_OBSIDIAN, Material.ANCIENT_DEBRIS));
 
     // Настройки голограмм
     private boolean hologramEnabled;
@@ -55,6 +78,9 @@ public class ConfigManager {
         tntCache.clear();
         tntAliasMap.clear();
         messages.clear();
+        rawMessages.clear();
+        itemTemplates.clear();
+        worldPolicies = new WorldPolicyTable(Collections.emptyMap(), new CustomTNT[1][0]);
 
         // Загрузка настроек голограмм
         hologramEnabled = config.getBoolean("hologram.enabled", true);
@@ -72,8 +98,11 @@ public class ConfigManager {
     private void loadMessages() {
         ConfigurationSection msgSection = config.getConfigurationSection("messages");
         if (msgSection != null) {
+            String prefix = Utils.color(msgSection.getString("prefix", ""));
             for (String key : msgSection.getKeys(false)) {
-                messages.put(key, Utils.color(msgSection.getString(key)));
+                String text = Utils.color(msgSection.getString(key));
+                rawMessages.put(key, MessageTemplate.compile(text));
+                messages.put(key, MessageTemplate.compile(prefix + text));
             }
         }
     }
@@ -85,26 +114,19 @@ public class ConfigManager {
             return;
         }
 
+        List<CustomTNT> types = new ArrayList<>();
+        Map<String, ConfigurationSection> sections = new HashMap<>();
         for (String id : tntSection.getKeys(false)) {
             ConfigurationSection cs = tntSection.getConfigurationSection(id);
             if (cs == null) continue;
 
-            CustomTNT tnt = new CustomTNT(
-                    id,
-                    cs.getString("display-name"),
-                    cs.getStringList("lore"),
-                    cs.getInt("fuse-time", 4),
-                    cs.getBoolean("auto-ignite", false),
-                    (float) cs.getDouble("power", 4.0),
-                    cs.getBoolean("block-damage", true),
-                    cs.getBoolean("entity-damage", true),
-                    cs.getBoolean("explode-in-water", false),
-                    cs.getBoolean("break-obsidian", false),
-                    cs.getStringList("disabled-worlds")
-            );
+            CustomTNT tnt = compileType(id, types.size(), cs, null, null);
+            types.add(tnt);
+            sections.put(id, cs);
 
             // Кешируем ТНТ
             tntCache.put(id.toLowerCase(), tnt);
+            itemTemplates.put(tnt.getId(), buildTNTItem(tnt));
 
             // НОВОЕ: Загружаем и кешируем алиасы
             List<String> aliases = cs.getStringList("aliases");
@@ -118,6 +140,156 @@ public class ConfigManager {
                 }
             }
         }
+
+        tntKeyIndex = new PrefixIndex(getTNTTypeKeys());
+        worldPolicies = compileWorldPolicies(types, sections);
+    }
+
+    /**
+     * Собирает тип ТНТ из его секции. Настройки мира (worlds.&lt;мир&gt;) и типа в мире
+     * (worlds.&lt;мир&gt;.types.&lt;id&gt;) перекрывают fuse-time и флаги, power-multiplier умножает силу.
+     * @param world Секция мира или null
+     * @param typeOverride Секция типа в мире или null
+     */
+    private CustomTNT compileType(String id, int ordinal, ConfigurationSection cs,
+                                  ConfigurationSection world, ConfigurationSection typeOverride) {
+        boolean blockDamage = layer("block-damage", cs, world, typeOverride).getBoolean("block-damage", true);
+        boolean explodeInWater = layer("explode-in-water", cs, world, typeOverride).getBoolean("explode-in-water", false);
+        boolean breakObsidian = layer("break-obsidian", cs, world, typeOverride).getBoolean("break-obsidian", false);
+
+        float power = (float) cs.getDouble("power", 4.0);
+        if (world != null) power *= (float) world.getDouble("power-multiplier", 1.0);
+        if (typeOverride != null) power *= (float) typeOverride.getDouble("power-multiplier", 1.0);
+
+        // Таблица материалов компилируется один раз, взрыв читает ее по ordinal
+        Set<Material> breakable = parseMaterials(cs.getStringList("materials.breakable"), id);
+        if (breakObsidian) {
+            breakable.addAll(OBSIDIAN_LIKE);
+        }
+        Set<Material> immune = parseMaterials(cs.getStringList("materials.immune"), id);
+        BlastTable blastTable = BlastTable.compile(blockDamage, explodeInWater, breakable, immune,
+                (float) cs.getDouble("materials.max-resistance", -1.0), OBSIDIAN_LIKE);
+
+        return new CustomTNT(
+                id,
+                cs.getString("display-name"),
+                cs.getStringList("lore"),
+                layer("fuse-time", cs, world, typeOverride).getInt("fuse-time", 4),
+                cs.getBoolean("auto-ignite", false),
+                power,
+                blockDamage,
+                layer("entity-damage", cs, world, typeOverride).getBoolean("entity-damage", true),
+                explodeInWater,
+                breakObsidian,
+                cs.getStringList("disabled-worlds"),
+                cs.getInt("ignite-limit.burst", 0),
+                cs.getDouble("ignite-limit.per-second", 0.0),
+                (float) cs.getDouble("drop-yield", -1.0),
+                cs.getBoolean("regeneration.enabled", false) ? Math.max(0, cs.getInt("regeneration.delay", 30)) : -1,
+                blastTable,
+                parseShape(cs, id),
+                ordinal
+        );
+    }
+
+    /**
+     * @return Самая точная из секций, где задан ключ: тип в мире, затем мир, затем сам тип
+     */
+    private static ConfigurationSection layer(String key, ConfigurationSection cs,
+                                              ConfigurationSection world, ConfigurationSection typeOverride) {
+        if (typeOverride != null && typeOverride.isSet(key)) return typeOverride;
+        if (world != null && world.isSet(key)) return world;
+        return cs;
+    }
+
+    private static boolean hasOverrides(ConfigurationSection section) {
+        if (section == null) return false;
+        for (String key : WORLD_OVERRIDE_KEYS) {
+            if (section.isSet(key)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Компилирует таблицу "мир x тип": строка на каждый мир из секции worlds и из disabled-worlds типов.
+     * Без перекрытий в ячейке лежит сам тип, поэтому на поджиге остается один поиск строки и чтение массива.
+     */
+    private WorldPolicyTable compileWorldPolicies(List<CustomTNT> types, Map<String, ConfigurationSection> sections) {
+        ConfigurationSection worldsSection = config.getConfigurationSection("worlds");
+        Set<String> worldNames = new LinkedHashSet<>();
+        if (worldsSection != null) {
+            worldNames.addAll(worldsSection.getKeys(false));
+        }
+        for (CustomTNT type : types) {
+            worldNames.addAll(type.getDisabledWorlds());
+        }
+
+        Map<String, Integer> rows = new HashMap<>();
+        CustomTNT[][] table = new CustomTNT[worldNames.size() + 1][];
+        table[WorldPolicyTable.DEFAULT_ROW] = types.toArray(new CustomTNT[0]);
+
+        for (String worldName : worldNames) {
+            ConfigurationSection world = worldsSection != null ? worldsSection.getConfigurationSection(worldName) : null;
+            boolean worldDisabled = world != null && world.getBoolean("disabled", false);
+            boolean worldOverrides = hasOverrides(world);
+
+            CustomTNT[] row = new CustomTNT[types.size()];
+            for (CustomTNT type : types) {
+                ConfigurationSection typeOverride = world != null ? world.getConfigurationSection("types." + type.getId()) : null;
+                if (worldDisabled || type.getDisabledWorlds().contains(worldName)
+                        || (typeOverride != null && typeOverride.getBoolean("disabled", false))) {
+                    continue; // null - запрещен
+                }
+                row[type.getOrdinal()] = worldOverrides || hasOverrides(typeOverride)
+                        ? compileType(type.getId(), type.getOrdinal(), sections.get(type.getId()), world, typeOverride)
+                        : type;
+            }
+            rows.put(worldName, rows.size() + 1);
+            table[rows.size()] = row;
+        }
+        return new WorldPolicyTable(rows, table);
+    }
+
+    /**
+     * Читает секцию shape и компилирует форму заряда. Без секции или с ошибкой - обычная сфера.
+     */
+    private BlastShape parseShape(ConfigurationSection cs, String tntId) {
+        String typeName = cs.getString("shape.type", "sphere").toUpperCase(Locale.ROOT);
+        String orientName = cs.getString("shape.orient", "face").toUpperCase(Locale.ROOT);
+        BlastShape.Type type;
+        BlastShape.Orient orient;
+        try {
+            type = BlastShape.Type.valueOf(typeName);
+            orient = BlastShape.Orient.valueOf(orientName);
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("Неизвестная форма '" + typeName + "/" + orientName + "' у ТНТ '" + tntId + "'! Используется sphere.");
+            return BlastShape.SPHERE;
+        }
+        int length = Math.max(1, Math.min(64, cs.getInt("shape.length", 8)));
+        double radius = Math.max(0.0, Math.min(32.0, cs.getDouble("shape.radius", 2.0)));
+        double angle = cs.getDouble("shape.angle", 30.0);
+        if (type == BlastShape.Type.CONE && angle > BlastShape.MAX_CONE_ANGLE) {
+            plugin.getLogger().warning("Угол конуса " + angle + " у ТНТ '" + tntId + "' больше "
+                    + BlastShape.MAX_CONE_ANGLE + "! Используется " + BlastShape.MAX_CONE_ANGLE + ".");
+            angle = BlastShape.MAX_CONE_ANGLE;
+        }
+        return BlastShape.compile(type, orient, length, radius, angle);
+    }
+
+    /**
+     * Преобразует список названий в материалы блоков. Неизвестные названия пропускаются с предупреждением.
+     */
+    private Set<Material> parseMaterials(List<String> names, String tntId) {
+        Set<Material> result = EnumSet.noneOf(Material.class);
+        for (String name : names) {
+            Material material = Material.matchMaterial(name);
+            if (material == null || !material.isBlock()) {
+                plugin.getLogger().warning("Неизвестный материал блока '" + name + "' у ТНТ '" + tntId + "'! Он будет проигнорирован.");
+                continue;
+            }
+            result.add(material);
+        }
+        return result;
     }
 
     /**
@@ -147,6 +319,14 @@ public class ConfigManager {
         return tnt;
     }
 
+    /**
+     * Итоговая конфигурация типа в мире: настройки секции worlds и disabled-worlds.
+     * @return CustomTNT для этого мира или null, если тип в нем запрещен
+     */
+    public CustomTNT resolveForWorld(World world, CustomTNT tnt) {
+        return worldPolicies.resolve(world, tnt);
+    }
+
     /**
      * @return Коллекция всех зарегистрированных CustomTNT (только оригиналы, без алиасов).
      */
@@ -163,13 +343,37 @@ public class ConfigManager {
         return keys;
     }
 
+    /**
+     * @return ID и алиасы, начинающиеся с prefix (для автодополнения, без создания множества на каждый ввод)
+     */
+    public List<String> getTNTTypeKeysStartingWith(String prefix) {
+        return tntKeyIndex.startingWith(prefix);
+    }
+
+    /**
+     * @param key Ключ сообщения
+     * @return Шаблон сообщения с префиксом (render подставляет плейсхолдеры за один проход)
+     */
+    public MessageTemplate message(String key) {
+        MessageTemplate template = messages.get(key);
+        return template != null ? template : missingMessage(key);
+    }
+
+    /**
+     * @param key Ключ сообщения
+     * @return Шаблон "сырого" сообщения без префикса
+     */
+    public MessageTemplate rawMessage(String key) {
+        MessageTemplate template = rawMessages.get(key);
+        return template != null ? template : missingMessage(key);
+    }
+
     /**
      * @param key Ключ сообщения
      * @return Отформатированное сообщение с префиксом
      */
     public String getMessage(String key) {
-        String prefix = messages.getOrDefault("prefix", "");
-        return prefix + messages.getOrDefault(key, "&cСообщение не найдено: " + key);
+        return message(key).render();
     }
 
     /**
@@ -177,7 +381,11 @@ public class ConfigManager {
      * @return "Сырое" отформатированное сообщение без префикса
      */
     public String getRawMessage(String key) {
-        return messages.getOrDefault(key, "&cСообщение не найдено: " + key);
+        return rawMessage(key).render();
+    }
+
+    private static MessageTemplate missingMessage(String key) {
+        return MessageTemplate.compile(Utils.color("&cСообщение не найдено: " + key));
     }
 
     // --- Getters (Hologram) ---
@@ -195,7 +403,15 @@ public class ConfigManager {
      * @return ItemStack
      */
     public ItemStack getTNTItem(CustomTNT tnt, int amount) {
-        ItemStack item = new ItemStack(Material.TNT, amount);
+        // Шаблоны заполняются только при загрузке, дальше карта лишь читается (в том числе из потоков регионов Folia)
+        ItemStack template = itemTemplates.get(tnt.getId());
+        ItemStack item = template != null ? template.clone() : buildTNTItem(tnt);
+        item.setAmount(amount);
+        return item;
+    }
+
+    private ItemStack buildTNTItem(CustomTNT tnt) {
+        ItemStack item = new ItemStack(Material.TNT, 1);
         ItemMeta meta = item.getItemMeta();
 
         // ItemMeta не может быть null, если предмет только что создан
@@ -0,0 +1,17 @@
+package com.mrrezik.itnt.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Один тик таймера заряда (TNTCountdownTask). Тиков много (каждый заряд каждый тик),
+ * поэтому по умолчанию записываются только тики дольше 1 мс - порог меняется в настройках записи.
+ */
+@Name("itnt.CountdownTick")
+@Label("TNT Countdown Tick")
+@Description("One tick of a charge countdown: hologram, movement and liveness checks")
+@Threshold("1 ms")
+public class CountdownTickEvent extends ChargeEvent {
+}
\ No newline at end of file
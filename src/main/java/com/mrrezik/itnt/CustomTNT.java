@@ -18,11 +18,21 @@ public class CustomTNT {
     private final boolean explodeInWater;
     private final boolean breakObsidian;
     private final List<String> disabledWorlds;
+    private final int igniteLimitBurst; // 0 = без ограничения
+    private final double igniteLimitPerSecond;
+    private final float dropYield; // < 0 = как в ванилле (1 / power)
+    private final int regenerateDelay; // в секундах, < 0 = без восстановления
+    private final BlastTable blastTable;
+    private final BlastShape shape;
+    private final int ordinal; // номер типа в порядке загрузки (столбец WorldPolicyTable)
 
     public CustomTNT(String id, String displayName, List<String> lore, int fuseTime,
                      boolean autoIgnite, float power, boolean blockDamage,
                      boolean entityDamage, boolean explodeInWater,
-                     boolean breakObsidian, List<String> disabledWorlds) {
+                     boolean breakObsidian, List<String> disabledWorlds,
+                     int igniteLimitBurst, double igniteLimitPerSecond,
+                     float dropYield, int regenerateDelay, BlastTable blastTable, BlastShape shape,
+                     int ordinal) {
         this.id = id;
         this.displayName = displayName;
         this.lore = lore;
@@ -34,6 +44,13 @@ public class CustomTNT {
         this.explodeInWater = explodeInWater;
         this.breakObsidian = breakObsidian;
         this.disabledWorlds = disabledWorlds;
+        this.igniteLimitBurst = igniteLimitBurst;
+        this.igniteLimitPerSecond = igniteLimitPerSecond;
+        this.dropYield = dropYield;
+        this.regenerateDelay = regenerateDelay;
+        this.blastTable = blastTable;
+        this.shape = shape;
+        this.ordinal = ordinal;
     }
 
     // --- Getters ---
@@ -48,4 +65,17 @@ public class CustomTNT {
     public boolean isExplodeInWater() { return explodeInWater; }
     public boolean isBreakObsidian() { return breakObsidian; }
     public List<String> getDisabledWorlds() { return disabledWorlds; }
+    public int getIgniteLimitBurst() { return igniteLimitBurst; }
+    public double getIgniteLimitPerSecond() { return igniteLimitPerSecond; }
+    public boolean hasIgniteLimit() { return igniteLimitBurst > 0 && igniteLimitPerSecond > 0; }
+    public BlastTable getBlastTable() { return blastTable; }
+    public BlastShape getShape() { return shape; }
+    public int getOrdinal() { return ordinal; }
+    public int getRegenerateDelay() { return regenerateDelay; }
+    public boolean isRegenerate() { return regenerateDelay >= 0; }
+
+    /**
+     * @return Шанс дропа с разрушенного блока (drop-yield или 1 / power, как у ванильного взрыва)
+     */
+    public float getDropYield() { return dropYield >= 0 ? dropYield : 1.0f / power; }
 }
\ No newline at end of file
@@ -0,0 +1,75 @@
+package com.mrrezik.itnt.api.events;
+
+import com.mrrezik.itnt.objects.CustomTNT;
+import org.bukkit.Location;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+import java.util.UUID;
+
+/**
+ * Вызывается, когда фитиль кастомного ТНТ догорел, до эффектов, урона и разрушения блоков.
+ * Отмена - заряд гаснет без взрыва (сущность и голограмма удаляются).
+ */
+public class CustomTNTDetonateEvent extends Event implements Cancellable {
+
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final Location location;
+    private final CustomTNT tntType;
+    private final UUID placerId;
+    private final UUID trackingId;
+    private boolean cancelled;
+
+    public CustomTNTDetonateEvent(Location location, CustomTNT tntType, UUID placerId, UUID trackingId) {
+        this.location = location;
+        this.tntType = tntType;
+        this.placerId = placerId;
+        this.trackingId = trackingId;
+    }
+
+    /**
+     * @return Копия локации блока, где был поджиг
+     */
+    public Location getLocation() {
+        return location.clone();
+    }
+
+    public CustomTNT getTntType() {
+        return tntType;
+    }
+
+    /**
+     * @return UUID поджигателя или null
+     */
+    public UUID getPlacerId() {
+        return placerId;
+    }
+
+    /**
+     * @return Внутренний идентификатор заряда (совпадает с trackingId в других событиях и API)
+     */
+    public UUID getTrackingId() {
+        return trackingId;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,75 @@
+package com.mrrezik.itnt.api.events;
+
+import com.mrrezik.itnt.objects.CustomTNT;
+import org.bukkit.Location;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Все взрывы кастомного ТНТ за один тик одним событием (вызывается в начале следующего тика).
+ * Волна из сотен зарядов приходит слушателю одним вызовом вместо сотен отдельных событий.
+ * Информационное событие: взрывы уже произошли, отменить их нельзя.
+ */
+public class CustomTNTDetonationBatchEvent extends Event {
+
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final int tick;
+    private final List<Detonation> detonations;
+
+    public CustomTNTDetonationBatchEvent(int tick, List<Detonation> detonations) {
+        this.tick = tick;
+        this.detonations = detonations;
+    }
+
+    /**
+     * @return Номер тика сервера, в котором произошли взрывы
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * @return Неизменяемый список взрывов в порядке, в котором они произошли
+     */
+    public List<Detonation> getDetonations() {
+        return detonations;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+
+    /**
+     * Один взрыв. Неизменяемый класс.
+     */
+    public static final class Detonation {
+        private final Location location;
+        private final CustomTNT tntType;
+        private final UUID placerId;
+        private final UUID trackingId;
+        private final int blocksDestroyed;
+
+        public Detonation(Location location, CustomTNT tntType, UUID placerId, UUID trackingId, int blocksDestroyed) {
+            this.location = location.clone();
+            this.tntType = tntType;
+            this.placerId = placerId;
+            this.trackingId = trackingId;
+            this.blocksDestroyed = blocksDestroyed;
+        }
+
+        public Location getLocation() { return location.clone(); }
+        public CustomTNT getTntType() { return tntType; }
+        public UUID getPlacerId() { return placerId; }
+        public UUID getTrackingId() { return trackingId; }
+        public int getBlocksDestroyed() { return blocksDestroyed; }
+    }
+}
\ No newline at end of file
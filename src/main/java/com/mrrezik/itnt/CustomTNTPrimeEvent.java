@@ -0,0 +1,68 @@
+package com.mrrezik.itnt.api.events;
+
+import com.mrrezik.itnt.objects.CustomTNT;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+/**
+ * Вызывается перед поджигом кастомного ТНТ, после проверок мира и защищенных зон.
+ * Отмена - заряд не поджигается, поджигателю возвращается предмет (как при запрете в мире или зоне).
+ */
+public class CustomTNTPrimeEvent extends Event implements Cancellable {
+
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final Location location;
+    private final CustomTNT tntType;
+    private final Player placer;
+    private boolean cancelled;
+
+    public CustomTNTPrimeEvent(Location location, CustomTNT tntType, Player placer) {
+        this.location = location;
+        this.tntType = tntType;
+        this.placer = placer;
+    }
+
+    /**
+     * @return Копия локации блока ТНТ
+     */
+    public Location getLocation() {
+        return location.clone();
+    }
+
+    /**
+     * @return Тип ТНТ с учетом настроек мира
+     */
+    public CustomTNT getTntType() {
+        return tntType;
+    }
+
+    /**
+     * @return Игрок, который поджег ТНТ, или null (цепная реакция, автоподжиг без игрока)
+     */
+    public Player getPlacer() {
+        return placer;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.mrrezik.itnt.jfr;
+
+import com.mrrezik.itnt.objects.CustomTNT;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.bukkit.Location;
+
+/**
+ * Проверка зоны поражения: поиск существ в радиусе, лучи видимости, урон и отбрасывание.
+ */
+@Name("itnt.DamageZone")
+@Label("TNT Damage Zone")
+@Description("Entity damage and knockback pass of a custom blast")
+public class DamageZoneEvent extends ChargeEvent {
+
+    @Label("Entities Checked")
+    int entitiesChecked;
+
+    @Label("Entities Hit")
+    int entitiesHit;
+
+    @Label("Radius")
+    double radius;
+
+    public void report(Location location, CustomTNT config, int entitiesChecked, int entitiesHit, double radius) {
+        end();
+        if (!shouldCommit()) return;
+        describe(location, config);
+        this.entitiesChecked = entitiesChecked;
+        this.entitiesHit = entitiesHit;
+        this.radius = radius;
+        commit();
+    }
+}
\ No newline at end of file
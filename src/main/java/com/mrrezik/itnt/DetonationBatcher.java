@@ -0,0 +1,66 @@
+package com.mrrezik.itnt.managers;
+
+import com.mrrezik.itnt.api.events.CustomTNTDetonationBatchEvent;
+import com.mrrezik.itnt.api.events.CustomTNTDetonationBatchEvent.Detonation;
+import com.mrrezik.itnt.itnt;
+import com.mrrezik.itnt.objects.ActiveTNT;
+import org.bukkit.Bukkit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Собирает взрывы текущего тика и в начале следующего вызывает одно CustomTNTDetonationBatchEvent.
+ * Если у события нет слушателей, взрывы не собираются вовсе.
+ * На Folia взрывы приходят из потоков разных регионов, событие вызывается в глобальном потоке.
+ */
+public class DetonationBatcher {
+
+    private final itnt plugin;
+
+    private List<Detonation> pending = new ArrayList<>();
+    private int pendingTick;
+    private boolean flushScheduled;
+
+    public DetonationBatcher(itnt plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Добавляет взрыв в пакет текущего тика.
+     * @param blocks Число разрушенных блоков
+     */
+    public void add(ActiveTNT activeTNT, int blocks) {
+        if (CustomTNTDetonationBatchEvent.getHandlerList().getRegisteredListeners().length == 0) return;
+
+        Detonation detonation = new Detonation(activeTNT.getLocation(), activeTNT.getConfig(),
+                activeTNT.getPlacerId(), activeTNT.getTrackingId(), blocks);
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                pendingTick = Bukkit.getCurrentTick();
+            }
+            pending.add(detonation);
+            if (!flushScheduled) {
+                flushScheduled = true;
+                plugin.getTaskScheduler().runGlobal(this::flush);
+            }
+        }
+    }
+
+    /**
+     * Вызывает событие с накопленными взрывами (также при выключении плагина).
+     */
+    public void flush() {
+        List<Detonation> batch;
+        int tick;
+        synchronized (this) {
+            flushScheduled = false;
+            if (pending.isEmpty()) return;
+            batch = pending;
+            tick = pendingTick;
+            pending = new ArrayList<>(batch.size());
+        }
+        Bukkit.getPluginManager().callEvent(new CustomTNTDetonationBatchEvent(tick, Collections.unmodifiableList(batch)));
+    }
+}
\ No newline at end of file
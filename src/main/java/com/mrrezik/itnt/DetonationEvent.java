@@ -0,0 +1,27 @@
+package com.mrrezik.itnt.jfr;
+
+import com.mrrezik.itnt.objects.CustomTNT;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.bukkit.Location;
+
+/**
+ * Взрыв заряда целиком: TNTManager.createExplosion (события, эффекты, существа, блоки, журнал).
+ */
+@Name("itnt.Detonation")
+@Label("TNT Detonation")
+@Description("Detonation of a custom TNT charge")
+public class DetonationEvent extends ChargeEvent {
+
+    @Label("Blocks Destroyed")
+    int blocksDestroyed;
+
+    public void report(Location location, CustomTNT config, int blocksDestroyed) {
+        end();
+        if (!shouldCommit()) return;
+        describe(location, config);
+        this.blocksDestroyed = blocksDestroyed;
+        commit();
+    }
+}
\ No newline at end of file
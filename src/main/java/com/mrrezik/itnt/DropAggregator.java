@@ -0,0 +1,196 @@
+package com.mrrezik.itnt.managers;
+
+import com.mrrezik.itnt.itnt;
+import com.mrrezik.itnt.scheduler.TaskScheduler;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.*;
+
+/**
+ * Собирает дропы разрушенных взрывом блоков и выдает их полными стаками,
+ * вместо отдельной сущности Item на каждый блок.
+ * Режим explosion - дропы одного взрыва, tick - дропы всех взрывов мира за тик.
+ */
+public class DropAggregator {
+
+    public enum Mode { EXPLOSION, TICK }
+
+    public enum Destination {
+        /** В центре взрыва (в режиме tick - первого взрыва мира за тик). */
+        CENTER,
+        /** В точке из drops.location. */
+        LOCATION,
+        /** Дропы удаляются. */
+        NONE
+    }
+
+    private final itnt plugin;
+
+    private boolean enabled;
+    private Mode mode;
+    private Destination destination;
+    private Location fixedLocation;
+
+    // Режим tick: <мир, накопленные дропы>
+    private final Map<World, Batch> pending = new HashMap<>();
+    private boolean flushScheduled;
+
+    public DropAggregator(itnt plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Загружает настройки из секции drops в config.yml.
+     */
+    public void loadSettings() {
+        flush();
+        FileConfiguration config = plugin.getConfig();
+        enabled = config.getBoolean("drops.merge", false);
+        mode = parseEnum(Mode.class, config.getString("drops.mode", "explosion"), Mode.EXPLOSION);
+        if (mode == Mode.TICK && plugin.getTaskScheduler().isRegionized()) {
+            // На Folia взрывы одного мира идут в разных потоках регионов - общий пакет на тик невозможен
+            plugin.getLogger().warning("drops.mode: tick не поддерживается на Folia, используется explosion.");
+            mode = Mode.EXPLOSION;
+        }
+        destination = parseEnum(Destination.class, config.getString("drops.destination", "center"), Destination.CENTER);
+
+        fixedLocation = null;
+        if (destination == Destination.LOCATION) {
+            World world = Bukkit.getWorld(config.getString("drops.location.world", "world"));
+            if (world == null) {
+                plugin.getLogger().warning("Мир из drops.location не найден! Дропы будут выпадать в центре взрыва.");
+                destination = Destination.CENTER;
+            } else {
+                fixedLocation = new Location(world,
+                        config.getDouble("drops.location.x"),
+                        config.getDouble("drops.location.y"),
+                        config.getDouble("drops.location.z"));
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Открывает пакет дропов для одного взрыва.
+     * В режиме tick возвращает общий пакет мира, который будет выдан в следующем тике.
+     */
+    public Batch open(Location center) {
+        if (mode == Mode.EXPLOSION) {
+            return new Batch(center);
+        }
+        Batch batch = pending.computeIfAbsent(center.getWorld(), w -> new Batch(center));
+        if (!flushScheduled) {
+            flushScheduled = true;
+            plugin.getTaskScheduler().runGlobal(this::flush);
+        }
+        return batch;
+    }
+
+    /**
+     * Закрывает пакет после взрыва. В режиме explosion дропы выдаются сразу.
+     */
+    public void close(Batch batch) {
+        if (mode == Mode.EXPLOSION) {
+            deliver(batch);
+        }
+    }
+
+    /**
+     * Выдает все накопленные в режиме tick дропы.
+     */
+    public void flush() {
+        flushScheduled = false;
+        if (pending.isEmpty()) return;
+        List<Batch> batches = new ArrayList<>(pending.values());
+        pending.clear();
+        for (Batch batch : batches) {
+            deliver(batch);
+        }
+    }
+
+    private void deliver(Batch batch) {
+        if (destination == Destination.NONE || batch.isEmpty()) return;
+
+        Location target = destination == Destination.LOCATION ? fixedLocation : batch.center;
+        World world = target.getWorld();
+        if (world == null) return;
+
+        TaskScheduler scheduler = plugin.getTaskScheduler();
+        if (destination == Destination.LOCATION && scheduler.isRegionized()) {
+            // Точка выдачи может принадлежать другому региону
+            scheduler.runAt(target, () -> spawn(world, target, batch));
+        } else {
+            spawn(world, target, batch);
+        }
+    }
+
+    private static void spawn(World world, Location target, Batch batch) {
+        for (List<ItemStack> stacks : batch.stacks.values()) {
+            for (ItemStack stack : stacks) {
+                world.dropItem(target, stack);
+            }
+        }
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value, E fallback) {
+        if (value == null) return fallback;
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+
+    /**
+     * Дропы одного взрыва (или одного мира за тик), слитые в полные стаки.
+     */
+    public static final class Batch {
+        private final Location center;
+        // <материал, стаки этого материала> - похожие предметы ищем только среди своего материала
+        private final Map<Material, List<ItemStack>> stacks = new EnumMap<>(Material.class);
+
+        private Batch(Location center) {
+            this.center = center.clone();
+        }
+
+        public void addAll(Collection<ItemStack> drops) {
+            for (ItemStack drop : drops) {
+                add(drop);
+            }
+        }
+
+        public void add(ItemStack drop) {
+            if (drop == null || drop.getType().isAir() || drop.getAmount() <= 0) return;
+
+            List<ItemStack> list = stacks.computeIfAbsent(drop.getType(), m -> new ArrayList<>(1));
+            int remaining = drop.getAmount();
+            for (ItemStack stack : list) {
+                if (remaining == 0) return;
+                int room = stack.getMaxStackSize() - stack.getAmount();
+                if (room <= 0 || !stack.isSimilar(drop)) continue;
+                int moved = Math.min(room, remaining);
+                stack.setAmount(stack.getAmount() + moved);
+                remaining -= moved;
+            }
+            while (remaining > 0) {
+                ItemStack stack = drop.clone();
+                int amount = Math.min(Math.max(1, drop.getMaxStackSize()), remaining);
+                stack.setAmount(amount);
+                list.add(stack);
+                remaining -= amount;
+            }
+        }
+
+        public boolean isEmpty() {
+            return stacks.isEmpty();
+        }
+    }
+}
\ No newline at end of file
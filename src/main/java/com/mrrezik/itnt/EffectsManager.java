@@ -0,0 +1,285 @@
+package com.mrrezik.itnt.managers;
+
+import com.mrrezik.itnt.itnt;
+import com.mrrezik.itnt.utils.BlockKey;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.Particle;
+import org.bukkit.Sound;
+import org.bukkit.World;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Player;
+
+import java.util.*;
+
+/**
+ * Слой эффектов взрыва (частицы и звуки) с бюджетом.
+ * Эффекты за тик собираются в кластеры по сетке (merge-radius) и отправляются один раз на кластер,
+ * с лимитом на тик и на чанк. Количество частиц уменьшается с расстоянием до игрока.
+ */
+public class EffectsManager {
+
+    /**
+     * Вид эффекта. Взрывы отправляются раньше трещин блоков, если бюджета не хватает.
+     */
+    public enum Kind {
+        EXPLOSION(Particle.EXPLOSION_HUGE, 1, 0.0),
+        BLOCK_CRACK(Particle.BLOCK_CRACK, 30, 0.4);
+
+        private final Particle particle;
+        private final int count;
+        private final double spread;
+
+        Kind(Particle particle, int count, double spread) {
+            this.particle = particle;
+            this.count = count;
+            this.spread = spread;
+        }
+    }
+
+    private static final Kind[] KINDS = Kind.values();
+
+    private final itnt plugin;
+
+    // BlockData для трещин создается один раз на материал
+    private final Map<Material, BlockData> blockDataCache = new EnumMap<>(Material.class);
+
+    // <мир, <ячейка сетки, кластеры в ячейке>> - эффекты текущего тика
+    private final Map<World, Map<Long, List<Cluster>>> pending = new HashMap<>();
+    private int pendingCount;
+    private boolean flushScheduled;
+
+    private boolean budgetEnabled;
+    private int maxPerTick;
+    private int maxPerChunk;
+    private double mergeRadius;
+    private double fullDetailDistance;
+    private double maxDistance;
+
+    public EffectsManager(itnt plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Загружает настройки из секции effects в config.yml.
+     */
+    public void loadSettings() {
+        flush();
+        FileConfiguration config = plugin.getConfig();
+        budgetEnabled = config.getBoolean("effects.budget", true);
+        maxPerTick = Math.max(1, config.getInt("effects.max-per-tick", 64));
+        maxPerChunk = Math.max(1, config.getInt("effects.max-per-chunk", 4));
+        mergeRadius = Math.max(0.5, config.getDouble("effects.merge-radius", 4.0));
+        fullDetailDistance = Math.max(0.0, config.getDouble("effects.full-detail-distance", 16.0));
+        maxDistance = Math.max(fullDetailDistance + 1.0, config.getDouble("effects.max-distance", 64.0));
+    }
+
+    /**
+     * Взрыв: частица EXPLOSION_HUGE и звук.
+     */
+    public void explosion(Location location) {
+        queue(Kind.EXPLOSION, location, null);
+    }
+
+    /**
+     * Трещины разрушенного блока (обсидиан и т.п.).
+     */
+    public void blockCrack(Location location, Material type) {
+        queue(Kind.BLOCK_CRACK, location, type);
+    }
+
+    private synchronized void queue(Kind kind, Location location, Material type) {
+        World world = location.getWorld();
+        if (world == null) return;
+
+        if (!budgetEnabled) {
+            emit(world, kind, type, location.getX(), location.getY(), location.getZ(), 0.0, null);
+            return;
+        }
+
+        long cell = BlockKey.pack(
+                (int) Math.floor(location.getX() / mergeRadius),
+                (int) Math.floor(location.getY() / mergeRadius),
+                (int) Math.floor(location.getZ() / mergeRadius));
+        List<Cluster> clusters = pending.computeIfAbsent(world, w -> new HashMap<>())
+                .computeIfAbsent(cell, c -> new ArrayList<>(2));
+
+        for (Cluster cluster : clusters) {
+            if (cluster.kind == kind && cluster.type == type) {
+                cluster.add(location);
+                return;
+            }
+        }
+        Cluster cluster = new Cluster(kind, type);
+        cluster.add(location);
+        clusters.add(cluster);
+        pendingCount++;
+
+        if (!flushScheduled) {
+            flushScheduled = true;
+            plugin.getTaskScheduler().runGlobal(this::flush);
+        }
+    }
+
+    /**
+     * Отправляет эффекты, накопленные за тик, с учетом бюджетов.
+     */
+    public synchronized void flush() {
+        flushScheduled = false;
+        if (pending.isEmpty()) return;
+
+        int budget = plugin.getLoadGovernor().capEffects(maxPerTick);
+        boolean regionized = plugin.getTaskScheduler().isRegionized();
+        // <мир, <чанк, отправлено кластеров>> - общий лимит на чанк для всех видов эффектов
+        Map<World, Map<Long, Integer>> perChunkByWorld = new HashMap<>();
+
+        for (Kind kind : KINDS) {
+            for (Map.Entry<World, Map<Long, List<Cluster>>> entry : pending.entrySet()) {
+                World world = entry.getKey();
+                List<Player> viewers = world.getPlayers();
+                Map<Long, Integer> perChunk = perChunkByWorld.computeIfAbsent(world, w -> new HashMap<>());
+
+                for (List<Cluster> clusters : entry.getValue().values()) {
+                    for (Cluster cluster : clusters) {
+                        if (cluster.kind != kind) continue;
+                        if (budget <= 0) break;
+
+                        double x = cluster.sumX / cluster.members;
+                        double y = cluster.sumY / cluster.members;
+                        double z = cluster.sumZ / cluster.members;
+                        long chunk = ((long) ((int) Math.floor(x) >> 4) << 32) | (((int) Math.floor(z) >> 4) & 0xFFFFFFFFL);
+                        int used = perChunk.getOrDefault(chunk, 0);
+                        if (used >= maxPerChunk) continue;
+                        perChunk.put(chunk, used + 1);
+                        budget--;
+
+                        if (regionized) {
+                            // На Folia отправляем из потока региона, которому принадлежит кластер;
+                            // игроки других регионов берутся из снимка положений, а не из их локаций
+                            Material type = cluster.type;
+                            double extent = cluster.extent();
+                            plugin.getTaskScheduler().runAt(new Location(world, x, y, z),
+                                    () -> emitRegion(world, kind, type, x, y, z, extent));
+                        } else {
+                            emit(world, kind, cluster.type, x, y, z, cluster.extent(), viewers);
+                        }
+                    }
+                }
+            }
+        }
+
+        pending.clear();
+        pendingCount = 0;
+    }
+
+    /**
+     * @return Число кластеров, ожидающих отправки
+     */
+    public int getPendingCount() {
+        return pendingCount;
+    }
+
+    /**
+     * @param extent Разброс кластера (кластер покрывает несколько блоков - частицы распределяются шире)
+     * @param viewers Игроки мира для снижения детализации или null, чтобы отправить всем без LOD
+     */
+    private void emit(World world, Kind kind, Material type, double x, double y, double z, double extent, List<Player> viewers) {
+        Object data = kind == Kind.BLOCK_CRACK ? blockData(type) : null;
+        double spread = kind.spread + extent;
+        playSound(world, kind, x, y, z);
+
+        if (viewers == null) {
+            world.spawnParticle(kind.particle, x, y, z, kind.count, spread, spread, spread, 0.0, data);
+            return;
+        }
+
+        for (Player player : viewers) {
+            Location eye = player.getLocation();
+            send(player, kind, data, spread, x, y, z, eye.getX(), eye.getY(), eye.getZ());
+        }
+    }
+
+    /**
+     * Отправка из потока региона на Folia. Локации игроков других регионов читать нельзя,
+     * поэтому расстояние для LOD считается по снимку PlayerPositions (отстает на несколько тиков).
+     */
+    private void emitRegion(World world, Kind kind, Material type, double x, double y, double z, double extent) {
+        Object data = kind == Kind.BLOCK_CRACK ? blockData(type) : null;
+        double spread = kind.spread + extent;
+        playSound(world, kind, x, y, z);
+
+        for (PlayerPositions.Position position : plugin.getPlayerPositions().get(world)) {
+            Player player = position.getPlayer();
+            if (!player.isOnline()) continue;
+            send(player, kind, data, spread, x, y, z, position.getX(), position.getY(), position.getZ());
+        }
+    }
+
+    private void playSound(World world, Kind kind, double x, double y, double z) {
+        if (kind == Kind.EXPLOSION) {
+            world.playSound(new Location(world, x, y, z), Sound.ENTITY_GENERIC_EXPLODE, 1.0f, 1.0f);
+        }
+    }
+
+    /**
+     * Частицы одному игроку с числом по расстоянию; дальше max-distance не отправляются.
+     */
+    private void send(Player player, Kind kind, Object data, double spread, double x, double y, double z,
+                      double eyeX, double eyeY, double eyeZ) {
+        double dx = eyeX - x, dy = eyeY - y, dz = eyeZ - z;
+        double distanceSq = dx * dx + dy * dy + dz * dz;
+        if (distanceSq > maxDistance * maxDistance) return;
+
+        int count = lodCount(kind.count, Math.sqrt(distanceSq));
+        player.spawnParticle(kind.particle, x, y, z, count, spread, spread, spread, 0.0, data);
+    }
+
+    private BlockData blockData(Material type) {
+        synchronized (blockDataCache) {
+            return blockDataCache.computeIfAbsent(type, Material::createBlockData);
+        }
+    }
+
+    /**
+     * Полное число частиц до full-detail-distance, дальше линейно до 1 на max-distance.
+     */
+    private int lodCount(int base, double distance) {
+        if (distance <= fullDetailDistance) return base;
+        double factor = 1.0 - (distance - fullDetailDistance) / (maxDistance - fullDetailDistance);
+        return Math.max(1, (int) Math.round(base * factor));
+    }
+
+    /**
+     * Эффекты одного вида в одной ячейке сетки.
+     */
+    private static final class Cluster {
+        private final Kind kind;
+        private final Material type;
+        private double sumX, sumY, sumZ;
+        private double minX = Double.MAX_VALUE, maxX = -Double.MAX_VALUE;
+        private double minZ = Double.MAX_VALUE, maxZ = -Double.MAX_VALUE;
+        private int members;
+
+        private Cluster(Kind kind, Material type) {
+            this.kind = kind;
+            this.type = type;
+        }
+
+        private void add(Location location) {
+            double x = location.getX(), z = location.getZ();
+            sumX += x;
+            sumY += location.getY();
+            sumZ += z;
+            minX = Math.min(minX, x);
+            maxX = Math.max(maxX, x);
+            minZ = Math.min(minZ, z);
+            maxZ = Math.max(maxZ, z);
+            members++;
+        }
+
+        private double extent() {
+            return members <= 1 ? 0.0 : Math.max(maxX - minX, maxZ - minZ) / 2.0;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,699 @@
+package com.mrrezik.itnt.managers;
+
+import com.mrrezik.itnt.itnt;
+import com.mrrezik.itnt.jfr.BlastScanEvent;
+import com.mrrezik.itnt.jfr.DamageZoneEvent;
+import com.mrrezik.itnt.managers.MetricsManager.Timer;
+import com.mrrezik.itnt.objects.BlastShape;
+import com.mrrezik.itnt.objects.BlastTable;
+import com.mrrezik.itnt.objects.CustomTNT;
+import com.mrrezik.itnt.objects.ProtectedZone;
+import com.mrrezik.itnt.objects.RegenSnapshot;
+import com.mrrezik.itnt.scheduler.TaskHandle;
+import com.mrrezik.itnt.utils.BlockKey;
+import com.mrrezik.itnt.utils.LongHashSet;
+import org.bukkit.Bukkit;
+import org.bukkit.GameMode;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.Chest;
+import org.bukkit.block.ShulkerBox;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.entity.ArmorStand;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.entity.TNTPrimed;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.metadata.MetadataValue;
+import org.bukkit.util.Vector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Собственный движок взрыва вместо world.createExplosion.
+ * За один проход выбирает блоки (лучи как в ванилле), наносит урон и отбрасывает существ,
+ * сразу учитывая флаги типа ТНТ: block-damage, entity-damage, break-obsidian, explode-in-water.
+ * Блоки убираются пакетно (block-updates.bulk): внутренность воронки без физики,
+ * обновления соседей получают только блоки на ее краю, один раз.
+ */
+public class ExplosionEngine {
+
+    // Параметры ванильного взрыва
+    private static final int RAY_GRID = 16;
+    private static final float RAY_STEP = 0.3f;
+    private static final float RAY_DECAY = 0.22500001f;
+    // Соседи блока: 6 граней (dx, dy, dz)
+    private static final int[] FACES = {1, 0, 0, -1, 0, 0, 0, 1, 0, 0, -1, 0, 0, 0, 1, 0, 0, -1};
+
+    private final itnt plugin;
+    private final MetricsManager metricsManager;
+    private final DropAggregator dropAggregator;
+    private final EffectsManager effectsManager;
+    private final RegenerationManager regenerationManager;
+    private final ProtectionManager protectionManager;
+    private final BlastPrecomputer blastPrecomputer;
+    private final LoadGovernor loadGovernor;
+
+    private boolean bulkUpdates;
+    private int maxFallingBlocks;
+
+    // Направления лучей (поверхность куба 16x16x16), считаются один раз
+    private static final float[] RAY_DIRECTIONS = buildRayDirections();
+    static final int RAY_COUNT = RAY_DIRECTIONS.length / 3;
+
+    public ExplosionEngine(itnt plugin) {
+        this.plugin = plugin;
+        this.metricsManager = plugin.getMetricsManager();
+        this.dropAggregator = plugin.getDropAggregator();
+        this.effectsManager = plugin.getEffectsManager();
+        this.regenerationManager = plugin.getRegenerationManager();
+        this.protectionManager = plugin.getProtectionManager();
+        this.blastPrecomputer = plugin.getBlastPrecomputer();
+        this.loadGovernor = plugin.getLoadGovernor();
+    }
+
+    /**
+     * Загружает настройки из секции block-updates в config.yml.
+     */
+    public void loadSettings() {
+        bulkUpdates = plugin.getConfig().getBoolean("block-updates.bulk", true);
+        maxFallingBlocks = Math.max(0, plugin.getConfig().getInt("block-updates.max-falling-blocks", 64));
+    }
+
+    /**
+     * Выполняет взрыв.
+     * @param center Центр взрыва
+     * @param config Конфигурация ТНТ
+     * @param source Сущность TNTPrimed (может быть null, если ее уже нет)
+     * @return Число разрушенных блоков
+     */
+    public int explode(Location center, CustomTNT config, Entity source) {
+        return explode(center, config, source, BlockFace.DOWN, null);
+    }
+
+    /**
+     * Выполняет взрыв.
+     * Все блоки взрыва (включая обсидиан при break-obsidian и блоки под водой при explode-in-water)
+     * собираются в один список и проходят через одно событие EntityExplodeEvent от сущности TNTPrimed
+     * (BlockExplodeEvent, если сущности уже нет). Разрушается ровно то, что осталось в списке после события.
+     * @param direction Направление формы заряда (shape), для сферы не используется
+     * @param planId trackingId заряда, для которого блоки предрассчитаны во время фитиля (или null)
+     * @return Число разрушенных блоков
+     */
+    public int explode(Location center, CustomTNT config, Entity source, BlockFace direction, UUID planId) {
+        World world = center.getWorld();
+        if (world == null) return 0;
+
+        boolean inWater = center.getBlock().isLiquid();
+        // План забирается всегда, чтобы снять его с индекса чанков
+        LongHashSet planned = planId != null ? blastPrecomputer.take(planId, inWater) : null;
+
+        // 1. Существа: урон (entity-damage) и отбрасывание (всегда, как в ванилле)
+        long timer = metricsManager.startTimer();
+        applyEntities(world, center, config, source);
+        metricsManager.stopTimer(Timer.ENTITY_PASS, timer);
+
+        // 2. Блоки: один проход лучами (или по ядру формы) с учетом всех флагов
+        if (!config.getBlastTable().canBreakAny()) return 0;
+
+        BlastShape shape = config.getShape();
+        int reach = shape.isSphere() ? reachOf(config.getPower()) : shape.getReach();
+        BlastScanEvent scanEvent = new BlastScanEvent();
+        scanEvent.begin();
+        timer = metricsManager.startTimer();
+        LongHashSet selected = planned;
+        if (selected == null) {
+            selected = shape.isSphere()
+                    ? selectBlocks(world, center, config, inWater)
+                    : selectShaped(world, center, config, direction, inWater);
+        }
+        metricsManager.stopTimer(Timer.BLOCK_SCAN, timer);
+        scanEvent.report(center, config, selected.size(), reach, planned != null);
+        if (selected.isEmpty()) return 0;
+
+        // Защищенные зоны: сначала зоны, задевающие куб досягаемости лучей, и только при их наличии - проверка блоков
+        List<ProtectedZone> zones = protectionManager.getBlockProtection(world,
+                center.getBlockX(), center.getBlockY(), center.getBlockZ(), reach);
+
+        List<Block> blocks = new ArrayList<>(selected.size());
+        for (long key : selected.toArray()) {
+            int x = BlockKey.x(key), y = BlockKey.y(key), z = BlockKey.z(key);
+            if (!zones.isEmpty() && isProtected(zones, x, y, z)) continue;
+            blocks.add(world.getBlockAt(x, y, z));
+        }
+        if (blocks.isEmpty()) return 0;
+
+        // 3. Событие взрыва: плагины защиты могут убрать блоки из списка или отменить разрушение
+        float yield = config.getDropYield();
+        if (source != null) {
+            EntityExplodeEvent event = new EntityExplodeEvent(source, center, blocks, yield);
+            Bukkit.getPluginManager().callEvent(event);
+            if (event.isCancelled()) return 0;
+            yield = event.getYield();
+        } else {
+            BlockExplodeEvent event = new BlockExplodeEvent(center.getBlock(), blocks, yield);
+            Bukkit.getPluginManager().callEvent(event);
+            if (event.isCancelled()) return 0;
+            yield = event.getYield();
+        }
+
+        // 4. Разрушение
+        breakBlocks(center, config, blocks, yield);
+        return blocks.size();
+    }
+
+    /**
+     * Максимальная дальность луча в блоках: начальная сила до 1.3 * power, на каждом шаге теряется RAY_DECAY.
+     */
+    static int reachOf(float power) {
+        return (int) Math.ceil(power * 1.3f / RAY_DECAY * RAY_STEP) + 1;
+    }
+
+    private static boolean isProtected(List<ProtectedZone> zones, int x, int y, int z) {
+        for (ProtectedZone zone : zones) {
+            if (zone.contains(x, y, z)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Выбирает блоки направленного заряда: проход по скомпилированному ядру формы.
+     * Ломаются все блоки ядра, которые ломает таблица материалов типа; прочные блоки не экранируют соседние.
+     */
+    LongHashSet selectShaped(World world, Location center, CustomTNT config, BlockFace direction, boolean inWater) {
+        BlastTable.Layer table = config.getBlastTable().getLayer(inWater && !config.isExplodeInWater());
+        int[] kernel = config.getShape().getKernel(direction);
+        LongHashSet selected = new LongHashSet(Math.max(16, kernel.length / 3));
+        if (!table.canBreakAny()) {
+            return selected;
+        }
+
+        int cx = center.getBlockX(), cy = center.getBlockY(), cz = center.getBlockZ();
+        int minY = world.getMinHeight(), maxY = world.getMaxHeight();
+        for (int i = 0; i < kernel.length; i += 3) {
+            int y = cy + kernel[i + 1];
+            if (y < minY || y >= maxY) continue;
+            int x = cx + kernel[i], z = cz + kernel[i + 2];
+            if (table.isBreakable(world.getBlockAt(x, y, z).getType())) {
+                selected.add(BlockKey.pack(x, y, z));
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Выбирает блоки, которые разрушит взрыв. Лучи как в ванилле: каждый теряет силу
+     * на сопротивлении блоков и с расстоянием. Ломаемые блоки попадают в множество один раз.
+     */
+    LongHashSet selectBlocks(World world, Location center, CustomTNT config, boolean inWater) {
+        float power = config.getPower();
+        // В воде без explode-in-water лучи гаснут, как у ванильного ТНТ
+        BlastTable.Layer table = config.getBlastTable().getLayer(inWater && !config.isExplodeInWater());
+        if (!table.canBreakAny()) {
+            return new LongHashSet(4);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LongHashSet selected = new LongHashSet((int) (power * power * power * 8));
+        for (int ray = 0; ray < RAY_COUNT; ray++) {
+            float intensity = power * (0.7f + random.nextFloat() * 0.6f);
+            traceRay(world, table, center.getX(), center.getY(), center.getZ(), ray, intensity, selected);
+        }
+        return selected;
+    }
+
+    /**
+     * Проводит один луч и добавляет ломаемые блоки на его пути в selected.
+     * @param ray Номер луча (0..RAY_COUNT-1)
+     * @param intensity Начальная сила луча
+     */
+    static void traceRay(World world, BlastTable.Layer table, double cx, double cy, double cz,
+                         int ray, float intensity, LongHashSet selected) {
+        float dx = RAY_DIRECTIONS[ray * 3] * RAY_STEP;
+        float dy = RAY_DIRECTIONS[ray * 3 + 1] * RAY_STEP;
+        float dz = RAY_DIRECTIONS[ray * 3 + 2] * RAY_STEP;
+        double x = cx, y = cy, z = cz;
+
+        long lastKey = Long.MIN_VALUE;
+        float resistance = 0.0f;
+        boolean breakable = false;
+
+        while (intensity > 0.0f) {
+            int bx = (int) Math.floor(x);
+            int by = (int) Math.floor(y);
+            int bz = (int) Math.floor(z);
+            long key = BlockKey.pack(bx, by, bz);
+
+            // Соседние шаги луча часто попадают в тот же блок - не читаем его повторно
+            if (key != lastKey) {
+                lastKey = key;
+                Material type = world.getBlockAt(bx, by, bz).getType();
+                resistance = table.resistance(type);
+                breakable = table.isBreakable(type);
+            }
+
+            if (resistance >= 0.0f) {
+                intensity -= (resistance + 0.3f) * 0.3f;
+            }
+            if (intensity > 0.0f && breakable) {
+                selected.add(key);
+            }
+
+            x += dx;
+            y += dy;
+            z += dz;
+            intensity -= RAY_DECAY;
+        }
+    }
+
+    /**
+     * @return Единичный вектор направления луча (компонента axis: 0 - x, 1 - y, 2 - z)
+     */
+    static float rayDirection(int ray, int axis) {
+        return RAY_DIRECTIONS[ray * 3 + axis];
+    }
+
+    /**
+     * Урон и отбрасывание существ в радиусе 2 * power (формула ванильного взрыва).
+     */
+    void applyEntities(World world, Location center, CustomTNT config, Entity source) {
+        DamageZoneEvent jfrEvent = new DamageZoneEvent();
+        jfrEvent.begin();
+        double diameter = config.getPower() * 2.0;
+        int checked = 0, hit = 0;
+
+        for (Entity entity : world.getNearbyEntities(center, diameter, diameter, diameter)) {
+            checked++;
+            if (entity == source || entity.isDead()) continue;
+            if (entity instanceof ArmorStand && ((ArmorStand) entity).isMarker()) continue; // Голограммы
+
+            Location entityLoc = entity.getLocation();
+            double distance = entityLoc.distance(center) / diameter;
+            if (distance > 1.0) continue;
+
+            // Направление от центра к существу (для живых - к уровню глаз, как в ванилле)
+            double eyeY = entity instanceof LivingEntity ? ((LivingEntity) entity).getEyeLocation().getY() : entityLoc.getY();
+            Vector direction = new Vector(entityLoc.getX() - center.getX(), eyeY - center.getY(), entityLoc.getZ() - center.getZ());
+            double length = direction.length();
+            if (length == 0.0) continue;
+            direction.multiply(1.0 / length);
+
+            double impact = (1.0 - distance) * exposure(world, center, entity);
+            if (impact <= 0.0) continue;
+            hit++;
+
+            // 1. Урон
+            if (config.isEntityDamage() && entity instanceof LivingEntity) {
+                double damage = (int) ((impact * impact + impact) / 2.0 * 7.0 * diameter + 1.0);
+                damageEntity((LivingEntity) entity, source, damage);
+            }
+
+            // 2. Отбрасывание (летающие в креативе и наблюдатели не отбрасываются)
+            if (entity instanceof Player) {
+                Player player = (Player) entity;
+                if (player.getGameMode() == GameMode.SPECTATOR || (player.getGameMode() == GameMode.CREATIVE && player.isFlying())) {
+                    continue;
+                }
+            }
+            double knockback = entity instanceof LivingEntity
+                    ? impact * Math.max(0.0, 1.0 - maxBlastProtection((LivingEntity) entity) * 0.15)
+                    : impact;
+            entity.setVelocity(entity.getVelocity().add(direction.multiply(knockback)));
+        }
+        jfrEvent.report(center, config, checked, hit, diameter);
+    }
+
+    /**
+     * Наносит урон взрывом от имени сущности ТНТ. Событие урона вызывает сам сервер (одно), его видят плагины защиты.
+     * Урон идет из точки взрыва (щит и отбрасывание считаются от нее) и не считается ударом поджигателя:
+     * правила PvP и приватов не видят в нем атаку игрока, в том числе по самому себе.
+     * Поджигатель остается источником TNTPrimed (setSource при поджиге) - через него засчитывается убийство.
+     * API 1.17 не позволяет задать причину ENTITY_EXPLOSION, поэтому снижение урона от
+     * "Взрывоустойчивости" считается здесь; броню и обычную "Защиту" учитывает сервер.
+     */
+    private void damageEntity(LivingEntity victim, Entity source, double damage) {
+        damage *= blastProtectionFactor(victim);
+
+        if (source != null) {
+            victim.damage(damage, source);
+        } else {
+            victim.damage(damage);
+        }
+    }
+
+    /**
+     * Доля урона, остающаяся после "Взрывоустойчивости" сверх того, что сервер уже снимет обычной "Защитой".
+     * Очки защиты как в ванилле: "Защита" - 1 за уровень, "Взрывоустойчивость" - 2, всего не больше 20 (по 4% за очко).
+     */
+    private static double blastProtectionFactor(LivingEntity entity) {
+        if (entity.getEquipment() == null) return 1.0;
+        int general = 0, blast = 0;
+        for (ItemStack armor : entity.getEquipment().getArmorContents()) {
+            if (armor == null || armor.getType().isAir()) continue;
+            general += armor.getEnchantmentLevel(Enchantment.PROTECTION_ENVIRONMENTAL);
+            blast += armor.getEnchantmentLevel(Enchantment.PROTECTION_EXPLOSIONS);
+        }
+        if (blast == 0) return 1.0;
+        general = Math.min(20, general);
+        int total = Math.min(20, general + blast * 2);
+        return (25.0 - total) / (25.0 - general);
+    }
+
+    /**
+     * @return Наибольший уровень "Взрывоустойчивости" на броне (ослабляет отбрасывание на 15% за уровень)
+     */
+    private static int maxBlastProtection(LivingEntity entity) {
+        if (entity.getEquipment() == null) return 0;
+        int max = 0;
+        for (ItemStack armor : entity.getEquipment().getArmorContents()) {
+            if (armor == null || armor.getType().isAir()) continue;
+            max = Math.max(max, armor.getEnchantmentLevel(Enchantment.PROTECTION_EXPLOSIONS));
+        }
+        return max;
+    }
+
+    /**
+     * Доля существа, открытая взрыву: три луча (ноги, середина, глаза), перекрытые
+     * полными блоками лучи не считаются. Дешевая замена ванильной сетки лучей.
+     */
+    private double exposure(World world, Location center, Entity entity) {
+        Location loc = entity.getLocation();
+        double height = entity.getHeight();
+        int visible = 0;
+        for (int i = 0; i < 3; i++) {
+            double targetY = loc.getY() + height * (0.1 + 0.4 * i);
+            if (isLineClear(world, center.getX(), center.getY(), center.getZ(), loc.getX(), targetY, loc.getZ())) {
+                visible++;
+            }
+        }
+        return visible / 3.0;
+    }
+
+    private boolean isLineClear(World world, double x1, double y1, double z1, double x2, double y2, double z2) {
+        double dx = x2 - x1, dy = y2 - y1, dz = z2 - z1;
+        double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        int steps = (int) Math.ceil(length / 0.5);
+        long lastKey = Long.MIN_VALUE;
+        for (int s = 1; s < steps; s++) {
+            double t = (double) s / steps;
+            int bx = (int) Math.floor(x1 + dx * t);
+            int by = (int) Math.floor(y1 + dy * t);
+            int bz = (int) Math.floor(z1 + dz * t);
+            long key = BlockKey.pack(bx, by, bz);
+            if (key == lastKey) continue;
+            lastKey = key;
+            if (world.getBlockAt(bx, by, bz).getType().isOccluding()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Разрушает выбранные блоки. ТНТ в зоне взрыва поджигается (цепная реакция), как в ванилле.
+     * При drops.merge дропы собираются и выдаются полными стаками.
+     * Для типов с regeneration блоки запоминаются перед разрушением и не дают дропа
+     * (иначе восстановление дублировало бы ресурсы); содержимое контейнеров выпадает - блок вернется пустым.
+     * Снимок регистрируется до первого блока, чтобы restoreAll вернул и наполовину разрушенную воронку.
+     * При перегрузке (governor) разрушение разносится по тикам порциями governor.blocks-per-tick.
+     * В пакетном режиме (block-updates.bulk) блоки внутри воронки убираются без физики, а блоки на краю
+     * (рядом с уцелевшим не-воздухом) - с физикой и только после внутренних. Так вода, песок и факелы вокруг
+     * получают одно обновление на уже готовую воронку, а не лавину обновлений от каждого блока.
+     */
+    private void breakBlocks(Location center, CustomTNT config, List<Block> blocks, float yield) {
+        RegenSnapshot snapshot = config.isRegenerate()
+                ? new RegenSnapshot(center.getWorld(), center.getBlockX(), center.getBlockY(), center.getBlockZ(), blocks.size())
+                : null;
+        Demolition demolition = new Demolition(center, config, blocks, yield, snapshot);
+        if (snapshot != null) {
+            regenerationManager.begin(snapshot, demolition::abort);
+        }
+
+        int perTick = loadGovernor.getDeferredBlocksPerTick();
+        if (perTick <= 0 || blocks.size() <= perTick) {
+            demolition.breakNext(blocks.size());
+            return;
+        }
+        demolition.perTick = perTick;
+        demolition.breakNext(perTick);
+        demolition.task = plugin.getTaskScheduler().runAtTimer(center, demolition, 1L, 1L);
+    }
+
+    /**
+     * Разрушение блоков одного взрыва, возможно за несколько тиков.
+     * Блоки, которые к своему тику уже стали воздухом, пропускаются.
+     * Пакет дропов открывается на каждую порцию: в режиме drops.mode: tick пакет живет один тик.
+     * Блоки края воронки убираются в конце своей порции.
+     */
+    private final class Demolition implements Runnable {
+        private final Location center;
+        private final CustomTNT config;
+        private final List<Block> blocks;
+        private final float yield;
+        private final RegenSnapshot snapshot;
+        // Все блоки взрыва (только в пакетном режиме): соседи из этого множества не делают блок краем
+        private final LongHashSet keys;
+        // Сколько сыпучих блоков над воронкой еще можно обрушить (0 в настройке - без лимита)
+        private final boolean fallingCapped;
+        private int fallingBudget;
+        private int next;
+        private int perTick;
+        private TaskHandle task;
+        private volatile boolean aborted;
+
+        private Demolition(Location center, CustomTNT config, List<Block> blocks, float yield, RegenSnapshot snapshot) {
+            this.center = center;
+            this.config = config;
+            this.blocks = blocks;
+            this.yield = yield;
+            this.snapshot = snapshot;
+            this.fallingCapped = maxFallingBlocks > 0;
+            this.fallingBudget = maxFallingBlocks;
+            if (bulkUpdates) {
+                keys = new LongHashSet(blocks.size());
+                for (Block block : blocks) {
+                    keys.add(BlockKey.pack(block.getX(), block.getY(), block.getZ()));
+                }
+            } else {
+                keys = null;
+            }
+        }
+
+        @Override
+        public void run() {
+            int from = next;
+            breakNext(perTick);
+            // EntityExplodeEvent отметил эти блоки тики назад; планы, начатые с тех пор, видели их целыми
+            if (blastPrecomputer.isTracking()) {
+                for (int i = from; i < next; i++) {
+                    blastPrecomputer.blockChanged(blocks.get(i));
+                }
+            }
+            if (next >= blocks.size() && task != null) {
+                task.cancel();
+            }
+        }
+
+        /**
+         * Останавливает разрушение (restoreAll при перезагрузке или выключении). Вызывается под блокировкой снимка.
+         */
+        private void abort() {
+            aborted = true;
+            if (task != null) {
+                task.cancel();
+            }
+        }
+
+        private void breakNext(int count) {
+            if (snapshot == null) {
+                breakBatch(count);
+                return;
+            }
+            // restoreAll может восстановить снимок из другого потока посреди отложенного разрушения
+            synchronized (snapshot) {
+                if (!aborted) {
+                    breakBatch(count);
+                }
+            }
+        }
+
+        private void breakBatch(int count) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            BlastTable table = config.getBlastTable();
+            DropAggregator.Batch drops = snapshot == null && dropAggregator.isEnabled() ? dropAggregator.open(center) : null;
+            List<Block> edges = keys != null ? new ArrayList<>() : null;
+            int end = Math.min(blocks.size(), next + count);
+            for (; next < end; next++) {
+                Block block = blocks.get(next);
+                Material type = block.getType();
+                if (type.isAir()) continue;
+
+                if (type == Material.TNT) {
+                    igniteChained(block);
+                    continue;
+                }
+
+                // Блок из снимка вернется при восстановлении, обсидиан не дропается - без дропа.
+                // Содержимое контейнеров выпадает всегда (сервер удаляет его вместе с блоком), и у восстанавливаемых
+                // блоков тоже: снимок хранит только BlockData, контейнер вернется пустым.
+                boolean captured = snapshot != null && snapshot.capture(block);
+                // Невосстанавливаемый шалкер выпадает целиком: содержимое хранится в самом предмете.
+                // Все контейнеры "интерактивные" - состояние блока читаем только у них
+                boolean shulker = type.isInteractable() && spillContents(block, drops, captured);
+                boolean cracks = table.cracks(type);
+                if (!captured && !cracks && (shulker || random.nextFloat() < yield)) {
+                    if (drops != null) {
+                        drops.addAll(block.getDrops());
+                    } else if (keys != null) {
+                        dropNaturally(block);
+                    } else {
+                        block.breakNaturally();
+                        continue;
+                    }
+                }
+
+                if (keys == null) {
+                    block.setType(Material.AIR);
+                } else if (isEdge(block)) {
+                    edges.add(block);
+                } else {
+                    block.setType(Material.AIR, false);
+                }
+                if (cracks) {
+                    effectsManager.blockCrack(block.getLocation().add(0.5, 0.5, 0.5), type);
+                }
+            }
+
+            if (edges != null) {
+                for (Block edge : edges) {
+                    edge.setType(Material.AIR, allowPhysics(edge));
+                }
+            }
+            if (drops != null) {
+                dropAggregator.close(drops);
+            }
+            if (snapshot != null && next >= blocks.size()) {
+                regenerationManager.schedule(snapshot, config.getRegenerateDelay());
+            }
+        }
+
+        /**
+         * @return true, если рядом есть уцелевший не-воздух (вода, песок, опора факела), которому нужно обновление
+         */
+        private boolean isEdge(Block block) {
+            World world = block.getWorld();
+            int x = block.getX(), y = block.getY(), z = block.getZ();
+            for (int i = 0; i < FACES.length; i += 3) {
+                int nx = x + FACES[i], ny = y + FACES[i + 1], nz = z + FACES[i + 2];
+                if (keys.contains(BlockKey.pack(nx, ny, nz))) continue;
+                if (!world.getBlockAt(nx, ny, nz).getType().isAir()) return true;
+            }
+            return false;
+        }
+
+        /**
+         * Физика края воронки: сыпучий блок сверху обрушится, пока не исчерпан лимит block-updates.max-falling-blocks.
+         * После лимита край убирается без физики, и сыпучие блоки остаются висеть до следующего обновления соседей.
+         */
+        private boolean allowPhysics(Block edge) {
+            if (!fallingCapped) return true;
+            Block above = edge.getRelative(BlockFace.UP);
+            if (keys.contains(BlockKey.pack(above.getX(), above.getY(), above.getZ()))
+                    || !above.getType().hasGravity()) {
+                return true;
+            }
+            if (fallingBudget <= 0) return false;
+            fallingBudget--;
+            return true;
+        }
+    }
+
+    /**
+     * Выбрасывает содержимое контейнера (сундук, бочка, печь, воронка...) в пакет дропов или на место блока
+     * и очищает инвентарь. Шалкеры не трогаются - их содержимое остается в выпавшем предмете,
+     * кроме восстанавливаемых: такой шалкер вернется пустым, поэтому его содержимое выпадает как у сундука.
+     * У двойного сундука выпадает только половина этого блока.
+     * @param restored Блок попал в снимок регенерации
+     * @return true, если блок - шалкер, который нужно выбросить целиком
+     */
+    private static boolean spillContents(Block block, DropAggregator.Batch drops, boolean restored) {
+        BlockState state = block.getState(false);
+        if (state instanceof ShulkerBox && !restored) return true;
+        if (!(state instanceof InventoryHolder)) return false;
+
+        Inventory inventory = state instanceof Chest ? ((Chest) state).getBlockInventory() : ((InventoryHolder) state).getInventory();
+        Location location = block.getLocation();
+        for (ItemStack item : inventory.getContents()) {
+            if (item == null || item.getType().isAir()) continue;
+            if (drops != null) {
+                drops.add(item);
+            } else {
+                block.getWorld().dropItemNaturally(location, item);
+            }
+        }
+        inventory.clear();
+        return false;
+    }
+
+    /**
+     * Дроп блока на месте, как у breakNaturally, но без обновления соседей (блок убирается отдельно).
+     */
+    private static void dropNaturally(Block block) {
+        Location location = block.getLocation();
+        for (ItemStack item : block.getDrops()) {
+            block.getWorld().dropItemNaturally(location, item);
+        }
+    }
+
+    private void igniteChained(Block block) {
+        if (block.hasMetadata("itnt-id")) {
+            List<MetadataValue> values = block.getMetadata("itnt-id");
+            CustomTNT chained = values.isEmpty() ? null : plugin.getConfigManager().getTNTType(values.get(0).asString());
+            block.removeMetadata("itnt-id", plugin);
+            if (chained != null) {
+                plugin.getTntManager().primeTNT(block.getLocation(), chained, null);
+                return;
+            }
+        }
+
+        // Ванильный ТНТ: короткий случайный фитиль, как при подрыве взрывом
+        block.setType(Material.AIR);
+        TNTPrimed primed = block.getWorld().spawn(block.getLocation().add(0.5, 0.0, 0.5), TNTPrimed.class);
+        primed.setFuseTicks(10 + ThreadLocalRandom.current().nextInt(20));
+    }
+
+    private static float[] buildRayDirections() {
+        List<float[]> directions = new ArrayList<>();
+        for (int i = 0; i < RAY_GRID; i++) {
+            for (int j = 0; j < RAY_GRID; j++) {
+                for (int k = 0; k < RAY_GRID; k++) {
+                    if (i != 0 && i != RAY_GRID - 1 && j != 0 && j != RAY_GRID - 1 && k != 0 && k != RAY_GRID - 1) {
+                        continue;
+                    }
+                    float dx = i / (RAY_GRID - 1.0f) * 2.0f - 1.0f;
+                    float dy = j / (RAY_GRID - 1.0f) * 2.0f - 1.0f;
+                    float dz = k / (RAY_GRID - 1.0f) * 2.0f - 1.0f;
+                    float length = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+                    directions.add(new float[]{dx / length, dy / length, dz / length});
+                }
+            }
+        }
+        float[] flat = new float[directions.size() * 3];
+        for (int i = 0; i < directions.size(); i++) {
+            System.arraycopy(directions.get(i), 0, flat, i * 3, 3);
+        }
+        return flat;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,154 @@
+package com.mrrezik.itnt.scheduler;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.function.Consumer;
+
+/**
+ * Планировщик Folia: задачи заряда выполняются в потоке региона, которому принадлежит его локация.
+ * Плагин собирается против paper-api 1.17 без Folia API, поэтому методы находятся через reflection
+ * один раз при создании, а вызовы идут через закешированные Method.
+ */
+public class FoliaTaskScheduler implements TaskScheduler {
+
+    private static final String REGIONIZED_SERVER = "io.papermc.paper.threadedregions.RegionizedServer";
+    private static final String PACKAGE = "io.papermc.paper.threadedregions.scheduler.";
+
+    private final Plugin plugin;
+
+    private final Object regionScheduler;
+    private final Object globalScheduler;
+    private final Object asyncScheduler;
+
+    private final Method regionRun;
+    private final Method regionRunDelayed;
+    private final Method regionRunAtFixedRate;
+    private final Method entityGetScheduler;
+    private final Method entityRun;
+    private final Method globalRun;
+    private final Method asyncRunNow;
+    private final Method taskCancel;
+    private final Method taskIsCancelled;
+
+    /**
+     * @return true, если сервер - Folia (есть планировщики регионов)
+     */
+    public static boolean isSupported() {
+        try {
+            Class.forName(REGIONIZED_SERVER);
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    public FoliaTaskScheduler(Plugin plugin) {
+        this.plugin = plugin;
+        try {
+            regionScheduler = Bukkit.class.getMethod("getRegionScheduler").invoke(null);
+            globalScheduler = Bukkit.class.getMethod("getGlobalRegionScheduler").invoke(null);
+            asyncScheduler = Bukkit.class.getMethod("getAsyncScheduler").invoke(null);
+
+            // Методы берем у публичных интерфейсов, а не у классов реализации
+            Class<?> region = Class.forName(PACKAGE + "RegionScheduler");
+            regionRun = region.getMethod("run", Plugin.class, Location.class, Consumer.class);
+            regionRunDelayed = region.getMethod("runDelayed", Plugin.class, Location.class, Consumer.class, long.class);
+            regionRunAtFixedRate = region.getMethod("runAtFixedRate", Plugin.class, Location.class, Consumer.class, long.class, long.class);
+            entityGetScheduler = Entity.class.getMethod("getScheduler");
+            entityRun = Class.forName(PACKAGE + "EntityScheduler").getMethod("run", Plugin.class, Consumer.class, Runnable.class);
+            globalRun = Class.forName(PACKAGE + "GlobalRegionScheduler").getMethod("run", Plugin.class, Consumer.class);
+            asyncRunNow = Class.forName(PACKAGE + "AsyncScheduler").getMethod("runNow", Plugin.class, Consumer.class);
+
+            Class<?> scheduledTask = Class.forName(PACKAGE + "ScheduledTask");
+            taskCancel = scheduledTask.getMethod("cancel");
+            taskIsCancelled = scheduledTask.getMethod("isCancelled");
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Folia scheduler API not found", e);
+        }
+    }
+
+    @Override
+    public TaskHandle runAt(Location location, Runnable task) {
+        return wrap(invoke(regionRun, regionScheduler, plugin, location, consumer(task)));
+    }
+
+    @Override
+    public TaskHandle runAtLater(Location location, Runnable task, long delayTicks) {
+        // Folia не принимает задержку меньше 1 тика
+        return wrap(invoke(regionRunDelayed, regionScheduler, plugin, location, consumer(task), Math.max(1L, delayTicks)));
+    }
+
+    @Override
+    public TaskHandle runAtTimer(Location location, Runnable task, long delayTicks, long periodTicks) {
+        return wrap(invoke(regionRunAtFixedRate, regionScheduler, plugin, location, consumer(task),
+                Math.max(1L, delayTicks), Math.max(1L, periodTicks)));
+    }
+
+    @Override
+    public TaskHandle runFor(Entity entity, Runnable task) {
+        // null вместо задачи - сущность уже удалена; retired-колбэк не нужен
+        Object scheduledTask = invoke(entityRun, invoke(entityGetScheduler, entity), plugin, consumer(task), null);
+        return scheduledTask != null ? wrap(scheduledTask) : CANCELLED;
+    }
+
+    @Override
+    public TaskHandle runGlobal(Runnable task) {
+        return wrap(invoke(globalRun, globalScheduler, plugin, consumer(task)));
+    }
+
+    @Override
+    public TaskHandle runAsync(Runnable task) {
+        return wrap(invoke(asyncRunNow, asyncScheduler, plugin, consumer(task)));
+    }
+
+    @Override
+    public boolean isRegionized() {
+        return true;
+    }
+
+    private static final TaskHandle CANCELLED = new TaskHandle() {
+        @Override
+        public void cancel() {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return true;
+        }
+    };
+
+    private static Consumer<Object> consumer(Runnable task) {
+        return scheduledTask -> task.run();
+    }
+
+    private TaskHandle wrap(Object scheduledTask) {
+        return new TaskHandle() {
+            @Override
+            public void cancel() {
+                invoke(taskCancel, scheduledTask);
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return (Boolean) invoke(taskIsCancelled, scheduledTask);
+            }
+        };
+    }
+
+    private static Object invoke(Method method, Object target, Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+}
\ No newline at end of file
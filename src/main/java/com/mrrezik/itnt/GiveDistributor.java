@@ -0,0 +1,103 @@
+package com.mrrezik.itnt.managers;
+
+import com.mrrezik.itnt.itnt;
+import com.mrrezik.itnt.objects.CustomTNT;
+import com.mrrezik.itnt.scheduler.TaskScheduler;
+import net.kyori.adventure.text.Component;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.List;
+
+/**
+ * Массовая выдача ТНТ (/itnt give @a и т.п.): получатели обрабатываются пачками по batch-size за тик,
+ * чтобы выдача сотням игроков не создавала пик в одном тике. Предмет собирается один раз на всю выдачу.
+ */
+public class GiveDistributor {
+
+    private final itnt plugin;
+    private final ConfigManager configManager;
+
+    private int batchSize;
+
+    public GiveDistributor(itnt plugin) {
+        this.plugin = plugin;
+        this.configManager = plugin.getConfigManager();
+    }
+
+    /**
+     * Загружает настройки из секции give в config.yml.
+     */
+    public void loadSettings() {
+        batchSize = Math.max(1, plugin.getConfig().getInt("give.batch-size", 20));
+    }
+
+    /**
+     * Начинает выдачу. Первая пачка выдается сразу, остальные - в следующих тиках.
+     * Игроки, вышедшие до своей очереди, пропускаются.
+     */
+    public void distribute(CommandSender sender, List<Player> targets, CustomTNT tnt, int amount) {
+        ItemStack item = configManager.getTNTItem(tnt, amount);
+        Component received = configManager.message("give-received").toComponent(
+                "amount", amount,
+                "tnt_name", tnt.getDisplayName());
+        new Delivery(sender, targets, item, received, tnt.getDisplayName(), amount).run();
+    }
+
+    /**
+     * Одна массовая выдача: курсор по списку получателей, перепланирует себя до конца списка.
+     */
+    private final class Delivery implements Runnable {
+        private final CommandSender sender;
+        private final List<Player> targets;
+        private final ItemStack item;
+        private final Component receivedMessage;
+        private final String tntName;
+        private final int amount;
+        private int cursor;
+        private int delivered;
+
+        private Delivery(CommandSender sender, List<Player> targets, ItemStack item, Component receivedMessage,
+                         String tntName, int amount) {
+            this.sender = sender;
+            this.targets = targets;
+            this.item = item;
+            this.receivedMessage = receivedMessage;
+            this.tntName = tntName;
+            this.amount = amount;
+        }
+
+        @Override
+        public void run() {
+            TaskScheduler scheduler = plugin.getTaskScheduler();
+            int end = Math.min(targets.size(), cursor + batchSize);
+            for (; cursor < end; cursor++) {
+                Player player = targets.get(cursor);
+                if (!player.isOnline()) continue;
+                delivered++;
+                if (scheduler.isRegionized()) {
+                    // Инвентарь игрока меняем в его собственном потоке (локацию игрока из глобального потока не читаем)
+                    scheduler.runFor(player, () -> give(player));
+                } else {
+                    give(player);
+                }
+            }
+
+            if (cursor < targets.size()) {
+                scheduler.runGlobal(this);
+                return;
+            }
+            sender.sendMessage(configManager.message("give-bulk-done").toComponent(
+                    "count", delivered,
+                    "amount", amount,
+                    "tnt_name", tntName));
+        }
+
+        private void give(Player player) {
+            // addItem меняет количество в переданном стаке, если места не хватает - отдаем копию шаблона
+            player.getInventory().addItem(item.clone());
+            player.sendMessage(receivedMessage);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.mrrezik.itnt.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Операция с голограммой через провайдер (ArmorStand, HolographicDisplays, DecentHolograms).
+ */
+@Name("itnt.Hologram")
+@Label("TNT Hologram Operation")
+@Description("Create, update, move or delete of a charge hologram")
+@Category({"iTNT"})
+@StackTrace(false)
+public class HologramEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Provider")
+    String provider;
+
+    public void report(String operation, String provider) {
+        end();
+        if (!shouldCommit()) return;
+        this.operation = operation;
+        this.provider = provider;
+        commit();
+    }
+}
\ No newline at end of file
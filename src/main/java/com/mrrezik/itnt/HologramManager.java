@@ -3,6 +3,7 @@ package com.mrrezik.itnt.managers;
 import com.gmail.filoghost.holographicdisplays.api.Hologram;
 import com.gmail.filoghost.holographicdisplays.api.HologramsAPI;
 import com.mrrezik.itnt.itnt;
+import com.mrrezik.itnt.jfr.HologramEvent;
 import com.mrrezik.itnt.utils.Utils;
 import eu.decentsoftware.holograms.api.DHAPI;
 import org.bukkit.Bukkit;
@@ -69,6 +70,8 @@ public class HologramManager {
      */
     public void createHologram(Location location, String text, UUID trackingId) {
         if (provider == Provider.NONE) return;
+        HologramEvent jfrEvent = new HologramEvent();
+        jfrEvent.begin();
 
         try {
             // Рассчитываем конечную локацию, куда будет установлена голограмма
@@ -101,6 +104,7 @@ public class HologramManager {
         } catch (Exception e) {
             plugin.getLogger().warning("Failed to create hologram: " + e.getMessage());
         }
+        jfrEvent.report("create", provider.name());
     }
 
     /**
@@ -111,6 +115,8 @@ public class HologramManager {
 
         Object holoObj = activeHolograms.get(trackingId);
         if (holoObj == null) return;
+        HologramEvent jfrEvent = new HologramEvent();
+        jfrEvent.begin();
 
         try {
             switch (provider) {
@@ -132,6 +138,7 @@ public class HologramManager {
         } catch (Exception e) {
             // Игнорируем, если голограмма была удалена
         }
+        jfrEvent.report("update", provider.name());
     }
 
     /**
@@ -144,6 +151,8 @@ public class HologramManager {
 
         Object holoObj = activeHolograms.get(trackingId);
         if (holoObj == null) return;
+        HologramEvent jfrEvent = new HologramEvent();
+        jfrEvent.begin();
 
         // Добавляем смещение (offset) к локации сущности
         Location newLocation = entityLocation.clone().add(0, configManager.getHologramOffset(), 0);
@@ -166,6 +175,7 @@ public class HologramManager {
         } catch (Exception e) {
             // Игнорируем ошибки, если объект был удален
         }
+        jfrEvent.report("move", provider.name());
     }
 
     /**
@@ -205,6 +215,8 @@ public class HologramManager {
 
         Object holoObj = activeHolograms.remove(trackingId);
         if (holoObj == null) return;
+        HologramEvent jfrEvent = new HologramEvent();
+        jfrEvent.begin();
 
         try {
             switch (provider) {
@@ -221,6 +233,7 @@ public class HologramManager {
         } catch (Exception e) {
             plugin.getLogger().warning("Failed to delete hologram: " + e.getMessage());
         }
+        jfrEvent.report("delete", provider.name());
     }
 
     /**
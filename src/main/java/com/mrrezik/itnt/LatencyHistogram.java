@@ -0,0 +1,101 @@
+package com.mrrezik.itnt.utils;
+
+import java.util.Arrays;
+
+/**
+ * Гистограмма задержек с фиксированными log-linear корзинами (по принципу HdrHistogram).
+ * Каждая степень двойки делится на 8 под-корзин, т.е. погрешность не больше 12.5%.
+ * Запись - одно вычисление индекса и инкремент, без аллокаций.
+ * Не потокобезопасна: пишется только из основного потока.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_COUNT = 1 << SUB_BITS; // 8
+    private static final int BUCKET_COUNT = (64 - SUB_BITS + 1) * SUB_COUNT;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long totalCount;
+    private long totalSum;
+    private long max;
+
+    /**
+     * Записывает одно значение (в наносекундах).
+     */
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts[indexOf(value)]++;
+        totalCount++;
+        totalSum += value;
+        if (value > max) max = value;
+    }
+
+    /**
+     * @param percentile Перцентиль от 0 до 100
+     * @return Верхняя граница корзины, в которую попал перцентиль (0, если записей нет)
+     */
+    public long getPercentile(double percentile) {
+        if (totalCount == 0) return 0;
+
+        long target = (long) Math.ceil(totalCount * (percentile / 100.0));
+        if (target < 1) target = 1;
+
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(upperBoundOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    public long getCount() { return totalCount; }
+    public long getSum() { return totalSum; }
+    public long getMax() { return max; }
+    public double getMean() { return totalCount == 0 ? 0.0 : (double) totalSum / totalCount; }
+
+    public int bucketCount() { return BUCKET_COUNT; }
+    public long countAt(int index) { return counts[index]; }
+
+    public void reset() {
+        Arrays.fill(counts, 0L);
+        totalCount = 0;
+        totalSum = 0;
+        max = 0;
+    }
+
+    /**
+     * @return Копия гистограммы (для экспорта вне основного потока)
+     */
+    public LatencyHistogram copy() {
+        LatencyHistogram copy = new LatencyHistogram();
+        System.arraycopy(counts, 0, copy.counts, 0, BUCKET_COUNT);
+        copy.totalCount = totalCount;
+        copy.totalSum = totalSum;
+        copy.max = max;
+        return copy;
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (magnitude - SUB_BITS)) & (SUB_COUNT - 1);
+        return (magnitude - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    /**
+     * @return Максимальное значение, которое попадает в корзину index
+     */
+    public static long upperBoundOf(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int magnitude = index / SUB_COUNT + SUB_BITS - 1;
+        int sub = index % SUB_COUNT;
+        long lower = (long) (SUB_COUNT + sub) << (magnitude - SUB_BITS);
+        return lower + (1L << (magnitude - SUB_BITS)) - 1;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,281 @@
+package com.mrrezik.itnt.managers;
+
+import com.mrrezik.itnt.itnt;
+import com.mrrezik.itnt.scheduler.TaskScheduler;
+import com.mrrezik.itnt.utils.LongHashSet;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Player;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Регулятор нагрузки: следит за длительностью тика (MSPT) и при перегрузке
+ * по шагам снижает объем работы зарядов. Уровни накопительные:
+ * реже обновлять голограммы, заморозить голограммы зарядов без игроков рядом,
+ * урезать бюджет эффектов, разносить разрушение блоков по тикам.
+ * Возврат на уровень ниже - только после recover-seconds ниже порога минус recover-margin (гистерезис).
+ */
+public class LoadGovernor {
+
+    /**
+     * Уровни деградации в порядке включения.
+     */
+    public enum Level {
+        NORMAL,
+        SLOW_HOLOGRAMS,
+        NEAR_HOLOGRAMS,
+        CAPPED_EFFECTS,
+        DEFERRED_BLOCKS
+    }
+
+    private static final Level[] LEVELS = Level.values();
+    // Вес нового замера в скользящем среднем интервала тика (если MSPT сервера недоступен)
+    private static final double SMOOTHING = 0.05;
+    // Раз во сколько тиков пересчитывать чанки рядом с игроками
+    private static final int NEAR_REFRESH_TICKS = 10;
+
+    private final itnt plugin;
+
+    private boolean enabled;
+    // Порог MSPT для входа на уровень i (индекс 0 - NORMAL, не используется)
+    private final double[] thresholds = new double[LEVELS.length];
+    private double recoverMargin;
+    private int stepTicks;
+    private int recoverTicks;
+    private int hologramInterval;
+    private int hologramChunkRadius;
+    private int effectsMaxPerTick;
+    private int blocksPerTick;
+
+    private volatile Level level = Level.NORMAL;
+    private volatile double mspt;
+    private boolean paperMspt = true;
+    private long lastTickNanos;
+    private int ticksSinceStep;
+    private int calmTicks;
+    private long generation;
+    private int refreshTicks;
+
+    // <мир, чанки в пределах hologram-distance от игроков>: пересчитывается в sample, читается из потоков регионов
+    private volatile Map<UUID, LongHashSet> nearChunks = Collections.emptyMap();
+
+    public LoadGovernor(itnt plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Загружает настройки из секции governor в config.yml и (пере)запускает замер.
+     */
+    public void loadSettings() {
+        FileConfiguration config = plugin.getConfig();
+        enabled = config.getBoolean("governor.enabled", true);
+        thresholds[Level.SLOW_HOLOGRAMS.ordinal()] = config.getDouble("governor.thresholds.slow-holograms", 40.0);
+        thresholds[Level.NEAR_HOLOGRAMS.ordinal()] = config.getDouble("governor.thresholds.near-holograms", 45.0);
+        thresholds[Level.CAPPED_EFFECTS.ordinal()] = config.getDouble("governor.thresholds.capped-effects", 48.0);
+        thresholds[Level.DEFERRED_BLOCKS.ordinal()] = config.getDouble("governor.thresholds.deferred-blocks", 55.0);
+        for (int i = 2; i < thresholds.length; i++) {
+            thresholds[i] = Math.max(thresholds[i], thresholds[i - 1]);
+        }
+        recoverMargin = Math.max(0.0, config.getDouble("governor.recover-margin", 5.0));
+        stepTicks = Math.max(1, config.getInt("governor.step-ticks", 20));
+        recoverTicks = Math.max(1, config.getInt("governor.recover-seconds", 10) * 20);
+        hologramInterval = Math.max(1, config.getInt("governor.hologram-interval", 5));
+        double distance = Math.max(1.0, config.getDouble("governor.hologram-distance", 32.0));
+        hologramChunkRadius = (int) Math.ceil(distance / 16.0);
+        effectsMaxPerTick = Math.max(1, config.getInt("governor.effects-max-per-tick", 8));
+        blocksPerTick = Math.max(1, config.getInt("governor.blocks-per-tick", 512));
+
+        level = Level.NORMAL;
+        mspt = 0.0;
+        lastTickNanos = 0L;
+        ticksSinceStep = 0;
+        calmTicks = 0;
+        refreshTicks = 0;
+        nearChunks = Collections.emptyMap();
+
+        long current = ++generation; // старая цепочка замеров завершится сама
+        if (enabled) {
+            plugin.getTaskScheduler().runGlobal(() -> sample(current));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * @return Последний замер длительности тика в миллисекундах
+     */
+    public double getMspt() {
+        return mspt;
+    }
+
+    /**
+     * @return Раз во сколько тиков обновлять голограммы заряда (1 - каждый тик)
+     */
+    public int getHologramInterval() {
+        return level.ordinal() >= Level.SLOW_HOLOGRAMS.ordinal() ? hologramInterval : 1;
+    }
+
+    /**
+     * Голограммы зарядов, рядом с которыми нет игроков, замораживаются (не двигаются и не обновляются).
+     * "Рядом" - в пределах hologram-distance по чанкам (квадрат чанков вокруг игрока), по данным последнего пересчета.
+     * @return true, если голограмму заряда в этой точке нужно обновлять
+     */
+    public boolean isHologramVisible(Location location) {
+        if (level.ordinal() < Level.NEAR_HOLOGRAMS.ordinal()) return true;
+        World world = location.getWorld();
+        if (world == null) return false;
+
+        LongHashSet chunks = nearChunks.get(world.getUID());
+        return chunks != null && chunks.contains(chunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4));
+    }
+
+    /**
+     * @return Лимит кластеров эффектов за тик с учетом уровня (не больше configured)
+     */
+    public int capEffects(int configured) {
+        return level.ordinal() >= Level.CAPPED_EFFECTS.ordinal() ? Math.min(configured, effectsMaxPerTick) : configured;
+    }
+
+    /**
+     * @return Сколько блоков взрыва разрушать за тик или 0, если разрушение не откладывается
+     */
+    public int getDeferredBlocksPerTick() {
+        return level == Level.DEFERRED_BLOCKS ? blocksPerTick : 0;
+    }
+
+    // --- Замер ---
+
+    private void sample(long current) {
+        if (current != generation || !enabled) return;
+
+        measure();
+        adjust();
+        // Чанки у игроков нужны с NEAR_HOLOGRAMS; считаем с уровня ниже, чтобы к переходу они были готовы
+        if (level.ordinal() >= Level.SLOW_HOLOGRAMS.ordinal() && refreshTicks++ % NEAR_REFRESH_TICKS == 0) {
+            refreshNearChunks();
+        }
+
+        plugin.getTaskScheduler().runGlobal(() -> sample(current));
+    }
+
+    /**
+     * Пересчитывает чанки рядом с игроками: каждый игрок отмечает квадрат чанков радиусом hologram-distance.
+     * Без регионов - сразу в глобальном (главном) потоке. На Folia локацию игрока можно читать только в его потоке,
+     * поэтому чанки считаются по снимку PlayerPositions.
+     */
+    private void refreshNearChunks() {
+        TaskScheduler scheduler = plugin.getTaskScheduler();
+        Map<UUID, Set<Long>> marked = new HashMap<>();
+        if (!scheduler.isRegionized()) {
+            for (Player player : Bukkit.getOnlinePlayers()) {
+                Location location = player.getLocation();
+                World world = location.getWorld();
+                if (world == null) continue;
+                markAround(marked, world.getUID(), location.getX(), location.getZ());
+            }
+        } else {
+            for (Map.Entry<UUID, List<PlayerPositions.Position>> entry : plugin.getPlayerPositions().getAll().entrySet()) {
+                for (PlayerPositions.Position position : entry.getValue()) {
+                    markAround(marked, entry.getKey(), position.getX(), position.getZ());
+                }
+            }
+        }
+        nearChunks = freeze(marked);
+    }
+
+    private void markAround(Map<UUID, Set<Long>> marked, UUID worldId, double x, double z) {
+        Set<Long> chunks = marked.computeIfAbsent(worldId, id -> new HashSet<>());
+        int centerX = (int) Math.floor(x) >> 4, centerZ = (int) Math.floor(z) >> 4;
+        for (int dx = -hologramChunkRadius; dx <= hologramChunkRadius; dx++) {
+            for (int dz = -hologramChunkRadius; dz <= hologramChunkRadius; dz++) {
+                chunks.add(chunkKey(centerX + dx, centerZ + dz));
+            }
+        }
+    }
+
+    private static Map<UUID, LongHashSet> freeze(Map<UUID, Set<Long>> marked) {
+        Map<UUID, LongHashSet> frozen = new HashMap<>(marked.size() * 2);
+        for (Map.Entry<UUID, Set<Long>> entry : marked.entrySet()) {
+            LongHashSet chunks = new LongHashSet(entry.getValue().size());
+            for (long key : entry.getValue()) {
+                chunks.add(key);
+            }
+            frozen.put(entry.getKey(), chunks);
+        }
+        return frozen;
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return (long) chunkX << 32 | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * MSPT сервера (Paper, среднее за 100 тиков), иначе скользящее среднее интервала между тиками.
+     * Интервал не бывает меньше 50 мс, поэтому пороги ниже 50 без Paper не срабатывают.
+     */
+    private void measure() {
+        if (paperMspt) {
+            try {
+                mspt = Bukkit.getServer().getAverageTickTime();
+                return;
+            } catch (UnsupportedOperationException | NoSuchMethodError e) {
+                // Folia и сервера без Paper API
+                paperMspt = false;
+            }
+        }
+
+        long now = System.nanoTime();
+        if (lastTickNanos != 0L) {
+            double interval = (now - lastTickNanos) / 1_000_000.0;
+            mspt = mspt == 0.0 ? interval : mspt + (interval - mspt) * SMOOTHING;
+        }
+        lastTickNanos = now;
+    }
+
+    /**
+     * Повышение - на один уровень не чаще раза в step-ticks, пока MSPT выше порога следующего уровня.
+     * Понижение - на один уровень после recover-seconds подряд ниже порога текущего уровня минус recover-margin.
+     */
+    private void adjust() {
+        int current = level.ordinal();
+        ticksSinceStep++;
+
+        if (current + 1 < LEVELS.length && mspt >= thresholds[current + 1]) {
+            calmTicks = 0;
+            if (ticksSinceStep >= stepTicks) {
+                changeLevel(LEVELS[current + 1]);
+            }
+            return;
+        }
+
+        if (current > 0 && mspt < thresholds[current] - recoverMargin) {
+            if (++calmTicks >= recoverTicks) {
+                changeLevel(LEVELS[current - 1]);
+            }
+        } else {
+            calmTicks = 0;
+        }
+    }
+
+    private void changeLevel(Level next) {
+        plugin.getLogger().info(String.format("Load governor: %s -> %s (MSPT %.1f)", level, next, mspt));
+        level = next;
+        ticksSinceStep = 0;
+        calmTicks = 0;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,109 @@
+package com.mrrezik.itnt.utils;
+
+import java.util.Arrays;
+
+/**
+ * Множество примитивных long (открытая адресация, без упаковки в Long).
+ * Используется для координат блоков, упакованных в одно число.
+ */
+public class LongHashSet {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int size;
+
+    public LongHashSet() {
+        this(64);
+    }
+
+    public LongHashSet(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * @return true, если значение было добавлено (его еще не было)
+     */
+    public boolean add(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) return false;
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        if (++size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        return true;
+    }
+
+    public boolean contains(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) return true;
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * @return Все значения в новом массиве (порядок не определен)
+     */
+    public long[] toArray() {
+        long[] result = new long[size];
+        int i = 0;
+        for (long key : keys) {
+            if (key != EMPTY) result[i++] = key;
+        }
+        return result;
+    }
+
+    /**
+     * Копирует все значения в target начиная с offset (места должно хватать на size() значений).
+     * @return Число скопированных значений
+     */
+    public int copyTo(long[] target, int offset) {
+        int i = offset;
+        for (long key : keys) {
+            if (key != EMPTY) target[i++] = key;
+        }
+        return i - offset;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = keys;
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        int mask = capacity - 1;
+        for (long key : old) {
+            if (key == EMPTY) continue;
+            int slot = mix(key) & mask;
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
\ No newline at end of file
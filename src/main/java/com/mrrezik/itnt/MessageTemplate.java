@@ -0,0 +1,119 @@
+package com.mrrezik.itnt.utils;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Сообщение, разобранное при загрузке конфига: куски текста и слоты %плейсхолдеров% между ними.
+ * Цвета и префикс уже применены, поэтому отправка - один проход по кускам в StringBuilder
+ * вместо цепочки replace, каждая из которых копирует всю строку.
+ * Сообщение без плейсхолдеров хранит готовую строку (и компонент Adventure) и ничего не создает при отправке.
+ * Неизменяемый класс.
+ */
+public final class MessageTemplate {
+
+    // Цветные коды § и hex-цвета в формате Bungee (§x§R§R§G§G§B§B), как их выдает Utils.color
+    private static final LegacyComponentSerializer SERIALIZER = LegacyComponentSerializer.builder()
+            .character(LegacyComponentSerializer.SECTION_CHAR)
+            .hexColors()
+            .useUnusualXRepeatedCharacterHexFormat()
+            .build();
+
+    // parts.length == slots.length + 1: parts[0] slots[0] parts[1] slots[1] ... parts[n]
+    private final String[] parts;
+    private final String[] slots; // имена плейсхолдеров без %, интернированы
+    private final int literalLength;
+    private final String plain; // готовая строка, если слотов нет
+    private volatile Component plainComponent;
+
+    private MessageTemplate(String[] parts, String[] slots) {
+        this.parts = parts;
+        this.slots = slots;
+        int length = 0;
+        for (String part : parts) {
+            length += part.length();
+        }
+        this.literalLength = length;
+        this.plain = slots.length == 0 ? parts[0] : null;
+    }
+
+    /**
+     * Разбирает уже окрашенный текст. Плейсхолдер - %имя% из латиницы, цифр, _ и -;
+     * одиночный % остается текстом.
+     */
+    public static MessageTemplate compile(String text) {
+        List<String> parts = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+        int literalStart = 0;
+        int i = 0;
+        while (i < text.length()) {
+            int open = text.indexOf('%', i);
+            if (open < 0) break;
+            int close = open + 1;
+            while (close < text.length() && isNameChar(text.charAt(close))) {
+                close++;
+            }
+            if (close < text.length() && text.charAt(close) == '%' && close > open + 1) {
+                parts.add(text.substring(literalStart, open));
+                slots.add(text.substring(open + 1, close).intern());
+                literalStart = close + 1;
+                i = close + 1;
+            } else {
+                i = open + 1;
+            }
+        }
+        parts.add(text.substring(literalStart));
+        return new MessageTemplate(parts.toArray(new String[0]), slots.toArray(new String[0]));
+    }
+
+    private static boolean isNameChar(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_' || c == '-';
+    }
+
+    /**
+     * Подставляет значения в слоты.
+     * @param placeholders Пары "имя без %", значение: render("player", name, "amount", 5).
+     *                     Незаданный плейсхолдер остается как %имя%
+     */
+    public String render(Object... placeholders) {
+        if (plain != null) return plain;
+        StringBuilder out = new StringBuilder(literalLength + slots.length * 16);
+        out.append(parts[0]);
+        for (int slot = 0; slot < slots.length; slot++) {
+            Object value = find(slots[slot], placeholders);
+            if (value != null) {
+                out.append(value);
+            } else {
+                out.append('%').append(slots[slot]).append('%');
+            }
+            out.append(parts[slot + 1]);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Для рассылки многим игрокам: компонент собирается один раз, а не разбирается из строки при каждой отправке.
+     * @return Компонент Adventure; для сообщения без плейсхолдеров создается один раз
+     */
+    public Component toComponent(Object... placeholders) {
+        if (plain == null) return SERIALIZER.deserialize(render(placeholders));
+        Component component = plainComponent;
+        if (component == null) {
+            component = SERIALIZER.deserialize(plain);
+            plainComponent = component;
+        }
+        return component;
+    }
+
+    private static Object find(String name, Object[] placeholders) {
+        for (int i = 0; i + 1 < placeholders.length; i += 2) {
+            Object key = placeholders[i];
+            // Имена слотов интернированы, строковые литералы вызывающего кода тоже - обычно хватает ==
+            if (key == name || name.equals(key)) return placeholders[i + 1];
+        }
+        return null;
+    }
+}
\ No newline at end of file
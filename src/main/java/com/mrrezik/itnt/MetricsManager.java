@@ -0,0 +1,232 @@
+package com.mrrezik.itnt.managers;
+
+import com.mrrezik.itnt.itnt;
+import com.mrrezik.itnt.objects.CustomTNT;
+import com.mrrezik.itnt.utils.LatencyHistogram;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Встроенная статистика iTNT: счетчики жизненного цикла ТНТ по типам
+ * и гистограммы времени выполнения "горячих" методов.
+ * Все методы записи вызываются только из основного потока.
+ */
+public class MetricsManager {
+
+    /**
+     * Счетчики событий (по каждому типу ТНТ).
+     */
+    public enum Counter {
+        PRIMES("primes", "Primed custom TNT charges"),
+        DETONATIONS("detonations", "Detonated custom TNT charges"),
+        CANCELLATIONS("cancellations", "Charges removed before detonation"),
+        HOLOGRAM_CREATES("hologram_creates", "Hologram create operations"),
+        HOLOGRAM_UPDATES("hologram_updates", "Hologram text update operations"),
+        HOLOGRAM_MOVES("hologram_moves", "Hologram move operations"),
+        HOLOGRAM_DELETES("hologram_deletes", "Hologram delete operations");
+
+        private final String metricName;
+        private final String help;
+
+        Counter(String metricName, String help) {
+            this.metricName = metricName;
+            this.help = help;
+        }
+
+        public String getMetricName() { return metricName; }
+    }
+
+    /**
+     * Замеряемые участки кода.
+     */
+    public enum Timer {
+        CREATE_EXPLOSION("create_explosion", "TNTManager.createExplosion"),
+        PRIME_TNT("prime_tnt", "TNTManager.primeTNT"),
+        COUNTDOWN_TICK("countdown_tick", "TNTCountdownTask.run"),
+        BLOCK_SCAN("block_scan", "ExplosionEngine.selectBlocks"),
+        ENTITY_PASS("entity_pass", "ExplosionEngine.applyEntities");
+
+        private final String metricName;
+        private final String help;
+
+        Timer(String metricName, String help) {
+            this.metricName = metricName;
+            this.help = help;
+        }
+
+        public String getMetricName() { return metricName; }
+    }
+
+    private static final Counter[] COUNTERS = Counter.values();
+    private static final Timer[] TIMERS = Timer.values();
+
+    private final itnt plugin;
+
+    // <tnt-id, значения счетчиков по индексу Counter.ordinal()>
+    private final Map<String, long[]> counters = new LinkedHashMap<>();
+    private final LatencyHistogram[] histograms = new LatencyHistogram[TIMERS.length];
+
+    private boolean enabled;
+    private boolean timingsEnabled;
+    private String exportFile;
+
+    public MetricsManager(itnt plugin) {
+        this.plugin = plugin;
+        for (int i = 0; i < TIMERS.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Загружает настройки из секции metrics в config.yml.
+     * Накопленная статистика при перезагрузке сохраняется.
+     */
+    public void loadSettings() {
+        FileConfiguration config = plugin.getConfig();
+        enabled = config.getBoolean("metrics.enabled", true);
+        timingsEnabled = config.getBoolean("metrics.timings", false);
+        exportFile = config.getString("metrics.export-file", "metrics.prom");
+    }
+
+    // --- Запись ---
+    // Методы записи synchronized: на Folia заряды тикают в потоках разных регионов
+
+    public synchronized void increment(CustomTNT tnt, Counter counter) {
+        if (!enabled) return;
+        counters.computeIfAbsent(tnt.getId(), id -> new long[COUNTERS.length])[counter.ordinal()]++;
+    }
+
+    /**
+     * Начинает замер. Если замеры выключены, возвращает 0 и не вызывает System.nanoTime().
+     */
+    public long startTimer() {
+        return timingsEnabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Завершает замер, начатый через {@link #startTimer()}.
+     */
+    public synchronized void stopTimer(Timer timer, long start) {
+        if (start == 0L) return;
+        histograms[timer.ordinal()].record(System.nanoTime() - start);
+    }
+
+    public synchronized void reset() {
+        counters.clear();
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+
+    // --- Чтение ---
+    // Счетчики и гистограммы отдаются копиями под тем же замком, что и запись (потоки регионов Folia)
+
+    public boolean isEnabled() { return enabled; }
+    public boolean isTimingsEnabled() { return timingsEnabled; }
+
+    /**
+     * @return Копия счетчиков: <tnt-id, значения по индексу Counter.ordinal()>
+     */
+    public synchronized Map<String, long[]> getCounters() {
+        Map<String, long[]> copy = new LinkedHashMap<>(counters.size() * 2);
+        for (Map.Entry<String, long[]> entry : counters.entrySet()) {
+            copy.put(entry.getKey(), entry.getValue().clone());
+        }
+        return copy;
+    }
+
+    public synchronized long getCounter(String tntId, Counter counter) {
+        long[] values = counters.get(tntId);
+        return values == null ? 0L : values[counter.ordinal()];
+    }
+
+    /**
+     * @return Копия гистограммы замера
+     */
+    public synchronized LatencyHistogram getHistogram(Timer timer) {
+        return histograms[timer.ordinal()].copy();
+    }
+
+    // --- Экспорт ---
+
+    /**
+     * Собирает текущую статистику в текстовом формате Prometheus.
+     * Вызывается в основном потоке, результат можно записывать асинхронно.
+     */
+    public synchronized String toPrometheusText() {
+        StringBuilder sb = new StringBuilder(4096);
+
+        for (Counter counter : COUNTERS) {
+            String name = "itnt_" + counter.getMetricName() + "_total";
+            sb.append("# HELP ").append(name).append(' ').append(counter.help).append('\n');
+            sb.append("# TYPE ").append(name).append(" counter\n");
+            for (Map.Entry<String, long[]> entry : counters.entrySet()) {
+                sb.append(name).append("{type=\"").append(entry.getKey()).append("\"} ")
+                        .append(entry.getValue()[counter.ordinal()]).append('\n');
+            }
+        }
+
+        for (Timer timer : TIMERS) {
+            LatencyHistogram histogram = histograms[timer.ordinal()];
+            String name = "itnt_" + timer.getMetricName() + "_seconds";
+            sb.append("# HELP ").append(name).append(' ').append(timer.help).append(" duration\n");
+            sb.append("# TYPE ").append(name).append(" histogram\n");
+
+            long cumulative = 0;
+            for (int i = 0; i < histogram.bucketCount(); i++) {
+                long count = histogram.countAt(i);
+                if (count == 0) continue;
+                cumulative += count;
+                sb.append(name).append("_bucket{le=\"").append(nanosToSeconds(LatencyHistogram.upperBoundOf(i)))
+                        .append("\"} ").append(cumulative).append('\n');
+            }
+            sb.append(name).append("_bucket{le=\"+Inf\"} ").append(histogram.getCount()).append('\n');
+            sb.append(name).append("_sum ").append(nanosToSeconds(histogram.getSum())).append('\n');
+            sb.append(name).append("_count ").append(histogram.getCount()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Записывает статистику в файл (plugins/iTNT/metrics.prom) в асинхронной задаче.
+     * @return Файл, в который будет записана статистика
+     */
+    public File exportAsync() {
+        String text = toPrometheusText();
+        File target = new File(plugin.getDataFolder(), exportFile);
+
+        plugin.getTaskScheduler().runAsync(() -> {
+            try {
+                // Пишем во временный файл и переименовываем, чтобы скрейпер не прочитал половину
+                File temp = new File(target.getParentFile(), target.getName() + ".tmp");
+                Files.write(temp.toPath(), text.getBytes(StandardCharsets.UTF_8));
+                Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                plugin.getLogger().warning("Failed to export metrics: " + e.getMessage());
+            }
+        });
+        return target;
+    }
+
+    /**
+     * @return Наносекунды в человекочитаемом виде (мкс / мс)
+     */
+    public static String formatNanos(long nanos) {
+        if (nanos < 1_000_000L) {
+            return String.format(Locale.ROOT, "%.1fµs", nanos / 1_000.0);
+        }
+        return String.format(Locale.ROOT, "%.2fms", nanos / 1_000_000.0);
+    }
+
+    private static String nanosToSeconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1_000_000_000.0);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,138 @@
+package com.mrrezik.itnt.managers;
+
+import com.mrrezik.itnt.itnt;
+import com.mrrezik.itnt.scheduler.TaskScheduler;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Снимок положений игроков для потоков регионов Folia.
+ * Локацию игрока можно читать только в его собственном потоке, поэтому раз в REFRESH_TICKS каждый игрок
+ * записывает свое положение задачей runFor, а собранное публикуется при следующем пересчете
+ * (положения отстают не больше чем на 2 * REFRESH_TICKS). Без регионов снимок не собирается:
+ * в главном потоке локации читаются напрямую.
+ */
+public class PlayerPositions {
+
+    /**
+     * Положение игрока на момент сбора.
+     */
+    public static final class Position {
+        private final Player player;
+        private final double x, y, z;
+
+        private Position(Player player, Location location) {
+            this.player = player;
+            this.x = location.getX();
+            this.y = location.getY();
+            this.z = location.getZ();
+        }
+
+        public Player getPlayer() {
+            return player;
+        }
+
+        public double getX() {
+            return x;
+        }
+
+        public double getY() {
+            return y;
+        }
+
+        public double getZ() {
+            return z;
+        }
+    }
+
+    private static final int REFRESH_TICKS = 10;
+
+    private final itnt plugin;
+
+    // <мир, игроки мира>: публикуется глобальным потоком, читается из потоков регионов
+    private volatile Map<UUID, List<Position>> positions = Collections.emptyMap();
+    // Игроки дописывают сюда свои положения в собственных потоках до следующего пересчета
+    private Map<UUID, Queue<Position>> collecting = new ConcurrentHashMap<>();
+    private volatile long generation;
+    private int ticks;
+
+    public PlayerPositions(itnt plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * (Пере)запускает сбор. На сервере без регионов ничего не делает.
+     */
+    public void start() {
+        long current = ++generation; // старая цепочка пересчетов завершится сама
+        positions = Collections.emptyMap();
+        collecting = new ConcurrentHashMap<>();
+        ticks = 0;
+        if (plugin.getTaskScheduler().isRegionized()) {
+            plugin.getTaskScheduler().runGlobal(() -> tick(current));
+        }
+    }
+
+    /**
+     * Останавливает сбор.
+     */
+    public void stop() {
+        generation++;
+        positions = Collections.emptyMap();
+    }
+
+    /**
+     * @return Последние собранные положения игроков мира (пустой список, если игроков нет или сбор не идет)
+     */
+    public List<Position> get(World world) {
+        return positions.getOrDefault(world.getUID(), Collections.emptyList());
+    }
+
+    /**
+     * @return Последние собранные положения по мирам
+     */
+    public Map<UUID, List<Position>> getAll() {
+        return positions;
+    }
+
+    private void tick(long current) {
+        if (current != generation) return;
+        if (ticks++ % REFRESH_TICKS == 0) {
+            refresh();
+        }
+        plugin.getTaskScheduler().runGlobal(() -> tick(current));
+    }
+
+    private void refresh() {
+        Map<UUID, List<Position>> published = new HashMap<>(collecting.size() * 2);
+        for (Map.Entry<UUID, Queue<Position>> entry : collecting.entrySet()) {
+            published.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+        }
+        positions = published;
+
+        Map<UUID, Queue<Position>> target = new ConcurrentHashMap<>();
+        collecting = target;
+        TaskScheduler scheduler = plugin.getTaskScheduler();
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            scheduler.runFor(player, () -> {
+                Location location = player.getLocation();
+                World world = location.getWorld();
+                if (world == null) return;
+                target.computeIfAbsent(world.getUID(), id -> new ConcurrentLinkedQueue<>())
+                        .add(new Position(player, location));
+            });
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,54 @@
+package com.mrrezik.itnt.utils;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Неизменяемый индекс строк для автодополнения: отсортированный массив в нижнем регистре.
+ * Все строки с префиксом лежат подряд, их диапазон находится двумя бинарными поисками.
+ */
+public class PrefixIndex {
+
+    private final String[] sorted;
+
+    public PrefixIndex(Collection<String> values) {
+        this.sorted = values.stream()
+                .map(value -> value.toLowerCase(Locale.ROOT))
+                .distinct()
+                .sorted()
+                .toArray(String[]::new);
+    }
+
+    /**
+     * @return Строки, начинающиеся с prefix (регистронезависимо), в алфавитном порядке. Список только для чтения.
+     */
+    public List<String> startingWith(String prefix) {
+        String normalized = prefix.toLowerCase(Locale.ROOT);
+        int from = lowerBound(normalized);
+        int to = from;
+        while (to < sorted.length && sorted[to].startsWith(normalized)) {
+            to++;
+        }
+        return from == to ? Collections.emptyList() : Collections.unmodifiableList(Arrays.asList(sorted).subList(from, to));
+    }
+
+    public int size() {
+        return sorted.length;
+    }
+
+    private int lowerBound(String key) {
+        int lo = 0, hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid].compareTo(key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.mrrezik.itnt.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Поджиг заряда: TNTManager.primeTNT (проверки, сущность, голограмма, запуск таймера).
+ */
+@Name("itnt.Prime")
+@Label("TNT Prime")
+@Description("Priming a custom TNT charge")
+public class PrimeEvent extends ChargeEvent {
+}
\ No newline at end of file
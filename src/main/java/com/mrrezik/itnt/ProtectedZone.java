@@ -0,0 +1,82 @@
+package com.mrrezik.itnt.objects;
+
+/**
+ * Защищенная от кастомного ТНТ область: кубоид или сфера в одном мире.
+ * Неизменяемый класс.
+ */
+public class ProtectedZone {
+
+    public enum Shape { CUBOID, SPHERE }
+
+    private final String name;
+    private final String world;
+    private final Shape shape;
+    // Ограничивающий бокс (для сферы - описанный куб)
+    private final int minX, minY, minZ;
+    private final int maxX, maxY, maxZ;
+    // Для сферы
+    private final double centerX, centerY, centerZ;
+    private final double radiusSquared;
+    private final boolean denyPrime;
+    private final boolean denyBlockDamage;
+
+    private ProtectedZone(String name, String world, Shape shape,
+                          int minX, int minY, int minZ, int maxX, int maxY, int maxZ,
+                          double centerX, double centerY, double centerZ, double radius,
+                          boolean denyPrime, boolean denyBlockDamage) {
+        this.name = name;
+        this.world = world;
+        this.shape = shape;
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.centerZ = centerZ;
+        this.radiusSquared = radius * radius;
+        this.denyPrime = denyPrime;
+        this.denyBlockDamage = denyBlockDamage;
+    }
+
+    public static ProtectedZone cuboid(String name, String world, int x1, int y1, int z1, int x2, int y2, int z2,
+                                       boolean denyPrime, boolean denyBlockDamage) {
+        return new ProtectedZone(name, world, Shape.CUBOID,
+                Math.min(x1, x2), Math.min(y1, y2), Math.min(z1, z2),
+                Math.max(x1, x2), Math.max(y1, y2), Math.max(z1, z2),
+                0, 0, 0, 0, denyPrime, denyBlockDamage);
+    }
+
+    public static ProtectedZone sphere(String name, String world, double x, double y, double z, double radius,
+                                       boolean denyPrime, boolean denyBlockDamage) {
+        return new ProtectedZone(name, world, Shape.SPHERE,
+                (int) Math.floor(x - radius), (int) Math.floor(y - radius), (int) Math.floor(z - radius),
+                (int) Math.ceil(x + radius), (int) Math.ceil(y + radius), (int) Math.ceil(z + radius),
+                x, y, z, radius, denyPrime, denyBlockDamage);
+    }
+
+    /**
+     * @return true, если блок с координатами (x, y, z) внутри зоны
+     */
+    public boolean contains(int x, int y, int z) {
+        if (x < minX || x > maxX || y < minY || y > maxY || z < minZ || z > maxZ) return false;
+        if (shape == Shape.CUBOID) return true;
+        double dx = x + 0.5 - centerX, dy = y + 0.5 - centerY, dz = z + 0.5 - centerZ;
+        return dx * dx + dy * dy + dz * dz <= radiusSquared;
+    }
+
+    // --- Getters ---
+    public String getName() { return name; }
+    public String getWorld() { return world; }
+    public Shape getShape() { return shape; }
+    public int getMinX() { return minX; }
+    public int getMinY() { return minY; }
+    public int getMinZ() { return minZ; }
+    public int getMaxX() { return maxX; }
+    public int getMaxY() { return maxY; }
+    public int getMaxZ() { return maxZ; }
+    public boolean isDenyPrime() { return denyPrime; }
+    public boolean isDenyBlockDamage() { return denyBlockDamage; }
+}
\ No newline at end of file
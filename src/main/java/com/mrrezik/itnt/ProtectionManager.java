@@ -0,0 +1,121 @@
+package com.mrrezik.itnt.managers;
+
+import com.mrrezik.itnt.itnt;
+import com.mrrezik.itnt.objects.ProtectedZone;
+import com.mrrezik.itnt.utils.ZoneIndex;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.*;
+
+/**
+ * Защищенные зоны (секция protection в config.yml): кубоиды и сферы, в которых кастомный ТНТ
+ * нельзя поджечь (deny-prime) и/или нельзя разрушать блоки (deny-blocks).
+ * Зоны каждого мира хранятся в R-дереве, поэтому проверки не зависят линейно от числа зон.
+ */
+public class ProtectionManager {
+
+    private final itnt plugin;
+
+    // <имя мира, индекс зон>. Заменяется целиком при перезагрузке
+    private volatile Map<String, ZoneIndex> indexes = Collections.emptyMap();
+
+    public ProtectionManager(itnt plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Загружает зоны из секции protection.zones и строит индексы по мирам.
+     */
+    public void loadSettings() {
+        Map<String, List<ProtectedZone>> byWorld = new HashMap<>();
+        ConfigurationSection section = plugin.getConfig().getConfigurationSection("protection.zones");
+        if (section != null) {
+            for (String name : section.getKeys(false)) {
+                ConfigurationSection zoneSection = section.getConfigurationSection(name);
+                if (zoneSection == null) continue;
+                ProtectedZone zone = parseZone(name, zoneSection);
+                if (zone != null) {
+                    byWorld.computeIfAbsent(zone.getWorld(), w -> new ArrayList<>()).add(zone);
+                }
+            }
+        }
+
+        Map<String, ZoneIndex> built = new HashMap<>();
+        int total = 0;
+        for (Map.Entry<String, List<ProtectedZone>> entry : byWorld.entrySet()) {
+            built.put(entry.getKey(), new ZoneIndex(entry.getValue()));
+            total += entry.getValue().size();
+        }
+        indexes = built;
+        if (total > 0) {
+            plugin.getLogger().info("Загружено защищенных зон: " + total);
+        }
+    }
+
+    /**
+     * @return Зона, запрещающая поджиг в этой точке, или null
+     */
+    public ProtectedZone getPrimeProtection(Location location) {
+        ZoneIndex index = indexOf(location.getWorld());
+        if (index == null) return null;
+        return index.find(location.getBlockX(), location.getBlockY(), location.getBlockZ(), true);
+    }
+
+    /**
+     * Зоны с deny-blocks, пересекающие куб вокруг центра взрыва. Пустой список - обрезать нечего.
+     */
+    public List<ProtectedZone> getBlockProtection(World world, int x, int y, int z, int reach) {
+        ZoneIndex index = indexOf(world);
+        if (index == null) return Collections.emptyList();
+        return index.blockDamageCandidates(x - reach, y - reach, z - reach, x + reach, y + reach, z + reach);
+    }
+
+    private ZoneIndex indexOf(World world) {
+        if (world == null) return null;
+        ZoneIndex index = indexes.get(world.getName());
+        return index == null || index.isEmpty() ? null : index;
+    }
+
+    private ProtectedZone parseZone(String name, ConfigurationSection section) {
+        String world = section.getString("world");
+        if (world == null) {
+            plugin.getLogger().warning("Защищенная зона '" + name + "': не указан world, зона пропущена.");
+            return null;
+        }
+        boolean denyPrime = section.getBoolean("deny-prime", true);
+        boolean denyBlocks = section.getBoolean("deny-blocks", true);
+        String type = section.getString("type", "cuboid").toLowerCase(Locale.ROOT);
+
+        if (type.equals("sphere")) {
+            double[] center = readVector(section, "center");
+            double radius = section.getDouble("radius", -1);
+            if (center == null || radius <= 0) {
+                plugin.getLogger().warning("Защищенная зона '" + name + "': для sphere нужны center: [x, y, z] и radius > 0.");
+                return null;
+            }
+            return ProtectedZone.sphere(name, world, center[0], center[1], center[2], radius, denyPrime, denyBlocks);
+        }
+        if (type.equals("cuboid")) {
+            double[] min = readVector(section, "min");
+            double[] max = readVector(section, "max");
+            if (min == null || max == null) {
+                plugin.getLogger().warning("Защищенная зона '" + name + "': для cuboid нужны min: [x, y, z] и max: [x, y, z].");
+                return null;
+            }
+            return ProtectedZone.cuboid(name, world,
+                    (int) Math.floor(min[0]), (int) Math.floor(min[1]), (int) Math.floor(min[2]),
+                    (int) Math.floor(max[0]), (int) Math.floor(max[1]), (int) Math.floor(max[2]),
+                    denyPrime, denyBlocks);
+        }
+        plugin.getLogger().warning("Защищенная зона '" + name + "': неизвестный type '" + type + "' (cuboid/sphere).");
+        return null;
+    }
+
+    private static double[] readVector(ConfigurationSection section, String path) {
+        List<Double> values = section.getDoubleList(path);
+        if (values.size() != 3) return null;
+        return new double[]{values.get(0), values.get(1), values.get(2)};
+    }
+}
\ No newline at end of file
@@ -0,0 +1,188 @@
+package com.mrrezik.itnt.objects;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Снимок блоков, разрушенных одним взрывом, для последующего восстановления.
+ * Хранение с палитрой: уникальные BlockData в списке, на блок - смещение от центра (int)
+ * и индекс в палитре (byte, если палитра не больше 256, иначе short). Итого 5-6 байт на блок.
+ * Содержимое контейнеров и табличек не сохраняется - только BlockData (содержимое выпадает при взрыве).
+ * Пока снимок заполняется, его блокировку держит разрушение взрыва; restoreAll берет ее же.
+ */
+public class RegenSnapshot {
+
+    // Смещение по каждой оси: 10 бит со знаком (-512..511)
+    private static final int OFFSET_BITS = 10;
+    private static final int OFFSET_MASK = (1 << OFFSET_BITS) - 1;
+    private static final int OFFSET_LIMIT = 1 << (OFFSET_BITS - 1);
+
+    // Порядок восстановления: опоры, затем сыпучие блоки, затем прикрепляемые (факелы, растения, рельсы)
+    private static final int PASS_SOLID = 0;
+    private static final int PASS_GRAVITY = 1;
+    private static final int PASS_ATTACHED = 2;
+
+    private final World world;
+    private final int originX;
+    private final int originY;
+    private final int originZ;
+
+    // Сбор (до seal)
+    private Map<BlockData, Integer> paletteIndex = new HashMap<>();
+    private List<BlockData> paletteList = new ArrayList<>();
+    private int[] offsets;
+    private short[] indices;
+    private int size;
+
+    // После seal
+    private BlockData[] palette;
+    private byte[] smallIndices; // палитра <= 256
+    private int restored;
+
+    public RegenSnapshot(World world, int originX, int originY, int originZ, int expectedBlocks) {
+        this.world = world;
+        this.originX = originX;
+        this.originY = originY;
+        this.originZ = originZ;
+        this.offsets = new int[Math.max(16, expectedBlocks)];
+        this.indices = new short[offsets.length];
+    }
+
+    /**
+     * Запоминает блок перед разрушением.
+     * @return false, если блок слишком далеко от центра для упаковки
+     */
+    public boolean capture(Block block) {
+        int dx = block.getX() - originX;
+        int dy = block.getY() - originY;
+        int dz = block.getZ() - originZ;
+        if (Math.abs(dx) >= OFFSET_LIMIT || Math.abs(dy) >= OFFSET_LIMIT || Math.abs(dz) >= OFFSET_LIMIT) {
+            return false;
+        }
+        if (paletteList.size() >= Short.MAX_VALUE) return false;
+
+        BlockData data = block.getBlockData();
+        Integer index = paletteIndex.get(data);
+        if (index == null) {
+            index = paletteList.size();
+            paletteIndex.put(data, index);
+            paletteList.add(data);
+        }
+
+        if (size == offsets.length) {
+            offsets = Arrays.copyOf(offsets, size * 2);
+            indices = Arrays.copyOf(indices, size * 2);
+        }
+        offsets[size] = (dx & OFFSET_MASK) << (OFFSET_BITS * 2) | (dy & OFFSET_MASK) << OFFSET_BITS | (dz & OFFSET_MASK);
+        indices[size] = index.shortValue();
+        size++;
+        return true;
+    }
+
+    /**
+     * Завершает сбор: сортирует блоки в порядке восстановления и сжимает массивы.
+     */
+    public void seal() {
+        palette = paletteList.toArray(new BlockData[0]);
+        paletteIndex = null;
+        paletteList = null;
+
+        // Ключ сортировки: проход, высота, исходный номер
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            int y = unpack(offsets[i] >> OFFSET_BITS);
+            keys[i] = (long) passOf(palette[indices[i]].getMaterial()) << 40 | (long) (y + OFFSET_LIMIT) << 24 | i;
+        }
+        Arrays.sort(keys);
+
+        int[] sortedOffsets = new int[size];
+        short[] sortedIndices = new short[size];
+        for (int i = 0; i < size; i++) {
+            int source = (int) (keys[i] & 0xFFFFFF);
+            sortedOffsets[i] = offsets[source];
+            sortedIndices[i] = indices[source];
+        }
+        offsets = sortedOffsets;
+
+        if (palette.length <= 256) {
+            smallIndices = new byte[size];
+            for (int i = 0; i < size; i++) {
+                smallIndices[i] = (byte) sortedIndices[i];
+            }
+            indices = null;
+        } else {
+            indices = sortedIndices;
+        }
+    }
+
+    /**
+     * Восстанавливает до budget блоков. Блоки, на месте которых уже что-то построено, пропускаются.
+     * @return Сколько блоков из бюджета израсходовано
+     */
+    public int restore(int budget) {
+        return restore(budget, null);
+    }
+
+    /**
+     * @param placed Вызывается для каждого установленного блока (setBlockData не порождает событий) или null
+     */
+    public int restore(int budget, Consumer<Block> placed) {
+        int used = 0;
+        while (restored < size && used < budget) {
+            int packed = offsets[restored];
+            int index = smallIndices != null ? smallIndices[restored] & 0xFF : indices[restored];
+            restored++;
+            used++;
+
+            Block block = world.getBlockAt(
+                    originX + unpack(packed >> (OFFSET_BITS * 2)),
+                    originY + unpack(packed >> OFFSET_BITS),
+                    originZ + unpack(packed));
+            if (!block.getType().isAir() && !block.isLiquid()) continue;
+
+            BlockData data = palette[index];
+            // Прикрепляемым блокам нужны обновления соседей (редстоун, рельсы), остальным - нет
+            block.setBlockData(data, passOf(data.getMaterial()) == PASS_ATTACHED);
+            if (placed != null) {
+                placed.accept(block);
+            }
+        }
+        return used;
+    }
+
+    public boolean isDone() {
+        return restored >= size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public Location getOrigin() {
+        return new Location(world, originX, originY, originZ);
+    }
+
+    private static int unpack(int value) {
+        return (value & OFFSET_MASK) << (32 - OFFSET_BITS) >> (32 - OFFSET_BITS);
+    }
+
+    private static int passOf(Material type) {
+        if (type.hasGravity()) return PASS_GRAVITY;
+        if (!type.isSolid()) return PASS_ATTACHED;
+        return PASS_SOLID;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,144 @@
+package com.mrrezik.itnt.managers;
+
+import com.mrrezik.itnt.itnt;
+import com.mrrezik.itnt.objects.RegenSnapshot;
+import com.mrrezik.itnt.scheduler.TaskHandle;
+import org.bukkit.Bukkit;
+import org.bukkit.block.Block;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Восстановление рельефа после взрывов типов ТНТ с regeneration.
+ * Снимок каждого взрыва восстанавливается через заданную задержку в потоке своего региона,
+ * не более regeneration.blocks-per-tick блоков за тик на весь сервер.
+ */
+public class RegenerationManager {
+
+    private final itnt plugin;
+    private final Set<Restoration> pending = ConcurrentHashMap.newKeySet();
+    // Снимки взрывов, которые еще разрушаются (в т.ч. отложенно через governor) -> остановка разрушения
+    private final Map<RegenSnapshot, Runnable> capturing = new ConcurrentHashMap<>();
+
+    private int blocksPerTick;
+
+    // Общий бюджет текущего тика
+    private int budgetTick = Integer.MIN_VALUE;
+    private int budgetLeft;
+
+    public RegenerationManager(itnt plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Загружает настройки из секции regeneration в config.yml.
+     */
+    public void loadSettings() {
+        blocksPerTick = Math.max(1, plugin.getConfig().getInt("regeneration.blocks-per-tick", 200));
+    }
+
+    /**
+     * Регистрирует снимок до начала разрушения: если плагин выключат посреди отложенного разрушения,
+     * restoreAll остановит его и восстановит уже разрушенные блоки.
+     * @param abort Останавливает разрушение; вызывается под блокировкой снимка
+     */
+    public void begin(RegenSnapshot snapshot, Runnable abort) {
+        capturing.put(snapshot, abort);
+    }
+
+    /**
+     * Планирует восстановление снимка (разрушение завершено).
+     * @param delaySeconds Через сколько секунд начать восстановление
+     */
+    public void schedule(RegenSnapshot snapshot, int delaySeconds) {
+        capturing.remove(snapshot);
+        if (snapshot.size() == 0) return;
+        snapshot.seal();
+
+        Restoration restoration = new Restoration(snapshot);
+        pending.add(restoration);
+        restoration.task = plugin.getTaskScheduler().runAtTimer(snapshot.getOrigin(), restoration,
+                Math.max(1L, delaySeconds * 20L), 1L);
+    }
+
+    /**
+     * Сразу восстанавливает все ожидающие снимки (перезагрузка и выключение плагина).
+     */
+    public void restoreAll() {
+        for (Map.Entry<RegenSnapshot, Runnable> entry : capturing.entrySet()) {
+            RegenSnapshot snapshot = entry.getKey();
+            synchronized (snapshot) {
+                entry.getValue().run();
+                snapshot.seal();
+                snapshot.restore(Integer.MAX_VALUE, this::placed);
+            }
+        }
+        capturing.clear();
+
+        for (Restoration restoration : pending) {
+            restoration.cancel();
+            restoration.snapshot.restore(Integer.MAX_VALUE, this::placed);
+        }
+        pending.clear();
+    }
+
+    /**
+     * @return Число взрывов, ожидающих восстановления
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Восстановленный блок: предрасчитанные лучи через него устарели (setBlockData не порождает событий).
+     */
+    private void placed(Block block) {
+        BlastPrecomputer blastPrecomputer = plugin.getBlastPrecomputer();
+        if (blastPrecomputer != null && blastPrecomputer.isTracking()) {
+            blastPrecomputer.blockChanged(block);
+        }
+    }
+
+    /**
+     * Выделяет часть общего бюджета текущего тика.
+     */
+    private synchronized int claimBudget(int wanted) {
+        int tick = Bukkit.getCurrentTick();
+        if (tick != budgetTick) {
+            budgetTick = tick;
+            budgetLeft = blocksPerTick;
+        }
+        int granted = Math.min(wanted, budgetLeft);
+        budgetLeft -= granted;
+        return granted;
+    }
+
+    private final class Restoration implements Runnable {
+        private final RegenSnapshot snapshot;
+        private TaskHandle task;
+
+        private Restoration(RegenSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public void run() {
+            int budget = claimBudget(blocksPerTick);
+            if (budget > 0) {
+                snapshot.restore(budget, RegenerationManager.this::placed);
+            }
+            if (snapshot.isDone()) {
+                cancel();
+                pending.remove(this);
+            }
+        }
+
+        private void cancel() {
+            if (task != null) {
+                task.cancel();
+            }
+        }
+    }
+}
\ No newline at end of file
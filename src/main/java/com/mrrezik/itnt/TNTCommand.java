@@ -1,9 +1,20 @@
 package com.mrrezik.itnt.commands;
 
 import com.mrrezik.itnt.itnt;
+import com.mrrezik.itnt.managers.AuditLog;
 import com.mrrezik.itnt.managers.ConfigManager;
+import com.mrrezik.itnt.managers.LoadGovernor;
+import com.mrrezik.itnt.managers.MetricsManager;
+import com.mrrezik.itnt.managers.MetricsManager.Counter;
+import com.mrrezik.itnt.managers.MetricsManager.Timer;
+import com.mrrezik.itnt.managers.TraceRecorder;
+import com.mrrezik.itnt.objects.AuditRecord;
 import com.mrrezik.itnt.objects.CustomTNT;
+import com.mrrezik.itnt.utils.LatencyHistogram;
 import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.World;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
@@ -12,8 +23,14 @@ import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.util.StringUtil;
 
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -55,6 +72,27 @@ public class TNTCommand implements CommandExecutor, TabCompleter {
                 }
                 return handleGive(sender, args);
 
+            case "stats":
+                if (!sender.hasPermission("itnt.stats")) {
+                    sender.sendMessage(configManager.getMessage("no-permission"));
+                    return true;
+                }
+                return handleStats(sender, args);
+
+            case "log":
+                if (!sender.hasPermission("itnt.log")) {
+                    sender.sendMessage(configManager.getMessage("no-permission"));
+                    return true;
+                }
+                return handleLog(sender, args);
+
+            case "trace":
+                if (!sender.hasPermission("itnt.trace")) {
+                    sender.sendMessage(configManager.getMessage("no-permission"));
+                    return true;
+                }
+                return handleTrace(sender, args);
+
             default:
                 sendHelp(sender);
                 return true;
@@ -65,24 +103,38 @@ public class TNTCommand implements CommandExecutor, TabCompleter {
      * Логика подкоманды /itnt give
      */
     private boolean handleGive(CommandSender sender, String[] args) {
-        // /itnt give <player> <id> [amount]
+        // /itnt give <player|@a|world:<мир>|radius:<n>> <id> [amount]
         if (args.length < 3) {
             sender.sendMessage(configManager.getRawMessage("help-give")); // Показываем raw, т.к. префикс не нужен
             return true;
         }
 
-        // 1. Получаем игрока
-        Player target = Bukkit.getPlayer(args[1]);
-        if (target == null) {
-            sender.sendMessage(configManager.getMessage("player-not-found").replace("%player%", args[1]));
-            return true;
+        // 1. Получаем игрока (или список игроков по селектору)
+        List<Player> targets = null;
+        Player target = null;
+        if (isSelector(args[1])) {
+            targets = selectTargets(sender, args[1]);
+            if (targets == null) {
+                sender.sendMessage(configManager.getRawMessage("help-give"));
+                return true;
+            }
+            if (targets.isEmpty()) {
+                sender.sendMessage(configManager.message("give-no-targets").render("selector", args[1]));
+                return true;
+            }
+        } else {
+            target = Bukkit.getPlayer(args[1]);
+            if (target == null) {
+                sender.sendMessage(configManager.message("player-not-found").render("player", args[1]));
+                return true;
+            }
         }
 
         // 2. Получаем тип ТНТ (по ID или Алиасу)
         String tntId = args[2];
         CustomTNT tntConfig = configManager.getTNTType(tntId);
         if (tntConfig == null) {
-            sender.sendMessage(configManager.getMessage("tnt-not-found").replace("%tnt%", tntId));
+            sender.sendMessage(configManager.message("tnt-not-found").render("tnt", tntId));
             return true;
         }
 
@@ -101,27 +153,257 @@ public class TNTCommand implements CommandExecutor, TabCompleter {
             }
         }
 
-        // 4. Выдаем предмет
+        // 4. Массовая выдача - пачками по тикам
+        if (targets != null) {
+            sender.sendMessage(configManager.message("give-bulk-started").render(
+                    "count", targets.size(),
+                    "amount", amount,
+                    "tnt_name", tntConfig.getDisplayName()));
+            plugin.getGiveDistributor().distribute(sender, targets, tntConfig, amount);
+            return true;
+        }
+
+        // 5. Выдаем предмет
         ItemStack item = configManager.getTNTItem(tntConfig, amount);
         target.getInventory().addItem(item);
 
-        // 5. Сообщения
+        // 6. Сообщения
         String tntName = tntConfig.getDisplayName(); // Имя уже с цветами
 
         // Отправителю
-        sender.sendMessage(configManager.getMessage("give-success")
-                .replace("%player%", target.getName())
-                .replace("%amount%", String.valueOf(amount))
-                .replace("%tnt_name%", tntName));
+        sender.sendMessage(configManager.message("give-success").render(
+                "player", target.getName(),
+                "amount", amount,
+                "tnt_name", tntName));
 
         // Получателю
-        target.sendMessage(configManager.getMessage("give-received")
-                .replace("%amount%", String.valueOf(amount))
-                .replace("%tnt_name%", tntName));
+        target.sendMessage(configManager.message("give-received").render(
+                "amount", amount,
+                "tnt_name", tntName));
 
         return true;
     }
 
+    private static boolean isSelector(String arg) {
+        String lower = arg.toLowerCase();
+        return lower.equals("@a") || lower.startsWith("world:") || lower.startsWith("radius:");
+    }
+
+    /**
+     * Разбирает селектор получателей: @a - все игроки, world:&lt;мир&gt; - игроки мира,
+     * radius:&lt;n&gt; - игроки в радиусе n блоков от отправителя-игрока.
+     * @return Список игроков или null, если селектор некорректен
+     */
+    private List<Player> selectTargets(CommandSender sender, String selector) {
+        String lower = selector.toLowerCase();
+        if (lower.equals("@a")) {
+            return new ArrayList<>(Bukkit.getOnlinePlayers());
+        }
+        if (lower.startsWith("world:")) {
+            World world = Bukkit.getWorld(selector.substring("world:".length()));
+            return world == null ? null : new ArrayList<>(world.getPlayers());
+        }
+
+        if (!(sender instanceof Player)) return null;
+        double radius;
+        try {
+            radius = Double.parseDouble(selector.substring("radius:".length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (radius < 0) return null;
+
+        Location origin = ((Player) sender).getLocation();
+        double radiusSq = radius * radius;
+        List<Player> result = new ArrayList<>();
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            if (player.getWorld().equals(origin.getWorld()) && player.getLocation().distanceSquared(origin) <= radiusSq) {
+                result.add(player);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Логика подкоманды /itnt stats [export|reset]
+     */
+    private boolean handleStats(CommandSender sender, String[] args) {
+        MetricsManager metrics = plugin.getMetricsManager();
+        if (!metrics.isEnabled()) {
+            sender.sendMessage(configManager.getMessage("stats-disabled"));
+            return true;
+        }
+
+        if (args.length > 1 && args[1].equalsIgnoreCase("export")) {
+            File file = metrics.exportAsync();
+            sender.sendMessage(configManager.message("stats-exported").render("file", file.getName()));
+            return true;
+        }
+
+        if (args.length > 1 && args[1].equalsIgnoreCase("reset")) {
+            metrics.reset();
+            sender.sendMessage(configManager.getMessage("stats-reset"));
+            return true;
+        }
+
+        sender.sendMessage(configManager.message("stats-header").render(
+                "timings", metrics.isTimingsEnabled()));
+
+        // 0. Текущая нагрузка и уровень деградации
+        LoadGovernor governor = plugin.getLoadGovernor();
+        if (governor.isEnabled()) {
+            sender.sendMessage(configManager.rawMessage("stats-governor").render(
+                    "mspt", String.format("%.1f", governor.getMspt()),
+                    "level", governor.getLevel().name().toLowerCase(Locale.ROOT)));
+        }
+
+        // 1. Счетчики по типам ТНТ
+        for (Map.Entry<String, long[]> entry : metrics.getCounters().entrySet()) {
+            long[] values = entry.getValue();
+            long holograms = values[Counter.HOLOGRAM_CREATES.ordinal()] + values[Counter.HOLOGRAM_UPDATES.ordinal()]
+                    + values[Counter.HOLOGRAM_MOVES.ordinal()] + values[Counter.HOLOGRAM_DELETES.ordinal()];
+
+            sender.sendMessage(configManager.rawMessage("stats-type").render(
+                    "tnt", entry.getKey(),
+                    "primes", values[Counter.PRIMES.ordinal()],
+                    "detonations", values[Counter.DETONATIONS.ordinal()],
+                    "cancellations", values[Counter.CANCELLATIONS.ordinal()],
+                    "holograms", holograms));
+        }
+
+        // 2. Тайминги (если включены)
+        if (metrics.isTimingsEnabled()) {
+            for (Timer timer : Timer.values()) {
+                LatencyHistogram histogram = metrics.getHistogram(timer);
+                sender.sendMessage(configManager.rawMessage("stats-timing").render(
+                        "timer", timer.getMetricName(),
+                        "count", histogram.getCount(),
+                        "p50", MetricsManager.formatNanos(histogram.getPercentile(50)),
+                        "p99", MetricsManager.formatNanos(histogram.getPercentile(99)),
+                        "max", MetricsManager.formatNanos(histogram.getMax())));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Логика подкоманды /itnt log
+     * Игрок: /itnt log [радиус] [часы]
+     * Консоль: /itnt log <мир> <x> <z> [радиус] [часы]
+     */
+    private boolean handleLog(CommandSender sender, String[] args) {
+        AuditLog auditLog = plugin.getAuditLog();
+        if (!auditLog.isEnabled()) {
+            sender.sendMessage(configManager.getMessage("log-disabled"));
+            return true;
+        }
+
+        World world;
+        int x, z, next;
+        try {
+            if (sender instanceof Player && (args.length < 2 || Bukkit.getWorld(args[1]) == null)) {
+                Location location = ((Player) sender).getLocation();
+                world = location.getWorld();
+                x = location.getBlockX();
+                z = location.getBlockZ();
+                next = 1;
+            } else {
+                if (args.length < 4 || Bukkit.getWorld(args[1]) == null) {
+                    sender.sendMessage(configManager.getRawMessage("help-log"));
+                    return true;
+                }
+                world = Bukkit.getWorld(args[1]);
+                x = Integer.parseInt(args[2]);
+                z = Integer.parseInt(args[3]);
+                next = 4;
+            }
+            int radius = args.length > next ? Integer.parseInt(args[next]) : 32;
+            double hours = args.length > next + 1 ? Double.parseDouble(args[next + 1]) : 24.0;
+            if (radius < 0 || hours <= 0) throw new NumberFormatException();
+
+            long until = System.currentTimeMillis();
+            long since = until - (long) (hours * 3_600_000L);
+            int limit = 10;
+            String worldName = world.getName();
+
+            // Чтение файлов - в асинхронной задаче, ответ отправителю - из глобального потока
+            plugin.getTaskScheduler().runAsync(() -> {
+                List<AuditRecord> records;
+                try {
+                    records = auditLog.query(world.getUID(), x, z, radius, since, until, limit);
+                } catch (IOException e) {
+                    plugin.getLogger().warning("Audit log query failed: " + e.getMessage());
+                    records = new ArrayList<>();
+                }
+                List<AuditRecord> result = records;
+                plugin.getTaskScheduler().runGlobal(() -> sendLog(sender, result, worldName, radius));
+            });
+        } catch (NumberFormatException e) {
+            sender.sendMessage(configManager.getRawMessage("help-log"));
+        }
+        return true;
+    }
+
+    /**
+     * Логика подкоманды /itnt trace &lt;start|stop&gt;
+     */
+    private boolean handleTrace(CommandSender sender, String[] args) {
+        TraceRecorder recorder = plugin.getTraceRecorder();
+        if (args.length > 1 && args[1].equalsIgnoreCase("start")) {
+            try {
+                File file = recorder.start();
+                if (file == null) {
+                    sender.sendMessage(configManager.getMessage("trace-already-running"));
+                } else {
+                    sender.sendMessage(configManager.message("trace-started").render("file", file.getName()));
+                }
+            } catch (IOException e) {
+                plugin.getLogger().warning("Cannot start trace: " + e.getMessage());
+                sender.sendMessage(configManager.getMessage("trace-failed"));
+            }
+            return true;
+        }
+        if (args.length > 1 && args[1].equalsIgnoreCase("stop")) {
+            File file = recorder.stop();
+            if (file == null) {
+                sender.sendMessage(configManager.getMessage("trace-not-running"));
+            } else {
+                sender.sendMessage(configManager.message("trace-stopped").render("file", file.getName()));
+            }
+            return true;
+        }
+        sender.sendMessage(configManager.getRawMessage("help-trace"));
+        return true;
+    }
+
+    private void sendLog(CommandSender sender, List<AuditRecord> records, String worldName, int radius) {
+        if (records.isEmpty()) {
+            sender.sendMessage(configManager.getMessage("log-empty"));
+            return;
+        }
+        sender.sendMessage(configManager.message("log-header").render(
+                "world", worldName,
+                "radius", radius,
+                "count", records.size()));
+
+        SimpleDateFormat format = new SimpleDateFormat("dd.MM HH:mm:ss");
+        for (AuditRecord record : records) {
+            String placer = "-";
+            if (record.getPlacerId() != null) {
+                OfflinePlayer player = Bukkit.getOfflinePlayer(record.getPlacerId());
+                placer = player.getName() != null ? player.getName() : record.getPlacerId().toString();
+            }
+            sender.sendMessage(configManager.rawMessage("log-entry").render(
+                    "time", format.format(new Date(record.getTimestamp())),
+                    "tnt", record.getTntId(),
+                    "player", placer,
+                    "x", record.getX(),
+                    "y", record.getY(),
+                    "z", record.getZ(),
+                    "blocks", record.getBlocks()));
+        }
+    }
+
     /**
      * Отправляет отправителю список доступных команд.
      */
@@ -133,6 +415,15 @@ public class TNTCommand implements CommandExecutor, TabCompleter {
         if (sender.hasPermission("itnt.reload")) {
             sender.sendMessage(configManager.getRawMessage("help-reload"));
         }
+        if (sender.hasPermission("itnt.stats")) {
+            sender.sendMessage(configManager.getRawMessage("help-stats"));
+        }
+        if (sender.hasPermission("itnt.log")) {
+            sender.sendMessage(configManager.getRawMessage("help-log"));
+        }
+        if (sender.hasPermission("itnt.trace")) {
+            sender.sendMessage(configManager.getRawMessage("help-trace"));
+        }
         if (sender.hasPermission("itnt.help")) {
             sender.sendMessage(configManager.getRawMessage("help-help"));
         }
@@ -146,17 +437,38 @@ public class TNTCommand implements CommandExecutor, TabCompleter {
         if (args.length == 1) {
             if (sender.hasPermission("itnt.give")) completions.add("give");
             if (sender.hasPermission("itnt.reload")) completions.add("reload");
+            if (sender.hasPermission("itnt.stats")) completions.add("stats");
+            if (sender.hasPermission("itnt.log")) completions.add("log");
+            if (sender.hasPermission("itnt.trace")) completions.add("trace");
             if (sender.hasPermission("itnt.help")) completions.add("help");
 
         } else if (args.length == 2 && args[0].equalsIgnoreCase("give")) {
-            // Список игроков
+            // Список игроков и селекторы
             completions.addAll(Bukkit.getOnlinePlayers().stream()
                     .map(Player::getName)
                     .collect(Collectors.toList()));
+            completions.add("@a");
+            completions.add("radius:");
+            for (World world : Bukkit.getWorlds()) {
+                completions.add("world:" + world.getName());
+            }
 
         } else if (args.length == 3 && args[0].equalsIgnoreCase("give")) {
-            // Список ID и Алиасов ТНТ
-            completions.addAll(configManager.getTNTTypeKeys());
+            // ID и алиасы ТНТ: индекс по префиксу уже отфильтрован
+            return new ArrayList<>(configManager.getTNTTypeKeysStartingWith(lastArg));
+
+        } else if (args.length == 2 && args[0].equalsIgnoreCase("log") && !(sender instanceof Player)) {
+            completions.addAll(Bukkit.getWorlds().stream()
+                    .map(World::getName)
+                    .collect(Collectors.toList()));
+
+        } else if (args.length == 2 && args[0].equalsIgnoreCase("trace")) {
+            completions.add("start");
+            completions.add("stop");
+
+        } else if (args.length == 2 && args[0].equalsIgnoreCase("stats")) {
+            completions.add("export");
+            completions.add("reset");
         }
 
         // Фильтрация
@@ -1,31 +1,81 @@
 package com.mrrezik.itnt.tasks;
 
 import com.mrrezik.itnt.itnt;
+import com.mrrezik.itnt.jfr.CountdownTickEvent;
+import com.mrrezik.itnt.managers.BlastPrecomputer;
+import com.mrrezik.itnt.managers.ClusterHologramManager;
 import com.mrrezik.itnt.managers.ConfigManager;
 import com.mrrezik.itnt.managers.HologramManager;
+import com.mrrezik.itnt.managers.LoadGovernor;
+import com.mrrezik.itnt.managers.MetricsManager;
+import com.mrrezik.itnt.managers.MetricsManager.Counter;
+import com.mrrezik.itnt.managers.MetricsManager.Timer;
+import com.mrrezik.itnt.managers.TraceRecorder;
+import com.mrrezik.itnt.managers.TraceRecorder.Kind;
 import com.mrrezik.itnt.objects.ActiveTNT;
+import com.mrrezik.itnt.scheduler.TaskHandle;
 import com.mrrezik.itnt.utils.Utils;
 import org.bukkit.Location;
 import org.bukkit.entity.Entity;
-import org.bukkit.scheduler.BukkitRunnable;
 
-public class TNTCountdownTask extends BukkitRunnable {
+/**
+ * Таймер одного заряда: обратный отсчет, голограмма и взрыв.
+ * Выполняется каждый тик в потоке региона, которому принадлежит заряд (на Folia).
+ */
+public class TNTCountdownTask implements Runnable {
 
     private final itnt plugin;
     private final ActiveTNT activeTNT;
     private final ConfigManager configManager;
     private final HologramManager hologramManager;
+    private final ClusterHologramManager clusterHologramManager;
+    private final MetricsManager metricsManager;
+    private final TraceRecorder traceRecorder;
+    private final BlastPrecomputer blastPrecomputer;
+    private final LoadGovernor loadGovernor;
+    private TaskHandle task;
+    private int ticks;
 
     public TNTCountdownTask(itnt plugin, ActiveTNT activeTNT) {
         this.plugin = plugin;
         this.activeTNT = activeTNT;
         this.configManager = plugin.getConfigManager();
         this.hologramManager = plugin.getHologramManager();
+        this.clusterHologramManager = plugin.getClusterHologramManager();
+        this.metricsManager = plugin.getMetricsManager();
+        this.traceRecorder = plugin.getTraceRecorder();
+        this.blastPrecomputer = plugin.getBlastPrecomputer();
+        this.loadGovernor = plugin.getLoadGovernor();
+    }
+
+    /**
+     * Запускает таймер (каждый тик, начиная со следующего).
+     */
+    public void start() {
+        task = plugin.getTaskScheduler().runAtTimer(activeTNT.getLocation(), this, 0L, 1L);
+    }
+
+    private void cancel() {
+        if (task != null) {
+            task.cancel();
+        }
     }
 
     @Override
     public void run() {
-        long elapsedMillis = System.currentTimeMillis() - activeTNT.getStartTime();
+        CountdownTickEvent jfrEvent = new CountdownTickEvent();
+        jfrEvent.begin();
+        long timer = metricsManager.startTimer();
+        try {
+            tick();
+        } finally {
+            metricsManager.stopTimer(Timer.COUNTDOWN_TICK, timer);
+            jfrEvent.report(activeTNT.getLocation(), activeTNT.getConfig());
+        }
+    }
+
+    private void tick() {
+        long elapsedMillis = plugin.getTntManager().currentTimeMillis() - activeTNT.getStartTime();
         long totalMillis = activeTNT.getFuseTicks() * 50L; // 50ms per tick
         double remainingSeconds = (totalMillis - elapsedMillis) / 1000.0;
 
@@ -43,26 +93,46 @@ public class TNTCountdownTask extends BukkitRunnable {
         // Если сущности нет (она была сломана или удалена)
         if (tntEntity == null || tntEntity.isDead()) {
             // Если сущности нет, просто убираем голограмму и отменяем таймер
-            hologramManager.deleteHologram(activeTNT.getTrackingId());
-            plugin.getTntManager().getActiveTNTs().remove(activeTNT.getTrackingId());
+            plugin.getTntManager().untrack(activeTNT.getTrackingId());
+            if (clusterHologramManager.isEnabled()) {
+                clusterHologramManager.remove(activeTNT);
+            } else {
+                hologramManager.deleteHologram(activeTNT.getTrackingId());
+                if (configManager.isHologramEnabled()) {
+                    metricsManager.increment(activeTNT.getConfig(), Counter.HOLOGRAM_DELETES);
+                    traceRecorder.record(Kind.HOLOGRAM_DELETE, activeTNT.getLocation(), activeTNT.getConfig(), 0);
+                }
+            }
+            metricsManager.increment(activeTNT.getConfig(), Counter.CANCELLATIONS);
+            traceRecorder.record(Kind.CANCEL, activeTNT.getLocation(), activeTNT.getConfig(), 0);
+            blastPrecomputer.discard(activeTNT.getTrackingId());
             this.cancel();
             return;
         }
 
+        // Очередная порция лучей будущего взрыва
+        blastPrecomputer.advance(activeTNT.getTrackingId());
 
-        // 3. Обновляем голограмму (если включена)
-        if (configManager.isHologramEnabled()) {
+        // 3. Обновляем голограмму (если включена и не общая для группы). При перегрузке - реже и только рядом с игроками
+        if (configManager.isHologramEnabled() && !clusterHologramManager.isEnabled()
+                && ticks++ % loadGovernor.getHologramInterval() == 0) {
             // Проверяем, жива ли голограмма
             if (!hologramManager.isHologramAlive(activeTNT.getTrackingId())) {
-                plugin.getTntManager().getActiveTNTs().remove(activeTNT.getTrackingId());
+                plugin.getTntManager().untrack(activeTNT.getTrackingId());
+                metricsManager.increment(activeTNT.getConfig(), Counter.CANCELLATIONS);
+                traceRecorder.record(Kind.CANCEL, activeTNT.getLocation(), activeTNT.getConfig(), 0);
+                blastPrecomputer.discard(activeTNT.getTrackingId());
                 this.cancel();
                 return;
             }
 
             // *** ОБНОВЛЕНИЕ МЕСТОПОЛОЖЕНИЯ ГОЛОГРАММЫ (ДВИЖЕНИЕ) ***
             Location entityLoc = tntEntity.getLocation();
+            if (!loadGovernor.isHologramVisible(entityLoc)) return; // голограмма заморожена
             // В moveHologram мы передаем локацию сущности, а менеджер добавляет смещение (offset)
             hologramManager.moveHologram(activeTNT.getTrackingId(), entityLoc);
+            metricsManager.increment(activeTNT.getConfig(), Counter.HOLOGRAM_MOVES);
+            traceRecorder.record(Kind.HOLOGRAM_MOVE, entityLoc, activeTNT.getConfig(), 0);
             // ********************************************
 
             String time = String.format("%.1f", Math.max(0.0, remainingSeconds));
@@ -71,6 +141,8 @@ public class TNTCountdownTask extends BukkitRunnable {
                     .replace("%time%", time);
 
             hologramManager.updateHologram(activeTNT.getTrackingId(), Utils.color(name));
+            metricsManager.increment(activeTNT.getConfig(), Counter.HOLOGRAM_UPDATES);
+            traceRecorder.record(Kind.HOLOGRAM_UPDATE, activeTNT.getLocation(), activeTNT.getConfig(), 0);
         }
     }
 }
\ No newline at end of file
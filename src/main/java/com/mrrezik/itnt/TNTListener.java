@@ -3,6 +3,7 @@ package com.mrrezik.itnt.listeners;
 import com.mrrezik.itnt.itnt;
 import com.mrrezik.itnt.managers.ConfigManager;
 import com.mrrezik.itnt.managers.TNTManager;
+import com.mrrezik.itnt.managers.TraceRecorder;
 import com.mrrezik.itnt.objects.CustomTNT;
 import org.bukkit.GameMode;
 import org.bukkit.Location;
@@ -15,7 +16,6 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.block.Action;
 import org.bukkit.event.block.BlockBreakEvent; // <-- ДОБАВЛЕНО
 import org.bukkit.event.block.BlockPlaceEvent;
-import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.ItemStack;
@@ -33,11 +33,13 @@ public class TNTListener implements Listener {
     private final itnt plugin;
     private final ConfigManager configManager;
     private final TNTManager tntManager;
+    private final TraceRecorder traceRecorder;
 
     public TNTListener(itnt plugin) {
         this.plugin = plugin;
         this.configManager = plugin.getConfigManager();
         this.tntManager = plugin.getTntManager();
+        this.traceRecorder = plugin.getTraceRecorder();
     }
 
     // --- НОВАЯ ЛОГИКА: Выпадение кастомного ТНТ при разрушении ---
@@ -81,6 +83,7 @@ public class TNTListener implements Listener {
 
             // 6. Удаляем метаданные
             brokenBlock.removeMetadata("itnt-id", plugin);
+            traceRecorder.record(TraceRecorder.Kind.BREAK, brokenBlock.getLocation(), tntConfig, 0);
         }
         // Если метаданных нет, блок считается ванильным ТНТ (или был поставлен другим плагином)
         // и ломается как обычно.
@@ -111,7 +114,7 @@ public class TNTListener implements Listener {
 
         // 3. Проверяем права
         if (!player.hasPermission("itnt.place." + tntId) && !player.hasPermission("itnt.place.*")) {
-            player.sendMessage(configManager.getMessage("no-permission"));
+            player.sendMessage(configManager.message("no-permission").toComponent());
             event.setCancelled(true);
             return;
         }
@@ -124,6 +127,7 @@ public class TNTListener implements Listener {
             // Если auto-ignite = false, ставим блок, но добавляем ему Metadata для отслеживания
             event.getBlockPlaced().setMetadata("itnt-id",
                     new FixedMetadataValue(plugin, tntId));
+            traceRecorder.record(TraceRecorder.Kind.PLACE, event.getBlockPlaced().getLocation(), tntConfig, 0);
         }
     }
 
@@ -163,7 +167,7 @@ public class TNTListener implements Listener {
         // 2. Проверяем права
         Player player = event.getPlayer();
         if (!player.hasPermission("itnt.place." + tntId) && !player.hasPermission("itnt.place.*")) {
-            player.sendMessage(configManager.getMessage("no-permission"));
+            player.sendMessage(configManager.message("no-permission").toComponent());
             return;
         }
 
@@ -176,10 +180,17 @@ public class TNTListener implements Listener {
             return;
         }
 
-        // 5. Зажигаем ТНТ (primeTNT сам удалит блок и создаст сущность)
-        tntManager.primeTNT(loc, tntConfig, player);
+        // 5. Проверяем лимит частоты поджига (защита от автокликеров)
+        if (!tntManager.tryAcquireIgnition(player, tntConfig)) {
+            player.sendMessage(configManager.message("ignite-rate-limited").toComponent());
+            return;
+        }
 
-        // 6. Забираем 1 предмет из рук (если не в креативе)
+        // 6. Зажигаем ТНТ (primeTNT сам удалит блок и создаст сущность)
+        // Заряд направлен внутрь поверхности, по которой кликнули
+        tntManager.primeTNT(loc, tntConfig, player, event.getBlockFace().getOppositeFace());
+
+        // 7. Забираем 1 предмет из рук (если не в креативе)
         if (player.getGameMode() != GameMode.CREATIVE) {
             itemInHand.setAmount(itemInHand.getAmount() - 1);
         }
@@ -218,11 +229,17 @@ public class TNTListener implements Listener {
                 // Отменяем ванильный поджиг
                 event.setCancelled(true);
 
+                // Проверяем лимит частоты поджига (блок остается на месте)
+                if (!tntManager.tryAcquireIgnition(event.getPlayer(), tntConfig)) {
+                    event.getPlayer().sendMessage(configManager.message("ignite-rate-limited").toComponent());
+                    return;
+                }
+
                 // Убираем Metadata, т.к. блок будет удален в primeTNT
                 clickedBlock.removeMetadata("itnt-id", plugin);
 
                 // Запускаем наш таймер (primeTNT сам удалит блок и создаст сущность)
-                tntManager.primeTNT(clickedBlock.getLocation(), tntConfig, event.getPlayer());
+                tntManager.primeTNT(clickedBlock.getLocation(), tntConfig, event.getPlayer(), event.getBlockFace().getOppositeFace());
 
                 // Наносим урон зажигалке / расходуем огненный шар (если не креатив)
                 if (event.getPlayer().getGameMode() != GameMode.CREATIVE) {
@@ -253,19 +270,4 @@ public class TNTListener implements Listener {
             }
         }
     }
-
-
-    /**
-     * Отменяет урон от взрыва, если у ТНТ был флаг entity-damage: false.
-     */
-    @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
-    public void onEntityDamage(EntityDamageEvent event) {
-        if (event.getCause() == EntityDamageEvent.DamageCause.ENTITY_EXPLOSION ||
-                event.getCause() == EntityDamageEvent.DamageCause.BLOCK_EXPLOSION) {
-
-            if (tntManager.isNoDamageExplosion(event.getEntity().getLocation())) {
-                event.setCancelled(true);
-            }
-        }
-    }
 }
\ No newline at end of file
@@ -1,18 +1,27 @@
 package com.mrrezik.itnt.managers;
 
+import com.mrrezik.itnt.api.events.CustomTNTDetonateEvent;
+import com.mrrezik.itnt.api.events.CustomTNTPrimeEvent;
 import com.mrrezik.itnt.itnt;
+import com.mrrezik.itnt.jfr.DetonationEvent;
+import com.mrrezik.itnt.jfr.PrimeEvent;
+import com.mrrezik.itnt.managers.MetricsManager.Counter;
+import com.mrrezik.itnt.managers.MetricsManager.Timer;
 import com.mrrezik.itnt.objects.ActiveTNT;
+import com.mrrezik.itnt.objects.BlastShape;
 import com.mrrezik.itnt.objects.CustomTNT;
 import com.mrrezik.itnt.tasks.TNTCountdownTask;
+import com.mrrezik.itnt.utils.TokenBucketTable;
 import com.mrrezik.itnt.utils.Utils;
 import org.bukkit.*;
-import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 import org.bukkit.entity.TNTPrimed;
 import org.bukkit.persistence.PersistentDataType;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
 
 /**
  * Управляет всеми активными (зажженными) ТНТ на сервере.
@@ -22,14 +31,56 @@ public class TNTManager {
     private final itnt plugin;
     private final ConfigManager configManager;
     private final HologramManager hologramManager;
+    private final ClusterHologramManager clusterHologramManager;
+    private final MetricsManager metricsManager;
+    private final EffectsManager effectsManager;
+    private final AuditLog auditLog;
+    private final ProtectionManager protectionManager;
+    private final TraceRecorder traceRecorder;
+    private final BlastPrecomputer blastPrecomputer;
+    private final DetonationBatcher detonationBatcher;
+    private final ChargeIndex chargeIndex;
+    private final ExplosionEngine explosionEngine;
 
     private final Map<UUID, ActiveTNT> activeTNTs = new ConcurrentHashMap<>();
-    private final Set<Location> noDamageExplosions = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final Map<UUID, ActiveTNT> activeTNTsView = Collections.unmodifiableMap(activeTNTs);
+    // Лимиты частоты поджига: <tnt-id, бакеты игроков>
+    // На Folia игроки в разных регионах поджигают параллельно: таблица бакетов блокируется на время проверки
+    private final Map<String, TokenBucketTable> igniteLimiters = new ConcurrentHashMap<>();
+    // Источник времени для фитилей (подменяется в нагрузочных тестах на симулированное время)
+    private LongSupplier clock = System::currentTimeMillis;
 
     public TNTManager(itnt plugin) {
         this.plugin = plugin;
         this.configManager = plugin.getConfigManager();
         this.hologramManager = plugin.getHologramManager();
+        this.clusterHologramManager = plugin.getClusterHologramManager();
+        this.metricsManager = plugin.getMetricsManager();
+        this.effectsManager = plugin.getEffectsManager();
+        this.auditLog = plugin.getAuditLog();
+        this.protectionManager = plugin.getProtectionManager();
+        this.traceRecorder = plugin.getTraceRecorder();
+        this.blastPrecomputer = plugin.getBlastPrecomputer();
+        this.detonationBatcher = plugin.getDetonationBatcher();
+        this.chargeIndex = plugin.getChargeIndex();
+        this.explosionEngine = new ExplosionEngine(plugin);
+    }
+
+    /**
+     * Проверяет лимит частоты поджига для игрока (ignite-limit в config.yml).
+     * Вызывается ДО primeTNT, чтобы лишние поджиги не создавали сущности и голограммы.
+     * @return true, если игрок может поджечь этот ТНТ прямо сейчас
+     */
+    public boolean tryAcquireIgnition(Player player, CustomTNT tntConfig) {
+        if (!tntConfig.hasIgniteLimit() || player.hasPermission("itnt.bypass.ignite-limit")) {
+            return true;
+        }
+
+        TokenBucketTable limiter = igniteLimiters.computeIfAbsent(tntConfig.getId(),
+                id -> new TokenBucketTable(tntConfig.getIgniteLimitBurst(), tntConfig.getIgniteLimitPerSecond()));
+        synchronized (limiter) {
+            return limiter.tryAcquire(player.getUniqueId(), currentTimeMillis());
+        }
     }
 
     /**
@@ -39,17 +90,74 @@ public class TNTManager {
      * @param placer Игрок, который поставил ТНТ (может быть null)
      */
     public void primeTNT(Location location, CustomTNT tntConfig, Player placer) {
-        // 1. Проверка на запрещенный мир
-        if (tntConfig.getDisabledWorlds().contains(location.getWorld().getName())) {
+        primeTNT(location, tntConfig, placer, null);
+    }
+
+    /**
+     * Активирует (зажигает) кастомный ТНТ в мире.
+     * @param face Направление внутрь грани, по которой кликнул игрок (для shape.orient: face), может быть null
+     */
+    public void primeTNT(Location location, CustomTNT tntConfig, Player placer, BlockFace face) {
+        PrimeEvent jfrEvent = new PrimeEvent();
+        jfrEvent.begin();
+        long timer = metricsManager.startTimer();
+        try {
+            prime(location, tntConfig, placer, face);
+        } finally {
+            metricsManager.stopTimer(Timer.PRIME_TNT, timer);
+            jfrEvent.report(location, tntConfig);
+        }
+    }
+
+    /**
+     * Направление формы заряда: грань клика или взгляд поджигателя (по shape.orient), иначе вниз.
+     */
+    private static BlockFace directionOf(CustomTNT tntConfig, Player placer, BlockFace face) {
+        BlastShape shape = tntConfig.getShape();
+        if (shape.isSphere()) return BlockFace.DOWN;
+        if (shape.getOrient() == BlastShape.Orient.FACE && face != null) return face;
+        if (placer != null) {
+            float pitch = placer.getLocation().getPitch();
+            if (pitch > 45.0f) return BlockFace.DOWN;
+            if (pitch < -45.0f) return BlockFace.UP;
+            return placer.getFacing();
+        }
+        return face != null ? face : BlockFace.DOWN;
+    }
+
+    private void prime(Location location, CustomTNT baseConfig, Player placer, BlockFace face) {
+        World world = location.getWorld();
+        if (world == null) return;
+
+        // 1. Настройки мира: запрет или перекрытые сила, фитиль и флаги (одно чтение из таблицы)
+        CustomTNT tntConfig = configManager.resolveForWorld(world, baseConfig);
+        if (tntConfig == null) {
             if (placer != null) {
                 placer.sendMessage(configManager.getMessage("tnt-disabled-in-this-world"));
+                placer.getInventory().addItem(configManager.getTNTItem(baseConfig, 1));
+            }
+            return;
+        }
+
+        // 1.1. Проверка на защищенную зону (deny-prime)
+        if (protectionManager.getPrimeProtection(location) != null
+                && (placer == null || !placer.hasPermission("itnt.bypass.protection"))) {
+            if (placer != null) {
+                placer.sendMessage(configManager.getMessage("tnt-protected-zone"));
                 placer.getInventory().addItem(configManager.getTNTItem(tntConfig, 1));
             }
             return;
         }
 
-        World world = location.getWorld();
-        if (world == null) return;
+        // 1.2. Событие для других плагинов (регионы, статистика, античит)
+        CustomTNTPrimeEvent primeEvent = new CustomTNTPrimeEvent(location, tntConfig, placer);
+        Bukkit.getPluginManager().callEvent(primeEvent);
+        if (primeEvent.isCancelled()) {
+            if (placer != null) {
+                placer.getInventory().addItem(configManager.getTNTItem(baseConfig, 1));
+            }
+            return;
+        }
 
         // --- НОВАЯ ЛОГИКА ---
 
@@ -80,14 +188,23 @@ public class TNTManager {
 
         // 8. Создаем ActiveTNT
         UUID trackingId = UUID.randomUUID();
-        long startTime = System.currentTimeMillis();
+        long startTime = currentTimeMillis();
         long fuseTicks = tntConfig.getFuseTime() * 20L;
 
-        ActiveTNT activeTNT = new ActiveTNT(trackingId, location, tntConfig, startTime, fuseTicks, tntEntity.getUniqueId());
+        ActiveTNT activeTNT = new ActiveTNT(trackingId, location, tntConfig, startTime, fuseTicks, tntEntity.getUniqueId(),
+                placer != null ? placer.getUniqueId() : null, directionOf(tntConfig, placer, face));
         activeTNTs.put(trackingId, activeTNT);
+        chargeIndex.add(activeTNT, startTime + fuseTicks * 50L);
+        metricsManager.increment(tntConfig, Counter.PRIMES);
+        traceRecorder.record(TraceRecorder.Kind.PRIME, location, tntConfig, (int) fuseTicks);
 
-        // 9. Создаем голограмму
-        if (configManager.isHologramEnabled()) {
+        // Расчет блоков взрыва порциями во время фитиля
+        blastPrecomputer.start(activeTNT);
+
+        // 9. Создаем голограмму (или добавляем заряд в общую голограмму группы)
+        if (clusterHologramManager.isEnabled()) {
+            clusterHologramManager.add(activeTNT);
+        } else if (configManager.isHologramEnabled()) {
             String time = String.format("%.1f", (double) tntConfig.getFuseTime());
             String name = configManager.getHologramFormat()
                     .replace("%name%", tntConfig.getDisplayName())
@@ -95,145 +212,105 @@ public class TNTManager {
 
             Location holoLocation = location.clone().add(0.5, configManager.getHologramOffset(), 0.5);
             hologramManager.createHologram(holoLocation, Utils.color(name), trackingId);
+            metricsManager.increment(tntConfig, Counter.HOLOGRAM_CREATES);
+            traceRecorder.record(TraceRecorder.Kind.HOLOGRAM_CREATE, location, tntConfig, 0);
         }
 
         // 10. Запускаем таймер
-        new TNTCountdownTask(plugin, activeTNT).runTaskTimer(plugin, 0L, 1L);
+        new TNTCountdownTask(plugin, activeTNT).start();
     }
 
     /**
      * Логика кастомного взрыва (вызывается из TNTCountdownTask).
      */
     public void createExplosion(ActiveTNT activeTNT) {
-        activeTNTs.remove(activeTNT.getTrackingId());
+        DetonationEvent jfrEvent = new DetonationEvent();
+        jfrEvent.begin();
+        long timer = metricsManager.startTimer();
+        int destroyed = 0;
+        try {
+            destroyed = explode(activeTNT);
+        } finally {
+            metricsManager.stopTimer(Timer.CREATE_EXPLOSION, timer);
+            jfrEvent.report(activeTNT.getLocation(), activeTNT.getConfig(), destroyed);
+        }
+    }
+
+    /**
+     * @return Число разрушенных блоков
+     */
+    private int explode(ActiveTNT activeTNT) {
+        untrack(activeTNT.getTrackingId());
 
         Location loc = activeTNT.getLocation();
         CustomTNT config = activeTNT.getConfig();
         World world = loc.getWorld();
-        if (world == null) return;
-
-        // 1. Убираем сущность TNTPrimed
-        Entity tntEntity = world.getEntity(activeTNT.getEntityId());
-        if (tntEntity != null) {
-            tntEntity.remove();
-        }
-
-        // 2. Убираем голограмму
-        hologramManager.deleteHologram(activeTNT.getTrackingId());
-
-        // 3. Эффекты взрыва
-        world.playSound(loc, Sound.ENTITY_GENERIC_EXPLODE, 1.0f, 1.0f);
-        world.spawnParticle(Particle.EXPLOSION_HUGE, loc.clone().add(0.5, 0.5, 0.5), 1, 0, 0, 0);
-
-        // --- Обработка флагов ---
-
-        // 4. Флаг "Нет урона существам" (entity-damage: false)
-        if (!config.isEntityDamage()) {
-            addNoDamageLocation(loc);
-            plugin.getServer().getScheduler().runTaskLater(plugin, () -> removeNoDamageLocation(loc), 2L);
-        }
-
-        // 5. Флаг "Урон блокам" (block-damage: true)
-        boolean breakBlocks = config.isBlockDamage();
-        boolean inWater = loc.getBlock().isLiquid();
-        boolean customBlockDestructionNeeded = false;
-
-        // Если ТНТ взрывается в воде и должен ломать блоки, мы делаем кастомное разрушение
-        if (inWater && config.isExplodeInWater() && breakBlocks) {
-            customBlockDestructionNeeded = true;
-            breakBlocks = false; // Отключаем поломку блоков в ванильном взрыве
-        }
-
-        // 6. Создаем ЕДИНСТВЕННЫЙ взрыв
-        world.createExplosion(loc.clone().add(0.5, 0.5, 0.5), config.getPower(), false, breakBlocks);
-
-        // 7. Кастомная поломка блоков в воде
-        if (customBlockDestructionNeeded) {
-            handleWaterBlockBreaking(loc, config.getPower());
+        if (world == null) return 0;
+
+        // 0. Событие для других плагинов: отмена гасит заряд без взрыва
+        CustomTNTDetonateEvent detonateEvent = new CustomTNTDetonateEvent(loc, config,
+                activeTNT.getPlacerId(), activeTNT.getTrackingId());
+        Bukkit.getPluginManager().callEvent(detonateEvent);
+        if (detonateEvent.isCancelled()) {
+            defuse(activeTNT, world);
+            return 0;
         }
 
-        // 8. Флаг "Ломать обсидиан" (break-obsidian: true)
-        if (config.isBreakObsidian()) {
-            handleObsidianBreaking(loc, config.getPower());
+        // 1. Убираем голограмму
+        if (clusterHologramManager.isEnabled()) {
+            clusterHologramManager.remove(activeTNT);
+        } else {
+            // Удаляем и при выключенных голограммах (могли остаться до перезагрузки конфига), но учитываем только включенные
+            hologramManager.deleteHologram(activeTNT.getTrackingId());
+            if (configManager.isHologramEnabled()) {
+                metricsManager.increment(config, Counter.HOLOGRAM_DELETES);
+                traceRecorder.record(TraceRecorder.Kind.HOLOGRAM_DELETE, loc, config, 0);
+            }
         }
-    }
+        metricsManager.increment(config, Counter.DETONATIONS);
 
-    /**
-     * Кастомная логика для ломания обсидиана в радиусе взрыва.
-     */
-    private void handleObsidianBreaking(Location center, float power) {
-        int radius = (int) Math.ceil(power);
-        World world = center.getWorld();
-        if (world == null) return;
+        // 2. Эффекты взрыва (через бюджет: соседние взрывы сливаются в один эффект)
+        effectsManager.explosion(loc.clone().add(0.5, 0.5, 0.5));
 
-        for (int x = -radius; x <= radius; x++) {
-            for (int y = -radius; y <= radius; y++) {
-                for (int z = -radius; z <= radius; z++) {
-                    Location blockLoc = center.clone().add(x, y, z);
-                    // Проверяем сферический, а не кубический радиус
-                    if (blockLoc.distanceSquared(center) > power * power) continue;
+        // 3. Взрыв: блоки, урон и отбрасывание за один проход с учетом всех флагов.
+        // Сущность TNTPrimed - источник взрыва для событий, поэтому удаляем ее после.
+        Entity tntEntity = world.getEntity(activeTNT.getEntityId());
+        int destroyed = explosionEngine.explode(loc.clone().add(0.5, 0.5, 0.5), config, tntEntity,
+                activeTNT.getDirection(), activeTNT.getTrackingId());
 
-                    Block block = blockLoc.getBlock();
-                    Material type = block.getType();
+        // 4. Журнал взрывов (запись уходит в фоновый поток)
+        auditLog.record(activeTNT, destroyed);
+        traceRecorder.record(TraceRecorder.Kind.DETONATE, loc, config, destroyed);
+        detonationBatcher.add(activeTNT, destroyed);
 
-                    if (type == Material.OBSIDIAN || type == Material.CRYING_OBSIDIAN || type == Material.ANCIENT_DEBRIS) {
-                        block.setType(Material.AIR);
-                        world.spawnParticle(Particle.BLOCK_CRACK, block.getLocation().add(0.5, 0.5, 0.5), 30, 0.4, 0.4, 0.4, type.createBlockData());
-                    }
-                }
-            }
+        if (tntEntity != null) {
+            tntEntity.remove();
         }
+        return destroyed;
     }
 
     /**
-     * Кастомная логика для поломки блоков под водой.
-     * Эмулирует обычный взрыв, удаляя блоки с низкой прочностью (прочность меньше обсидиана).
+     * Гасит заряд, взрыв которого отменен событием: голограмма, план блоков и сущность удаляются.
      */
-    private void handleWaterBlockBreaking(Location center, float power) {
-        int radius = (int) Math.ceil(power);
-        World world = center.getWorld();
-        if (world == null) return;
-
-        for (int x = -radius; x <= radius; x++) {
-            for (int y = -radius; y <= radius; y++) {
-                for (int z = -radius; z <= radius; z++) {
-                    Location blockLoc = center.clone().add(x, y, z);
-                    if (blockLoc.distanceSquared(center) > power * power) continue;
-
-                    Block block = blockLoc.getBlock();
-                    Material type = block.getType();
-
-                    // *** ИСПРАВЛЕНИЕ: Замена type.isLiquid() на явную проверку Material.WATER/Material.LAVA ***
-                    if (type.isAir() || type.getBlastResistance() > 6000.0f || type == Material.WATER || type == Material.LAVA) continue;
-
-                    // Блок считается легко разрушаемым (прочность ниже 1200.0f)
-                    if (type.getBlastResistance() < 1200.0f) {
-                        block.breakNaturally(); // Роняем предмет
-                    }
-                }
+    private void defuse(ActiveTNT activeTNT, World world) {
+        CustomTNT config = activeTNT.getConfig();
+        if (clusterHologramManager.isEnabled()) {
+            clusterHologramManager.remove(activeTNT);
+        } else {
+            hologramManager.deleteHologram(activeTNT.getTrackingId());
+            if (configManager.isHologramEnabled()) {
+                metricsManager.increment(config, Counter.HOLOGRAM_DELETES);
+                traceRecorder.record(TraceRecorder.Kind.HOLOGRAM_DELETE, activeTNT.getLocation(), config, 0);
             }
         }
-    }
+        metricsManager.increment(config, Counter.CANCELLATIONS);
+        traceRecorder.record(TraceRecorder.Kind.CANCEL, activeTNT.getLocation(), config, 0);
+        blastPrecomputer.discard(activeTNT.getTrackingId());
 
-    private void addNoDamageLocation(Location loc) {
-        noDamageExplosions.add(loc.getBlock().getLocation());
-    }
-
-    private void removeNoDamageLocation(Location loc) {
-        noDamageExplosions.remove(loc.getBlock().getLocation());
-    }
-
-    public boolean isNoDamageExplosion(Location entityLocation) {
-        if (noDamageExplosions.isEmpty()) return false;
-
-        Location blockLoc = entityLocation.getBlock().getLocation();
-        for (Location explosionLoc : noDamageExplosions) {
-            // Проверяем мир и радиус 16 блоков (256 = 16^2)
-            if (explosionLoc.getWorld().equals(blockLoc.getWorld()) && explosionLoc.distanceSquared(blockLoc) < 256) {
-                return true;
-            }
+        Entity tntEntity = world.getEntity(activeTNT.getEntityId());
+        if (tntEntity != null) {
+            tntEntity.remove();
         }
-        return false;
     }
 
     /**
@@ -256,10 +333,42 @@ public class TNTManager {
             }
         }
         activeTNTs.clear();
-        noDamageExplosions.clear();
+        chargeIndex.clear();
+        clusterHologramManager.clear();
+        blastPrecomputer.clear();
+        igniteLimiters.clear(); // Лимиты могли измениться в конфиге
+    }
+
+    public ExplosionEngine getExplosionEngine() {
+        return explosionEngine;
     }
 
+    /**
+     * @return Активные заряды (только чтение). Для запросов из других потоков и плагинов - ChargeIndex.snapshot()
+     */
     public Map<UUID, ActiveTNT> getActiveTNTs() {
-        return activeTNTs;
+        return activeTNTsView;
+    }
+
+    /**
+     * Убирает заряд из активных (взрыв или отмена: сущность сломана, голограмма пропала).
+     */
+    public void untrack(UUID trackingId) {
+        activeTNTs.remove(trackingId);
+        chargeIndex.remove(trackingId);
+    }
+
+    /**
+     * @return Текущее время в миллисекундах, от которого отсчитываются фитили
+     */
+    public long currentTimeMillis() {
+        return clock.getAsLong();
+    }
+
+    /**
+     * Подменяет источник времени (нагрузочные тесты прогоняют фитили быстрее реального времени).
+     */
+    public void setClock(LongSupplier clock) {
+        this.clock = clock;
     }
 }
\ No newline at end of file
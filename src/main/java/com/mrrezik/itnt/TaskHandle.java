@@ -0,0 +1,11 @@
+package com.mrrezik.itnt.scheduler;
+
+/**
+ * Запланированная задача, которую можно отменить.
+ */
+public interface TaskHandle {
+
+    void cancel();
+
+    boolean isCancelled();
+}
\ No newline at end of file
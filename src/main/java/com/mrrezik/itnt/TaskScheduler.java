@@ -0,0 +1,56 @@
+package com.mrrezik.itnt.scheduler;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Планировщик задач iTNT. На Paper/Spigot - обычный Bukkit-планировщик,
+ * на Folia - планировщик региона, которому принадлежит локация заряда.
+ * Все задачи плагина создаются только через этот интерфейс.
+ */
+public interface TaskScheduler {
+
+    /**
+     * Выполняет задачу в следующем тике в потоке региона локации.
+     */
+    TaskHandle runAt(Location location, Runnable task);
+
+    /**
+     * Выполняет задачу через delayTicks тиков в потоке региона локации.
+     */
+    TaskHandle runAtLater(Location location, Runnable task, long delayTicks);
+
+    /**
+     * Повторяет задачу каждые periodTicks тиков в потоке региона локации.
+     */
+    TaskHandle runAtTimer(Location location, Runnable task, long delayTicks, long periodTicks);
+
+    /**
+     * Выполняет задачу в следующем тике в потоке, которому принадлежит сущность (на Folia - планировщик сущности:
+     * задача идет за сущностью между регионами). Если сущность удалена или игрок вышел, задача не выполняется.
+     */
+    TaskHandle runFor(Entity entity, Runnable task);
+
+    /**
+     * Выполняет задачу в следующем тике вне регионов (глобальный планировщик на Folia).
+     */
+    TaskHandle runGlobal(Runnable task);
+
+    /**
+     * Выполняет задачу асинхронно (ввод-вывод).
+     */
+    TaskHandle runAsync(Runnable task);
+
+    /**
+     * @return true на Folia (регионы тикают параллельно в разных потоках)
+     */
+    boolean isRegionized();
+
+    /**
+     * Выбирает реализацию под текущий сервер.
+     */
+    static TaskScheduler create(Plugin plugin) {
+        return FoliaTaskScheduler.isSupported() ? new FoliaTaskScheduler(plugin) : new BukkitTaskScheduler(plugin);
+    }
+}
\ No newline at end of file
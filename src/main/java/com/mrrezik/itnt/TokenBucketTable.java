@@ -0,0 +1,167 @@
+package com.mrrezik.itnt.utils;
+
+import java.util.UUID;
+
+/**
+ * Таблица token bucket'ов, ключ - UUID игрока.
+ * Открытая адресация на примитивных массивах: без объекта-обертки на каждого игрока.
+ * Бакет, который простоял без дела дольше времени полного восполнения, ничем не
+ * отличается от нового и удаляется при очистке.
+ */
+public class TokenBucketTable {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final double burst;
+    private final double refillPerMilli;
+    private final long idleMillis; // За это время пустой бакет полностью восполняется
+
+    private long[] keysMost;
+    private long[] keysLeast;
+    private double[] tokens;
+    private long[] lastRefill;
+    private boolean[] used;
+    private int size;
+    private long lastSweep;
+
+    /**
+     * @param burst Максимум токенов (сколько поджигов можно сделать подряд)
+     * @param perSecond Скорость восполнения токенов в секунду
+     */
+    public TokenBucketTable(int burst, double perSecond) {
+        this.burst = burst;
+        this.refillPerMilli = perSecond / 1000.0;
+        this.idleMillis = (long) Math.ceil(burst / this.refillPerMilli);
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Пытается забрать один токен из бакета игрока.
+     * @param id UUID игрока
+     * @param now Текущее время в миллисекундах
+     * @return true, если токен получен
+     */
+    public boolean tryAcquire(UUID id, long now) {
+        if (now - lastSweep > idleMillis) {
+            expireIdle(now);
+        }
+
+        long most = id.getMostSignificantBits();
+        long least = id.getLeastSignificantBits();
+        int mask = keysMost.length - 1;
+        int slot = hash(most, least) & mask;
+
+        while (used[slot]) {
+            if (keysMost[slot] == most && keysLeast[slot] == least) {
+                double available = Math.min(burst, tokens[slot] + (now - lastRefill[slot]) * refillPerMilli);
+                lastRefill[slot] = now;
+                if (available < 1.0) {
+                    tokens[slot] = available;
+                    return false;
+                }
+                tokens[slot] = available - 1.0;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        // Новый игрок: бакет полный, сразу забираем один токен
+        used[slot] = true;
+        keysMost[slot] = most;
+        keysLeast[slot] = least;
+        tokens[slot] = burst - 1.0;
+        lastRefill[slot] = now;
+        if (++size * 4 > keysMost.length * 3) {
+            resize(keysMost.length * 2);
+        }
+        return true;
+    }
+
+    /**
+     * Удаляет бакеты игроков, которые не поджигали ТНТ дольше времени полного восполнения.
+     */
+    public void expireIdle(long now) {
+        lastSweep = now;
+        int mask = keysMost.length - 1;
+        int slot = 0;
+        while (slot < keysMost.length) {
+            if (used[slot] && now - lastRefill[slot] >= idleMillis) {
+                // После сдвига в этот слот мог попасть другой ключ - проверяем его еще раз
+                delete(slot, mask);
+            } else {
+                slot++;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Удаление с обратным сдвигом (backward shift), чтобы не оставлять "надгробий".
+     */
+    private void delete(int slot, int mask) {
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (used[next]) {
+            int home = hash(keysMost[next], keysLeast[next]) & mask;
+            // Ключ можно сдвинуть в дыру, если его "домашний" слот не лежит между дырой и ним
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keysMost[hole] = keysMost[next];
+                keysLeast[hole] = keysLeast[next];
+                tokens[hole] = tokens[next];
+                lastRefill[hole] = lastRefill[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        used[hole] = false;
+        size--;
+    }
+
+    private void resize(int capacity) {
+        long[] oldMost = keysMost;
+        long[] oldLeast = keysLeast;
+        double[] oldTokens = tokens;
+        long[] oldRefill = lastRefill;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+
+        int mask = capacity - 1;
+        for (int i = 0; i < oldMost.length; i++) {
+            if (!oldUsed[i]) continue;
+            int slot = hash(oldMost[i], oldLeast[i]) & mask;
+            while (used[slot]) {
+                slot = (slot + 1) & mask;
+            }
+            used[slot] = true;
+            keysMost[slot] = oldMost[i];
+            keysLeast[slot] = oldLeast[i];
+            tokens[slot] = oldTokens[i];
+            lastRefill[slot] = oldRefill[i];
+            size++;
+        }
+    }
+
+    private void allocate(int capacity) {
+        keysMost = new long[capacity];
+        keysLeast = new long[capacity];
+        tokens = new double[capacity];
+        lastRefill = new long[capacity];
+        used = new boolean[capacity];
+        size = 0;
+    }
+
+    private static int hash(long most, long least) {
+        long h = most ^ least;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
\ No newline at end of file
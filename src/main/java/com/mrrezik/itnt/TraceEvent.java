@@ -0,0 +1,39 @@
+package com.mrrezik.itnt.objects;
+
+import com.mrrezik.itnt.managers.TraceRecorder.Kind;
+
+/**
+ * Одно событие трассы нагрузки (/itnt trace) для воспроизведения вне сервера.
+ * Неизменяемый класс.
+ */
+public class TraceEvent {
+    private final int tick; // номер тика от начала записи
+    private final Kind kind;
+    private final String world;
+    private final int x;
+    private final int y;
+    private final int z;
+    private final int arg; // PRIME - фитиль в тиках, DETONATE - разрушено блоков, остальные - 0
+    private final String tntId;
+
+    public TraceEvent(int tick, Kind kind, String world, int x, int y, int z, int arg, String tntId) {
+        this.tick = tick;
+        this.kind = kind;
+        this.world = world;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.arg = arg;
+        this.tntId = tntId;
+    }
+
+    // --- Getters ---
+    public int getTick() { return tick; }
+    public Kind getKind() { return kind; }
+    public String getWorld() { return world; }
+    public int getX() { return x; }
+    public int getY() { return y; }
+    public int getZ() { return z; }
+    public int getArg() { return arg; }
+    public String getTntId() { return tntId; }
+}
\ No newline at end of file
@@ -0,0 +1,341 @@
+package com.mrrezik.itnt.managers;
+
+import com.mrrezik.itnt.itnt;
+import com.mrrezik.itnt.objects.CustomTNT;
+import com.mrrezik.itnt.objects.TraceEvent;
+import com.mrrezik.itnt.utils.AuditRingBuffer;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Запись трассы нагрузки iTNT (/itnt trace start|stop): поджиги, взрывы, отмены, операции с голограммами
+ * и установка/разрушение блоков ТНТ - с номером тика. Трасса воспроизводится вне сервера
+ * (./gradlew traceReplay) на настоящих менеджерах и фейковом мире.
+ * Записи фиксированного размера идут через кольцевой буфер без блокировок в фоновый поток,
+ * как в журнале взрывов. Пока запись выключена, каждая точка записи - одна проверка volatile-флага.
+ * Имена миров и типов ТНТ хранятся в таблице строк файла: при первой встрече имя пишется
+ * записями-определениями (любая длина, по частям), а события ссылаются на него номером.
+ */
+public class TraceRecorder {
+
+    public enum Kind {
+        PRIME, DETONATE, CANCEL,
+        HOLOGRAM_CREATE, HOLOGRAM_UPDATE, HOLOGRAM_MOVE, HOLOGRAM_DELETE,
+        PLACE, BREAK
+    }
+
+    private static final Kind[] KINDS = Kind.values();
+
+    // Формат файла: заголовок (magic, версия, размер записи), затем записи по RECORD_SIZE байт
+    public static final byte[] MAGIC = "ITNTTRC1".getBytes(StandardCharsets.US_ASCII);
+    public static final int VERSION = 2;
+    public static final int HEADER_SIZE = 16;
+    // Событие: tick(4) + kind(1) + reserved(3) + x,y,z(12) + arg(4) + номер мира(4) + номер типа(4)
+    public static final int RECORD_SIZE = 4 + 4 + 12 + 4 + 4 + 4;
+    // Часть имени: номер имени(4) + NAME_KIND(1) + номер части(1) + число частей(1) + длина(1) + байты
+    private static final int NAME_KIND = 0xFF;
+    private static final int NAME_PART_BYTES = RECORD_SIZE - 8;
+    private static final int MAX_NAME_BYTES = NAME_PART_BYTES * 255;
+    private static final int NO_NAME = -1;
+
+    // Версия 1: имена в записи, обрезанные до 16 байт
+    private static final int V1_NAME_BYTES = 16;
+    private static final int V1_RECORD_SIZE = 4 + 4 + 12 + 4 + V1_NAME_BYTES + V1_NAME_BYTES;
+
+    private final itnt plugin;
+    private final File directory;
+
+    private volatile boolean recording;
+    private int startTick;
+    private AuditRingBuffer ring;
+    private Thread writerThread;
+    private File file;
+    // Таблица строк текущего файла: <имя, номер>. Новые имена регистрируются под замком этой карты
+    private final Map<String, Integer> nameIds = new ConcurrentHashMap<>();
+    private int nextNameId;
+
+    public TraceRecorder(itnt plugin) {
+        this.plugin = plugin;
+        this.directory = new File(plugin.getDataFolder(), "traces");
+    }
+
+    public boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * Начинает запись в новый файл plugins/iTNT/traces/trace-&lt;время&gt;.bin.
+     * @return Файл трассы или null, если запись уже идет
+     */
+    public synchronized File start() throws IOException {
+        if (recording) return null;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        file = new File(directory, "trace-" + System.currentTimeMillis() + ".bin");
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.put(MAGIC).putInt(VERSION).putInt(RECORD_SIZE).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+
+        ring = new AuditRingBuffer(plugin.getConfig().getInt("trace.buffer-size", 16384), RECORD_SIZE);
+        synchronized (nameIds) {
+            nameIds.clear();
+            nextNameId = 0;
+        }
+        startTick = Bukkit.getCurrentTick();
+        recording = true;
+        writerThread = new Thread(() -> writeLoop(channel), "iTNT-Trace");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        return file;
+    }
+
+    /**
+     * Останавливает запись, дописав все, что осталось в буфере.
+     * @return Файл трассы или null, если запись не шла
+     */
+    public synchronized File stop() {
+        if (!recording) return null;
+        recording = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(5000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writerThread = null;
+        if (ring.getDropped() > 0) {
+            plugin.getLogger().warning("Trace: " + ring.getDropped() + " событий отброшено (увеличьте trace.buffer-size).");
+        }
+        return file;
+    }
+
+    /**
+     * Записывает событие. Не блокирует и не делает ввод-вывод.
+     * @param arg PRIME - фитиль в тиках, DETONATE - разрушено блоков
+     */
+    public void record(Kind kind, Location location, CustomTNT tnt, int arg) {
+        if (!recording) return;
+        World world = location.getWorld();
+        if (world == null) return;
+
+        int tick = Bukkit.getCurrentTick() - startTick;
+        int worldId = nameId(world.getName());
+        int tntId = tnt != null ? nameId(tnt.getId()) : NO_NAME;
+        // Определение имени не поместилось в буфер - событие без имени воспроизвести нельзя
+        if (worldId == NO_NAME || (tnt != null && tntId == NO_NAME)) return;
+        int x = location.getBlockX(), y = location.getBlockY(), z = location.getBlockZ();
+
+        ring.offer(slot -> {
+            slot.putInt(tick);
+            slot.put((byte) kind.ordinal()).put((byte) 0).put((byte) 0).put((byte) 0);
+            slot.putInt(x).putInt(y).putInt(z);
+            slot.putInt(arg);
+            slot.putInt(worldId);
+            slot.putInt(tntId);
+        });
+    }
+
+    /**
+     * @return Номер имени в таблице строк файла (при первой встрече имя пишется в буфер) или NO_NAME
+     */
+    private int nameId(String name) {
+        Integer id = nameIds.get(name);
+        if (id != null) return id;
+        synchronized (nameIds) {
+            id = nameIds.get(name);
+            if (id != null) return id;
+
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > MAX_NAME_BYTES) {
+                plugin.getLogger().warning("Trace: имя длиннее " + MAX_NAME_BYTES + " байт не записывается: " + name);
+                return NO_NAME;
+            }
+            int newId = nextNameId++;
+            int parts = Math.max(1, (bytes.length + NAME_PART_BYTES - 1) / NAME_PART_BYTES);
+            for (int part = 0; part < parts; part++) {
+                int offset = part * NAME_PART_BYTES;
+                int length = Math.min(NAME_PART_BYTES, bytes.length - offset);
+                int index = part;
+                boolean offered = ring.offer(slot -> {
+                    slot.putInt(newId);
+                    slot.put((byte) NAME_KIND).put((byte) index).put((byte) parts).put((byte) length);
+                    slot.put(bytes, offset, length);
+                    for (int i = length; i < NAME_PART_BYTES; i++) {
+                        slot.put((byte) 0); // слот переиспользуется - затираем хвост прошлой записи
+                    }
+                });
+                // Неполное определение при чтении пропускается; при следующей встрече имя получит новый номер
+                if (!offered) return NO_NAME;
+            }
+            nameIds.put(name, newId);
+            return newId;
+        }
+    }
+
+    private void writeLoop(FileChannel channel) {
+        ByteBuffer batch = ByteBuffer.allocateDirect(RECORD_SIZE * 256);
+        try (FileChannel out = channel) {
+            while (true) {
+                batch.clear();
+                int count = ring.drainTo(batch);
+                if (count == 0) {
+                    if (!recording) break;
+                    LockSupport.parkNanos(50_000_000L);
+                    continue;
+                }
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    out.write(batch);
+                }
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warning("Trace write failed: " + e.getMessage());
+        }
+    }
+
+    // --- Чтение (воспроизведение) ---
+
+    /**
+     * Читает трассу целиком. События упорядочены по тику (на Folia регионы пишут параллельно,
+     * поэтому порядок внутри файла может немного отличаться).
+     * Имена подставляются после чтения всего файла, поэтому порядок определений и событий не важен.
+     */
+    public static List<TraceEvent> read(File file) throws IOException {
+        try (FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (in.read(header) < 0) throw new IOException("Not an iTNT trace: " + file);
+            }
+            header.flip();
+            byte[] magic = new byte[MAGIC.length];
+            header.get(magic);
+            int version = header.getInt();
+            int recordSize = header.getInt();
+            boolean legacy = version == 1 && recordSize == V1_RECORD_SIZE;
+            if (!Arrays.equals(magic, MAGIC) || !legacy && (version != VERSION || recordSize != RECORD_SIZE)) {
+                throw new IOException("Not an iTNT trace: " + file);
+            }
+
+            List<TraceEvent> events = new ArrayList<>();
+            List<int[]> pending = new ArrayList<>(); // события v2: tick, kind, x, y, z, arg, мир, тип
+            Map<Integer, byte[][]> nameParts = new HashMap<>();
+            ByteBuffer chunk = ByteBuffer.allocate(recordSize * 512);
+            boolean eof = false;
+            while (!eof) {
+                eof = in.read(chunk) < 0;
+                chunk.flip();
+                while (chunk.remaining() >= recordSize) {
+                    if (legacy) {
+                        events.add(decodeV1(chunk));
+                    } else {
+                        decode(chunk, pending, nameParts);
+                    }
+                }
+                chunk.compact(); // неполная запись в конце файла (обрыв записи) отбрасывается
+            }
+
+            Map<Integer, String> names = assembleNames(nameParts);
+            for (int[] record : pending) {
+                String world = names.get(record[6]);
+                if (world == null) continue; // определение имени потеряно (переполнение буфера)
+                String tntId = record[7] == NO_NAME ? "" : names.get(record[7]);
+                if (tntId == null) continue;
+                int kind = record[1];
+                events.add(new TraceEvent(record[0], kind < KINDS.length ? KINDS[kind] : null, world,
+                        record[2], record[3], record[4], record[5], tntId));
+            }
+            events.sort((a, b) -> Integer.compare(a.getTick(), b.getTick()));
+            return events;
+        }
+    }
+
+    private static void decode(ByteBuffer chunk, List<int[]> pending, Map<Integer, byte[][]> nameParts) {
+        int first = chunk.getInt();
+        int kind = chunk.get() & 0xFF;
+        if (kind == NAME_KIND) {
+            int part = chunk.get() & 0xFF;
+            int parts = chunk.get() & 0xFF;
+            int length = Math.min(chunk.get() & 0xFF, NAME_PART_BYTES);
+            byte[] bytes = new byte[length];
+            chunk.get(bytes);
+            chunk.position(chunk.position() + NAME_PART_BYTES - length);
+            byte[][] slots = nameParts.computeIfAbsent(first, id -> new byte[Math.max(1, parts)][]);
+            if (part < slots.length) slots[part] = bytes;
+            return;
+        }
+        chunk.position(chunk.position() + 3);
+        int x = chunk.getInt(), y = chunk.getInt(), z = chunk.getInt();
+        int arg = chunk.getInt();
+        int world = chunk.getInt();
+        int tnt = chunk.getInt();
+        pending.add(new int[]{first, kind, x, y, z, arg, world, tnt});
+    }
+
+    /**
+     * Собирает имена из частей; имена с недостающими частями пропускаются.
+     */
+    private static Map<Integer, String> assembleNames(Map<Integer, byte[][]> nameParts) {
+        Map<Integer, String> names = new HashMap<>(nameParts.size() * 2);
+        for (Map.Entry<Integer, byte[][]> entry : nameParts.entrySet()) {
+            byte[][] parts = entry.getValue();
+            int length = 0;
+            boolean complete = true;
+            for (byte[] part : parts) {
+                if (part == null) {
+                    complete = false;
+                    break;
+                }
+                length += part.length;
+            }
+            if (!complete) continue;
+            byte[] bytes = new byte[length];
+            int offset = 0;
+            for (byte[] part : parts) {
+                System.arraycopy(part, 0, bytes, offset, part.length);
+                offset += part.length;
+            }
+            names.put(entry.getKey(), new String(bytes, StandardCharsets.UTF_8));
+        }
+        return names;
+    }
+
+    private static TraceEvent decodeV1(ByteBuffer chunk) {
+        int tick = chunk.getInt();
+        int kind = chunk.get() & 0xFF;
+        chunk.position(chunk.position() + 3);
+        int x = chunk.getInt(), y = chunk.getInt(), z = chunk.getInt();
+        int arg = chunk.getInt();
+        String world = getV1Name(chunk);
+        String tntId = getV1Name(chunk);
+        return new TraceEvent(tick, kind < KINDS.length ? KINDS[kind] : null, world, x, y, z, arg, tntId);
+    }
+
+    private static String getV1Name(ByteBuffer chunk) {
+        byte[] bytes = new byte[V1_NAME_BYTES];
+        chunk.get(bytes);
+        int length = 0;
+        while (length < V1_NAME_BYTES && bytes[length] != 0) {
+            length++;
+        }
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+}
\ No newline at end of file
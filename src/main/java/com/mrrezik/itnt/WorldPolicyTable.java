@@ -0,0 +1,43 @@
+package com.mrrezik.itnt.objects;
+
+import org.bukkit.World;
+
+import java.util.Map;
+
+/**
+ * Скомпилированная таблица настроек ТНТ по мирам (секция worlds и disabled-worlds типов).
+ * Строка - мир (строка 0 - миры без особых настроек), столбец - CustomTNT.getOrdinal().
+ * В ячейке - итоговая конфигурация типа в этом мире или null, если тип в мире запрещен.
+ * Неизменяемый класс.
+ */
+public class WorldPolicyTable {
+
+    public static final int DEFAULT_ROW = 0;
+
+    // <имя мира, номер строки>
+    private final Map<String, Integer> rows;
+    private final CustomTNT[][] table;
+
+    public WorldPolicyTable(Map<String, Integer> rows, CustomTNT[][] table) {
+        this.rows = rows;
+        this.table = table;
+    }
+
+    /**
+     * @return Конфигурация типа с учетом настроек мира или null, если тип в этом мире запрещен
+     */
+    public CustomTNT resolve(World world, CustomTNT type) {
+        Integer row = rows.get(world.getName());
+        CustomTNT[] columns = table[row == null ? DEFAULT_ROW : row];
+        int ordinal = type.getOrdinal();
+        // Тип не из этой таблицы - без настроек мира
+        return ordinal < columns.length ? columns[ordinal] : type;
+    }
+
+    /**
+     * @return Число миров с особыми настройками
+     */
+    public int getWorldCount() {
+        return rows.size();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,165 @@
+package com.mrrezik.itnt.utils;
+
+import com.mrrezik.itnt.objects.ProtectedZone;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Статическое R-дерево зон одного мира (упаковка Sort-Tile-Recursive при построении).
+ * Строится один раз при загрузке конфига, запросы точки и бокса - O(log n) узлов.
+ */
+public class ZoneIndex {
+
+    private static final int NODE_CAPACITY = 16;
+
+    private static final class Node {
+        int minX, minY, minZ, maxX, maxY, maxZ;
+        Node[] children; // null у листа
+        ProtectedZone[] zones; // только у листа
+
+        boolean intersects(int x1, int y1, int z1, int x2, int y2, int z2) {
+            return x1 <= maxX && x2 >= minX && y1 <= maxY && y2 >= minY && z1 <= maxZ && z2 >= minZ;
+        }
+    }
+
+    private final Node root;
+    private final int size;
+
+    public ZoneIndex(List<ProtectedZone> zones) {
+        this.size = zones.size();
+        this.root = zones.isEmpty() ? null : build(zones);
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Первая зона, содержащая блок, или null
+     */
+    public ProtectedZone find(int x, int y, int z, boolean prime) {
+        return root == null ? null : find(root, x, y, z, prime);
+    }
+
+    /**
+     * Собирает зоны, бокс которых пересекает заданный бокс, и которые запрещают разрушение блоков.
+     */
+    public List<ProtectedZone> blockDamageCandidates(int x1, int y1, int z1, int x2, int y2, int z2) {
+        List<ProtectedZone> result = new ArrayList<>(0);
+        if (root != null) {
+            collect(root, x1, y1, z1, x2, y2, z2, result);
+        }
+        return result;
+    }
+
+    private static ProtectedZone find(Node node, int x, int y, int z, boolean prime) {
+        if (!node.intersects(x, y, z, x, y, z)) return null;
+        if (node.children == null) {
+            for (ProtectedZone zone : node.zones) {
+                if ((prime ? zone.isDenyPrime() : zone.isDenyBlockDamage()) && zone.contains(x, y, z)) {
+                    return zone;
+                }
+            }
+            return null;
+        }
+        for (Node child : node.children) {
+            ProtectedZone zone = find(child, x, y, z, prime);
+            if (zone != null) return zone;
+        }
+        return null;
+    }
+
+    private static void collect(Node node, int x1, int y1, int z1, int x2, int y2, int z2, List<ProtectedZone> result) {
+        if (!node.intersects(x1, y1, z1, x2, y2, z2)) return;
+        if (node.children == null) {
+            for (ProtectedZone zone : node.zones) {
+                if (zone.isDenyBlockDamage() && x1 <= zone.getMaxX() && x2 >= zone.getMinX()
+                        && y1 <= zone.getMaxY() && y2 >= zone.getMinY()
+                        && z1 <= zone.getMaxZ() && z2 >= zone.getMinZ()) {
+                    result.add(zone);
+                }
+            }
+            return;
+        }
+        for (Node child : node.children) {
+            collect(child, x1, y1, z1, x2, y2, z2, result);
+        }
+    }
+
+    // --- Построение (STR) ---
+
+    private static Node build(List<ProtectedZone> zones) {
+        // 1. Листья: сортируем по X, режем на вертикальные полосы, каждую полосу сортируем по Z
+        ProtectedZone[] sorted = zones.toArray(new ProtectedZone[0]);
+        Arrays.sort(sorted, Comparator.comparingInt(z -> z.getMinX() + z.getMaxX()));
+        int leafCount = (sorted.length + NODE_CAPACITY - 1) / NODE_CAPACITY;
+        int sliceSize = NODE_CAPACITY * (int) Math.ceil(Math.sqrt(leafCount));
+
+        List<Node> level = new ArrayList<>();
+        for (int start = 0; start < sorted.length; start += sliceSize) {
+            int end = Math.min(sorted.length, start + sliceSize);
+            Arrays.sort(sorted, start, end, Comparator.comparingInt(z -> z.getMinZ() + z.getMaxZ()));
+            for (int i = start; i < end; i += NODE_CAPACITY) {
+                Node leaf = new Node();
+                leaf.zones = Arrays.copyOfRange(sorted, i, Math.min(end, i + NODE_CAPACITY));
+                fitZones(leaf);
+                level.add(leaf);
+            }
+        }
+
+        // 2. Внутренние уровни - по тому же принципу, пока не останется корень
+        while (level.size() > 1) {
+            Node[] nodes = level.toArray(new Node[0]);
+            Arrays.sort(nodes, Comparator.comparingInt(n -> n.minX + n.maxX));
+            int parentCount = (nodes.length + NODE_CAPACITY - 1) / NODE_CAPACITY;
+            int slice = NODE_CAPACITY * (int) Math.ceil(Math.sqrt(parentCount));
+
+            List<Node> parents = new ArrayList<>();
+            for (int start = 0; start < nodes.length; start += slice) {
+                int end = Math.min(nodes.length, start + slice);
+                Arrays.sort(nodes, start, end, Comparator.comparingInt(n -> n.minZ + n.maxZ));
+                for (int i = start; i < end; i += NODE_CAPACITY) {
+                    Node parent = new Node();
+                    parent.children = Arrays.copyOfRange(nodes, i, Math.min(end, i + NODE_CAPACITY));
+                    fitChildren(parent);
+                    parents.add(parent);
+                }
+            }
+            level = parents;
+        }
+        return level.get(0);
+    }
+
+    private static void fitZones(Node node) {
+        node.minX = node.minY = node.minZ = Integer.MAX_VALUE;
+        node.maxX = node.maxY = node.maxZ = Integer.MIN_VALUE;
+        for (ProtectedZone zone : node.zones) {
+            node.minX = Math.min(node.minX, zone.getMinX());
+            node.minY = Math.min(node.minY, zone.getMinY());
+            node.minZ = Math.min(node.minZ, zone.getMinZ());
+            node.maxX = Math.max(node.maxX, zone.getMaxX());
+            node.maxY = Math.max(node.maxY, zone.getMaxY());
+            node.maxZ = Math.max(node.maxZ, zone.getMaxZ());
+        }
+    }
+
+    private static void fitChildren(Node node) {
+        node.minX = node.minY = node.minZ = Integer.MAX_VALUE;
+        node.maxX = node.maxY = node.maxZ = Integer.MIN_VALUE;
+        for (Node child : node.children) {
+            node.minX = Math.min(node.minX, child.minX);
+            node.minY = Math.min(node.minY, child.minY);
+            node.minZ = Math.min(node.minZ, child.minZ);
+            node.maxX = Math.max(node.maxX, child.maxX);
+            node.maxY = Math.max(node.maxY, child.maxY);
+            node.maxZ = Math.max(node.maxZ, child.maxZ);
+        }
+    }
+}
\ No newline at end of file
@@ -2,12 +2,31 @@ package com.mrrezik.itnt;
 
 import com.mrrezik.itnt.commands.TNTCommand;
 import com.mrrezik.itnt.listeners.TNTListener;
+import com.mrrezik.itnt.listeners.BlockChangeListener;
+import com.mrrezik.itnt.managers.AuditLog;
+import com.mrrezik.itnt.managers.ChargeIndex;
+import com.mrrezik.itnt.managers.BlastPrecomputer;
+import com.mrrezik.itnt.managers.ClusterHologramManager;
 import com.mrrezik.itnt.managers.ConfigManager;
+import com.mrrezik.itnt.managers.DetonationBatcher;
+import com.mrrezik.itnt.managers.DropAggregator;
+import com.mrrezik.itnt.managers.EffectsManager;
+import com.mrrezik.itnt.managers.GiveDistributor;
 import com.mrrezik.itnt.managers.HologramManager;
+import com.mrrezik.itnt.managers.LoadGovernor;
+import com.mrrezik.itnt.managers.MetricsManager;
+import com.mrrezik.itnt.managers.PlayerPositions;
+import com.mrrezik.itnt.managers.ProtectionManager;
+import com.mrrezik.itnt.managers.RegenerationManager;
 import com.mrrezik.itnt.managers.TNTManager;
+import com.mrrezik.itnt.managers.TraceRecorder;
+import com.mrrezik.itnt.scheduler.TaskScheduler;
 import org.bukkit.Bukkit;
+import org.bukkit.plugin.PluginDescriptionFile;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.java.JavaPluginLoader;
 
+import java.io.File;
 import java.util.Objects;
 
 /**
@@ -17,14 +36,46 @@ import java.util.Objects;
 public class itnt extends JavaPlugin {
 
     private static itnt instance;
+    private TaskScheduler taskScheduler;
+    private PlayerPositions playerPositions;
     private ConfigManager configManager;
     private TNTManager tntManager;
     private HologramManager hologramManager;
+    private MetricsManager metricsManager;
+    private DropAggregator dropAggregator;
+    private EffectsManager effectsManager;
+    private AuditLog auditLog;
+    private RegenerationManager regenerationManager;
+    private ProtectionManager protectionManager;
+    private GiveDistributor giveDistributor;
+    private TraceRecorder traceRecorder;
+    private BlastPrecomputer blastPrecomputer;
+    private LoadGovernor loadGovernor;
+    private ClusterHologramManager clusterHologramManager;
+    private DetonationBatcher detonationBatcher;
+    private ChargeIndex chargeIndex;
+
+    public itnt() {
+        super();
+    }
+
+    /**
+     * Конструктор для запуска вне сервера (бенчмарки и нагрузочные тесты на фейковом сервере).
+     */
+    protected itnt(JavaPluginLoader loader, PluginDescriptionFile description, File dataFolder, File file) {
+        super(loader, description, dataFolder, file);
+    }
 
     @Override
     public void onEnable() {
         instance = this;
 
+        // 0. Планировщик: регионы Folia или обычный Bukkit-планировщик
+        taskScheduler = TaskScheduler.create(this);
+        // Положения игроков для потоков регионов (только Folia)
+        playerPositions = new PlayerPositions(this);
+        playerPositions.start();
+
         // 1. Менеджер конфигурации (должен быть первым)
         configManager = new ConfigManager(this);
         configManager.loadConfig();
@@ -33,8 +84,58 @@ public class itnt extends JavaPlugin {
         hologramManager = new HologramManager(this);
         hologramManager.init();
 
-        // 3. Менеджер ТНТ (зависит от ConfigManager и HologramManager)
+        // 3. Статистика (зависит от ConfigManager)
+        metricsManager = new MetricsManager(this);
+        metricsManager.loadSettings();
+
+        // 4. Слияние дропов взрывов (зависит от ConfigManager)
+        dropAggregator = new DropAggregator(this);
+        dropAggregator.loadSettings();
+
+        // 5. Эффекты взрывов с бюджетом (зависит от ConfigManager)
+        effectsManager = new EffectsManager(this);
+        effectsManager.loadSettings();
+
+        // 6. Журнал взрывов (фоновый поток записи)
+        auditLog = new AuditLog(this);
+        auditLog.loadSettings();
+
+        // 7. Восстановление рельефа после взрывов
+        regenerationManager = new RegenerationManager(this);
+        regenerationManager.loadSettings();
+
+        // 8. Защищенные зоны
+        protectionManager = new ProtectionManager(this);
+        protectionManager.loadSettings();
+
+        // 9. Массовая выдача ТНТ по тикам
+        giveDistributor = new GiveDistributor(this);
+        giveDistributor.loadSettings();
+
+        // 10. Запись трассы нагрузки (включается командой /itnt trace start)
+        traceRecorder = new TraceRecorder(this);
+
+        // 11. Расчет блоков взрыва во время фитиля
+        blastPrecomputer = new BlastPrecomputer(this);
+        blastPrecomputer.loadSettings();
+
+        // 12. Регулятор нагрузки по MSPT
+        loadGovernor = new LoadGovernor(this);
+        loadGovernor.loadSettings();
+
+        // 13. Общие голограммы для плотных групп зарядов
+        clusterHologramManager = new ClusterHologramManager(this);
+        clusterHologramManager.loadSettings();
+
+        // 14. Пакетное событие взрывов за тик (API для других плагинов)
+        detonationBatcher = new DetonationBatcher(this);
+
+        // 15. Индекс активных зарядов для запросов из других потоков (API для других плагинов)
+        chargeIndex = new ChargeIndex();
+
+        // 16. Менеджер ТНТ (зависит от всех менеджеров выше)
         tntManager = new TNTManager(this);
+        tntManager.getExplosionEngine().loadSettings();
 
         // Регистрация команд
         TNTCommand tntCommand = new TNTCommand(this);
@@ -43,6 +144,7 @@ public class itnt extends JavaPlugin {
 
         // Регистрация слушателей
         Bukkit.getPluginManager().registerEvents(new TNTListener(this), this);
+        Bukkit.getPluginManager().registerEvents(new BlockChangeListener(this), this);
 
         getLogger().info("iTNT by MrReZik has been enabled!");
     }
@@ -53,9 +155,31 @@ public class itnt extends JavaPlugin {
         if (tntManager != null) {
             tntManager.cleanupAll();
         }
+        // Отдаем слушателям взрывы текущего тика
+        if (detonationBatcher != null) {
+            detonationBatcher.flush();
+        }
+        // Выдаем дропы, накопленные за текущий тик
+        if (dropAggregator != null) {
+            dropAggregator.flush();
+        }
+        // Восстанавливаем рельеф сразу, чтобы разрушения не остались навсегда
+        if (regenerationManager != null) {
+            regenerationManager.restoreAll();
+        }
+        // Дописываем журнал взрывов и трассу, останавливаем потоки записи
+        if (auditLog != null) {
+            auditLog.stop();
+        }
+        if (traceRecorder != null) {
+            traceRecorder.stop();
+        }
         if (hologramManager != null) {
             hologramManager.cleanupAll();
         }
+        if (playerPositions != null) {
+            playerPositions.stop();
+        }
         getLogger().info("iTNT by MrReZik has been disabled.");
     }
 
@@ -76,6 +200,40 @@ public class itnt extends JavaPlugin {
 
         // 3. Ре-инициализируем голограммы (т.к. провайдер мог измениться)
         hologramManager.init();
+
+        // 4. Настройки статистики (накопленные значения сохраняются)
+        metricsManager.loadSettings();
+
+        // 5. Настройки слияния дропов (накопленные дропы выдаются до перезагрузки)
+        dropAggregator.loadSettings();
+
+        // 6. Бюджет эффектов
+        effectsManager.loadSettings();
+
+        // 7. Журнал взрывов (поток записи перезапускается с новыми настройками)
+        auditLog.loadSettings();
+
+        // 8. Восстановление: ожидающие снимки восстанавливаются сразу
+        regenerationManager.restoreAll();
+        regenerationManager.loadSettings();
+
+        // 9. Защищенные зоны (индексы строятся заново)
+        protectionManager.loadSettings();
+
+        // 10. Размер пачки массовой выдачи
+        giveDistributor.loadSettings();
+
+        // 11. Предрасчет взрывов
+        blastPrecomputer.loadSettings();
+
+        // 12. Регулятор нагрузки (уровень сбрасывается)
+        loadGovernor.loadSettings();
+
+        // 13. Общие голограммы групп (после hologramManager.init)
+        clusterHologramManager.loadSettings();
+
+        // 14. Пакетное разрушение блоков и лимит падающих блоков
+        tntManager.getExplosionEngine().loadSettings();
     }
 
     // --- Getters ---
@@ -84,6 +242,14 @@ public class itnt extends JavaPlugin {
         return instance;
     }
 
+    public TaskScheduler getTaskScheduler() {
+        return taskScheduler;
+    }
+
+    public PlayerPositions getPlayerPositions() {
+        return playerPositions;
+    }
+
     public ConfigManager getConfigManager() {
         return configManager;
     }
@@ -95,4 +261,59 @@ public class itnt extends JavaPlugin {
     public HologramManager getHologramManager() {
         return hologramManager;
     }
+
+    public MetricsManager getMetricsManager() {
+        return metricsManager;
+    }
+
+    public DropAggregator getDropAggregator() {
+        return dropAggregator;
+    }
+
+    public EffectsManager getEffectsManager() {
+        return effectsManager;
+    }
+
+    public AuditLog getAuditLog() {
+        return auditLog;
+    }
+
+    public RegenerationManager getRegenerationManager() {
+        return regenerationManager;
+    }
+
+    public ProtectionManager getProtectionManager() {
+        return protectionManager;
+    }
+
+    public GiveDistributor getGiveDistributor() {
+        return giveDistributor;
+    }
+
+    public TraceRecorder getTraceRecorder() {
+        return traceRecorder;
+    }
+
+    public BlastPrecomputer getBlastPrecomputer() {
+        return blastPrecomputer;
+    }
+
+    public LoadGovernor getLoadGovernor() {
+        return loadGovernor;
+    }
+
+    public ClusterHologramManager getClusterHologramManager() {
+        return clusterHologramManager;
+    }
+
+    public DetonationBatcher getDetonationBatcher() {
+        return detonationBatcher;
+    }
+
+    /**
+     * @return Индекс активных зарядов: snapshot() безопасно вызывать из любого потока
+     */
+    public ChargeIndex getChargeIndex() {
+        return chargeIndex;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,178 @@
+package com.mrrezik.itnt.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Кольцевой буфер аудита: порядок, переполнение, оборот по кольцу и конкурентные писатели.
+ */
+class AuditRingBufferTest {
+
+    private static final int RECORD_SIZE = Long.BYTES;
+
+    @Test
+    void capacityRoundsUpToPowerOfTwo() {
+        assertEquals(128, new AuditRingBuffer(100, RECORD_SIZE).getCapacity());
+        assertEquals(128, new AuditRingBuffer(128, RECORD_SIZE).getCapacity());
+        assertEquals(256, new AuditRingBuffer(129, RECORD_SIZE).getCapacity());
+    }
+
+    @Test
+    void drainsInOfferOrder() {
+        AuditRingBuffer buffer = new AuditRingBuffer(16, RECORD_SIZE);
+        assertTrue(buffer.isEmpty());
+        for (long i = 0; i < 5; i++) {
+            long value = i;
+            assertTrue(buffer.offer(slot -> slot.putLong(value)));
+        }
+        assertFalse(buffer.isEmpty());
+
+        ByteBuffer target = ByteBuffer.allocate(16 * RECORD_SIZE);
+        assertEquals(5, buffer.drainTo(target));
+        target.flip();
+        for (long i = 0; i < 5; i++) {
+            assertEquals(i, target.getLong());
+        }
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void dropsWhenFullAndRecoversAfterDrain() {
+        AuditRingBuffer buffer = new AuditRingBuffer(8, RECORD_SIZE);
+        for (int i = 0; i < 8; i++) {
+            assertTrue(buffer.offer(slot -> slot.putLong(1L)));
+        }
+        assertFalse(buffer.offer(slot -> slot.putLong(2L)));
+        assertEquals(1, buffer.getDropped());
+
+        assertEquals(8, buffer.drainTo(ByteBuffer.allocate(8 * RECORD_SIZE)));
+        assertTrue(buffer.offer(slot -> slot.putLong(3L)));
+        assertEquals(1, buffer.getDropped());
+    }
+
+    @Test
+    void drainStopsWhenTargetIsFull() {
+        AuditRingBuffer buffer = new AuditRingBuffer(8, RECORD_SIZE);
+        for (long i = 0; i < 6; i++) {
+            long value = i;
+            buffer.offer(slot -> slot.putLong(value));
+        }
+        // Места на 3 записи и половину четвертой
+        ByteBuffer target = ByteBuffer.allocate(3 * RECORD_SIZE + RECORD_SIZE / 2);
+        assertEquals(3, buffer.drainTo(target));
+
+        ByteBuffer rest = ByteBuffer.allocate(8 * RECORD_SIZE);
+        assertEquals(3, buffer.drainTo(rest));
+        rest.flip();
+        assertEquals(3L, rest.getLong());
+        assertEquals(4L, rest.getLong());
+        assertEquals(5L, rest.getLong());
+    }
+
+    @Test
+    void wrapsAroundTheRing() {
+        AuditRingBuffer buffer = new AuditRingBuffer(4, RECORD_SIZE);
+        ByteBuffer target = ByteBuffer.allocate(4 * RECORD_SIZE);
+        long next = 0;
+        for (int round = 0; round < 100; round++) {
+            for (int i = 0; i < 3; i++) {
+                long value = next++;
+                assertTrue(buffer.offer(slot -> slot.putLong(value)));
+            }
+            target.clear();
+            assertEquals(3, buffer.drainTo(target));
+            target.flip();
+            for (long expected = next - 3; expected < next; expected++) {
+                assertEquals(expected, target.getLong());
+            }
+        }
+        assertEquals(0, buffer.getDropped());
+    }
+
+    @Test
+    void concurrentWritersLoseNothingSilently() throws InterruptedException {
+        int writers = 4;
+        int perWriter = 50_000;
+        AuditRingBuffer buffer = new AuditRingBuffer(1024, RECORD_SIZE);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger finished = new AtomicInteger();
+
+        Thread[] threads = new Thread[writers];
+        for (int w = 0; w < writers; w++) {
+            long writer = w;
+            threads[w] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (long n = 0; n < perWriter; n++) {
+                    long value = writer << 32 | n;
+                    buffer.offer(slot -> slot.putLong(value));
+                }
+                finished.incrementAndGet();
+            });
+            threads[w].start();
+        }
+
+        long[] last = new long[writers];
+        Arrays.fill(last, -1L);
+        long drained = 0;
+        ByteBuffer target = ByteBuffer.allocate(256 * RECORD_SIZE);
+        start.countDown();
+        while (finished.get() < writers || !buffer.isEmpty()) {
+            target.clear();
+            drained += buffer.drainTo(target);
+            target.flip();
+            while (target.hasRemaining()) {
+                long value = target.getLong();
+                int writer = (int) (value >>> 32);
+                long sequence = value & 0xFFFFFFFFL;
+                // Записи одного писателя выходят в порядке записи
+                assertTrue(sequence > last[writer], "writer " + writer + ": " + sequence + " after " + last[writer]);
+                last[writer] = sequence;
+            }
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals((long) writers * perWriter, drained + buffer.getDropped());
+    }
+
+    @Test
+    void stampedRecordsDrainInTimeOrder() throws InterruptedException {
+        AuditRingBuffer buffer = new AuditRingBuffer(1 << 16, RECORD_SIZE);
+        Thread[] threads = new Thread[4];
+        for (int w = 0; w < threads.length; w++) {
+            threads[w] = new Thread(() -> {
+                for (int n = 0; n < 10_000; n++) {
+                    buffer.offerStamped((slot, timestamp) -> {
+                        Thread.yield(); // писатель заполняет слот позже соседей
+                        slot.putLong(timestamp);
+                    });
+                }
+            });
+            threads[w].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        ByteBuffer target = ByteBuffer.allocate(40_000 * RECORD_SIZE);
+        assertEquals(40_000, buffer.drainTo(target));
+        target.flip();
+        long previous = Long.MIN_VALUE;
+        while (target.hasRemaining()) {
+            long timestamp = target.getLong();
+            assertTrue(timestamp >= previous, timestamp + " after " + previous);
+            previous = timestamp;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.mrrezik.itnt.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Разбор сообщений: слоты %имя%, одиночные и неправильные %, незаданные плейсхолдеры.
+ */
+class MessageTemplateTest {
+
+    @Test
+    void plainTextIsReturnedAsIs() {
+        MessageTemplate template = MessageTemplate.compile("§aВы получили ТНТ");
+        String first = template.render();
+        assertEquals("§aВы получили ТНТ", first);
+        // Без плейсхолдеров строка готова заранее и не создается заново
+        assertSame(first, template.render("amount", 5));
+    }
+
+    @Test
+    void substitutesSlotsInOrder() {
+        MessageTemplate template = MessageTemplate.compile("%player% получил %amount% x %tnt_name%!");
+        assertEquals("Steve получил 64 x §cОбсидиановый ТНТ!",
+                template.render("tnt_name", "§cОбсидиановый ТНТ", "player", "Steve", "amount", 64));
+    }
+
+    @Test
+    void slotsAtEdgesAndAdjacent() {
+        assertEquals("12", MessageTemplate.compile("%a%%b%").render("a", 1, "b", 2));
+        assertEquals("x-x", MessageTemplate.compile("%a%-%a%").render("a", "x"));
+        assertEquals("[v]", MessageTemplate.compile("[%value-1%]").render("value-1", "v"));
+    }
+
+    @Test
+    void unknownPlaceholderStaysVerbatim() {
+        MessageTemplate template = MessageTemplate.compile("%player% - %missing%");
+        assertEquals("Steve - %missing%", template.render("player", "Steve"));
+        // Ключ без значения (нечетное число аргументов) игнорируется
+        assertEquals("%player% - %missing%", template.render("player"));
+    }
+
+    @Test
+    void strayPercentSignsAreText() {
+        assertEquals("100% готово", MessageTemplate.compile("100% готово").render());
+        assertEquals("50%% скидка", MessageTemplate.compile("50%% скидка").render());
+        assertEquals("%a b%", MessageTemplate.compile("%a b%").render("a b", "x"));
+        assertEquals("%имя%", MessageTemplate.compile("%имя%").render("имя", "x"));
+        assertEquals("осталось %name", MessageTemplate.compile("осталось %name").render("name", "x"));
+        // Первый % - текст, слот начинается со второго
+        assertEquals("%x", MessageTemplate.compile("%%name%").render("name", "x"));
+    }
+
+    @Test
+    void plainComponentIsBuiltOnce() {
+        MessageTemplate template = MessageTemplate.compile("§cЛимит поджигов");
+        assertSame(template.toComponent(), template.toComponent());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,247 @@
+package com.mrrezik.itnt.objects;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Снимок регенерации: палитра (byte и short индексы), порядок восстановления и пропуск занятых мест.
+ * Мир и блоки - прокси поверх карты, без сервера.
+ */
+class RegenSnapshotTest {
+
+    private static final int ORIGIN_X = 100, ORIGIN_Y = 64, ORIGIN_Z = -100;
+
+    /** Одна установка блока при восстановлении. */
+    private static final class Placement {
+        final int x, y, z;
+        final BlockData data;
+        final boolean physics;
+
+        Placement(int x, int y, int z, BlockData data, boolean physics) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.data = data;
+            this.physics = physics;
+        }
+    }
+
+    private final Map<String, Material> types = new HashMap<>();
+    private final List<Placement> placements = new ArrayList<>();
+    private World world;
+
+    @BeforeEach
+    void setUp() {
+        types.clear();
+        placements.clear();
+        world = (World) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{World.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getBlockAt":
+                            return block((int) args[0], (int) args[1], (int) args[2], null);
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    @Test
+    void restoresSupportsThenGravityThenAttachedBottomUp() {
+        BlockData stone = data(Material.STONE);
+        BlockData sand = data(Material.SAND);
+        BlockData torch = data(Material.TORCH);
+
+        RegenSnapshot snapshot = new RegenSnapshot(world, ORIGIN_X, ORIGIN_Y, ORIGIN_Z, 4);
+        assertTrue(snapshot.capture(block(ORIGIN_X, ORIGIN_Y + 2, ORIGIN_Z, torch)));
+        assertTrue(snapshot.capture(block(ORIGIN_X, ORIGIN_Y + 1, ORIGIN_Z, sand)));
+        assertTrue(snapshot.capture(block(ORIGIN_X, ORIGIN_Y + 3, ORIGIN_Z, stone)));
+        assertTrue(snapshot.capture(block(ORIGIN_X, ORIGIN_Y - 1, ORIGIN_Z, stone)));
+        snapshot.seal();
+
+        assertEquals(4, snapshot.restore(100));
+        assertTrue(snapshot.isDone());
+        assertEquals(4, placements.size());
+        assertPlacement(placements.get(0), ORIGIN_X, ORIGIN_Y - 1, ORIGIN_Z, stone, false);
+        assertPlacement(placements.get(1), ORIGIN_X, ORIGIN_Y + 3, ORIGIN_Z, stone, false);
+        assertPlacement(placements.get(2), ORIGIN_X, ORIGIN_Y + 1, ORIGIN_Z, sand, false);
+        // Только прикрепляемым блокам нужны обновления соседей
+        assertPlacement(placements.get(3), ORIGIN_X, ORIGIN_Y + 2, ORIGIN_Z, torch, true);
+    }
+
+    @Test
+    void smallPaletteRestoresEveryBlock() {
+        BlockData[] palette = {data(Material.STONE), data(Material.DIRT), data(Material.OAK_PLANKS)};
+        assertPaletteRoundTrip(palette, 1000);
+    }
+
+    @Test
+    void largePaletteUsesWideIndices() {
+        // Больше 256 уникальных BlockData - индексы не помещаются в byte
+        BlockData[] palette = new BlockData[300];
+        for (int i = 0; i < palette.length; i++) {
+            palette[i] = data(Material.STONE);
+        }
+        assertPaletteRoundTrip(palette, 900);
+    }
+
+    @Test
+    void offsetsOutsidePackingRangeAreRejected() {
+        BlockData stone = data(Material.STONE);
+        RegenSnapshot snapshot = new RegenSnapshot(world, ORIGIN_X, ORIGIN_Y, ORIGIN_Z, 4);
+        assertTrue(snapshot.capture(block(ORIGIN_X + 511, ORIGIN_Y, ORIGIN_Z, stone)));
+        assertTrue(snapshot.capture(block(ORIGIN_X, ORIGIN_Y - 511, ORIGIN_Z, stone)));
+        assertFalse(snapshot.capture(block(ORIGIN_X + 512, ORIGIN_Y, ORIGIN_Z, stone)));
+        assertFalse(snapshot.capture(block(ORIGIN_X, ORIGIN_Y, ORIGIN_Z - 512, stone)));
+        assertEquals(2, snapshot.size());
+
+        snapshot.seal();
+        snapshot.restore(10);
+        assertPlacement(placements.get(0), ORIGIN_X, ORIGIN_Y - 511, ORIGIN_Z, stone, false);
+        assertPlacement(placements.get(1), ORIGIN_X + 511, ORIGIN_Y, ORIGIN_Z, stone, false);
+    }
+
+    @Test
+    void restoreHonorsBudgetAndSkipsOccupiedBlocks() {
+        BlockData stone = data(Material.STONE);
+        RegenSnapshot snapshot = new RegenSnapshot(world, ORIGIN_X, ORIGIN_Y, ORIGIN_Z, 4);
+        for (int dy = 0; dy < 3; dy++) {
+            snapshot.capture(block(ORIGIN_X, ORIGIN_Y + dy, ORIGIN_Z, stone));
+        }
+        snapshot.seal();
+        // Игрок уже застроил среднюю клетку
+        types.put(key(ORIGIN_X, ORIGIN_Y + 1, ORIGIN_Z), Material.COBBLESTONE);
+
+        assertEquals(2, snapshot.restore(2));
+        assertFalse(snapshot.isDone());
+        assertEquals(1, snapshot.restore(2));
+        assertTrue(snapshot.isDone());
+        assertEquals(0, snapshot.restore(2));
+
+        assertEquals(2, placements.size());
+        assertEquals(ORIGIN_Y, placements.get(0).y);
+        assertEquals(ORIGIN_Y + 2, placements.get(1).y);
+    }
+
+    @Test
+    void placedCallbackSeesOnlyRestoredBlocks() {
+        BlockData stone = data(Material.STONE);
+        RegenSnapshot snapshot = new RegenSnapshot(world, ORIGIN_X, ORIGIN_Y, ORIGIN_Z, 4);
+        for (int dy = 0; dy < 3; dy++) {
+            snapshot.capture(block(ORIGIN_X, ORIGIN_Y + dy, ORIGIN_Z, stone));
+        }
+        snapshot.seal();
+        types.put(key(ORIGIN_X, ORIGIN_Y + 1, ORIGIN_Z), Material.COBBLESTONE);
+
+        List<Integer> placed = new ArrayList<>();
+        assertEquals(3, snapshot.restore(10, block -> placed.add(block.getY())));
+        // Занятая клетка пропущена - о ней не сообщается
+        assertEquals(List.of(ORIGIN_Y, ORIGIN_Y + 2), placed);
+    }
+
+    private void assertPaletteRoundTrip(BlockData[] palette, int blocks) {
+        RegenSnapshot snapshot = new RegenSnapshot(world, ORIGIN_X, ORIGIN_Y, ORIGIN_Z, 16);
+        Map<String, BlockData> expected = new HashMap<>();
+        for (int i = 0; i < blocks; i++) {
+            int x = ORIGIN_X + i % 10 - 5, y = ORIGIN_Y + i / 100 - 5, z = ORIGIN_Z + i / 10 % 10 - 5;
+            BlockData data = palette[i % palette.length];
+            assertTrue(snapshot.capture(block(x, y, z, data)));
+            expected.put(key(x, y, z), data);
+        }
+        snapshot.seal();
+        assertEquals(blocks, snapshot.size());
+
+        while (!snapshot.isDone()) {
+            snapshot.restore(64);
+        }
+        assertEquals(blocks, placements.size());
+        int lastY = Integer.MIN_VALUE;
+        for (Placement placement : placements) {
+            assertSame(expected.get(key(placement.x, placement.y, placement.z)), placement.data);
+            // Один проход (все твердые) - снизу вверх
+            assertTrue(placement.y >= lastY);
+            lastY = placement.y;
+        }
+    }
+
+    private static void assertPlacement(Placement placement, int x, int y, int z, BlockData data, boolean physics) {
+        assertEquals(x, placement.x);
+        assertEquals(y, placement.y);
+        assertEquals(z, placement.z);
+        assertSame(data, placement.data);
+        assertEquals(physics, placement.physics);
+    }
+
+    private static String key(int x, int y, int z) {
+        return x + "," + y + "," + z;
+    }
+
+    /**
+     * Блок мира: тип берется из карты (по умолчанию воздух), setBlockData записывается в placements.
+     * @param data Что вернет getBlockData (для блоков, которые захватывает снимок)
+     */
+    private Block block(int x, int y, int z, BlockData data) {
+        return (Block) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Block.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getX":
+                            return x;
+                        case "getY":
+                            return y;
+                        case "getZ":
+                            return z;
+                        case "getBlockData":
+                            return data;
+                        case "getType":
+                            return types.getOrDefault(key(x, y, z), Material.AIR);
+                        case "isLiquid":
+                            return false;
+                        case "setBlockData":
+                            placements.add(new Placement(x, y, z, (BlockData) args[0], (boolean) args[1]));
+                            return null;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    /**
+     * BlockData с равенством по ссылке: каждый вызов - отдельное состояние блока.
+     */
+    private static BlockData data(Material material) {
+        return (BlockData) Proxy.newProxyInstance(RegenSnapshotTest.class.getClassLoader(), new Class<?>[]{BlockData.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getMaterial":
+                            return material;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return material.name() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+                        default:
+                            return null;
+                    }
+                });
+    }
+}
\ No newline at end of file
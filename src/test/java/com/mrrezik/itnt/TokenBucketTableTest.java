@@ -0,0 +1,107 @@
+package com.mrrezik.itnt.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Token bucket'ы поджига: burst, восполнение, очистка простаивающих и рост таблицы.
+ */
+class TokenBucketTableTest {
+
+    private static final UUID ALICE = new UUID(1L, 1L);
+    private static final UUID BOB = new UUID(2L, 2L);
+
+    @Test
+    void burstThenDenied() {
+        TokenBucketTable table = new TokenBucketTable(3, 1.0);
+        assertTrue(table.tryAcquire(ALICE, 0));
+        assertTrue(table.tryAcquire(ALICE, 0));
+        assertTrue(table.tryAcquire(ALICE, 0));
+        assertFalse(table.tryAcquire(ALICE, 0));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    void refillsAtRate() {
+        TokenBucketTable table = new TokenBucketTable(2, 2.0); // токен раз в 500 мс
+        assertTrue(table.tryAcquire(ALICE, 0));
+        assertTrue(table.tryAcquire(ALICE, 0));
+        assertFalse(table.tryAcquire(ALICE, 250));
+        // Неудачная попытка не сбрасывает накопленную половину токена
+        assertTrue(table.tryAcquire(ALICE, 600));
+        assertFalse(table.tryAcquire(ALICE, 600));
+    }
+
+    @Test
+    void refillIsCappedAtBurst() {
+        TokenBucketTable table = new TokenBucketTable(2, 1.0);
+        assertTrue(table.tryAcquire(ALICE, 0));
+        assertTrue(table.tryAcquire(ALICE, 0));
+        // Очистка сейчас, чтобы следующая попытка не запустила ее и не удалила бакет
+        table.expireIdle(1500);
+        assertTrue(table.tryAcquire(ALICE, 2500)); // 2.5 токена, но не больше burst
+        assertTrue(table.tryAcquire(ALICE, 2500));
+        assertFalse(table.tryAcquire(ALICE, 2500));
+    }
+
+    @Test
+    void playersAreIndependent() {
+        TokenBucketTable table = new TokenBucketTable(1, 1.0);
+        assertTrue(table.tryAcquire(ALICE, 0));
+        assertFalse(table.tryAcquire(ALICE, 0));
+        assertTrue(table.tryAcquire(BOB, 0));
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    void expireIdleRemovesOnlyRefilledBuckets() {
+        TokenBucketTable table = new TokenBucketTable(3, 1.0); // полное восполнение за 3000 мс
+        table.tryAcquire(ALICE, 0);
+        table.tryAcquire(BOB, 2000);
+
+        table.expireIdle(3500);
+        assertEquals(1, table.size());
+        // Бакет Боба сохранил состояние: 2 токена + 1.5 восполненных, не больше burst
+        assertTrue(table.tryAcquire(BOB, 3500));
+        assertTrue(table.tryAcquire(BOB, 3500));
+        assertTrue(table.tryAcquire(BOB, 3500));
+        assertFalse(table.tryAcquire(BOB, 3500));
+    }
+
+    @Test
+    void growthAndBackwardShiftKeepState() {
+        // 1 токен, восполнение за 1 000 000 мс: пустой бакет виден как отказ, новый - как успех
+        TokenBucketTable table = new TokenBucketTable(1, 0.001);
+        List<UUID> early = new ArrayList<>();
+        List<UUID> late = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            UUID id = new UUID(i * 31L, i);
+            (i % 2 == 0 ? early : late).add(id);
+        }
+
+        for (UUID id : early) assertTrue(table.tryAcquire(id, 0));
+        for (UUID id : late) assertTrue(table.tryAcquire(id, 500_000));
+        assertEquals(2000, table.size());
+
+        // Ранние простояли время полного восполнения - удаляются,
+        // поздние должны остаться находимыми после сдвигов
+        table.expireIdle(1_200_000);
+        assertEquals(late.size(), table.size());
+        for (UUID id : late) assertFalse(table.tryAcquire(id, 1_200_000));
+        for (UUID id : early) assertTrue(table.tryAcquire(id, 1_200_000));
+    }
+
+    @Test
+    void clearForgetsEveryone() {
+        TokenBucketTable table = new TokenBucketTable(1, 1.0);
+        table.tryAcquire(ALICE, 0);
+        table.clear();
+        assertEquals(0, table.size());
+        assertTrue(table.tryAcquire(ALICE, 0));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,151 @@
+package com.mrrezik.itnt.utils;
+
+import com.mrrezik.itnt.objects.ProtectedZone;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * R-дерево зон: границы кубоидов и сфер, фильтр по флагам и сверка с полным перебором на больших наборах.
+ */
+class ZoneIndexTest {
+
+    @Test
+    void emptyIndexFindsNothing() {
+        ZoneIndex index = new ZoneIndex(List.of());
+        assertTrue(index.isEmpty());
+        assertEquals(0, index.size());
+        assertNull(index.find(0, 0, 0, true));
+        assertTrue(index.blockDamageCandidates(-10, -10, -10, 10, 10, 10).isEmpty());
+    }
+
+    @Test
+    void cuboidBoundsAreInclusive() {
+        // Углы в обратном порядке - зона нормализует их сама
+        ProtectedZone zone = ProtectedZone.cuboid("spawn", "world", 10, 5, 10, 0, 0, 0, true, true);
+        ZoneIndex index = new ZoneIndex(List.of(zone));
+
+        assertSame(zone, index.find(0, 0, 0, true));
+        assertSame(zone, index.find(10, 5, 10, true));
+        assertSame(zone, index.find(10, 0, 0, false));
+        assertNull(index.find(-1, 0, 0, true));
+        assertNull(index.find(11, 5, 10, true));
+        assertNull(index.find(10, 6, 10, true));
+        assertNull(index.find(10, 5, 11, true));
+    }
+
+    @Test
+    void sphereEdgeUsesBlockCenters() {
+        // Центр в центре блока (0, 64, 0), радиус 3
+        ProtectedZone zone = ProtectedZone.sphere("arena", "world", 0.5, 64.5, 0.5, 3.0, true, true);
+        ZoneIndex index = new ZoneIndex(List.of(zone));
+
+        assertSame(zone, index.find(0, 64, 0, true));
+        assertSame(zone, index.find(3, 64, 0, true)); // ровно на радиусе
+        assertSame(zone, index.find(0, 61, 0, true));
+        assertNull(index.find(4, 64, 0, true));
+        assertNull(index.find(3, 64, 1, true));
+        // Внутри описанного куба, но вне сферы
+        assertNull(index.find(2, 66, 2, true));
+        assertNull(index.find(-3, 67, -3, true));
+    }
+
+    @Test
+    void flagsFilterZones() {
+        ProtectedZone primeOnly = ProtectedZone.cuboid("prime", "world", 0, 0, 0, 4, 4, 4, true, false);
+        ProtectedZone damageOnly = ProtectedZone.cuboid("damage", "world", 10, 0, 0, 14, 4, 4, false, true);
+        ZoneIndex index = new ZoneIndex(List.of(primeOnly, damageOnly));
+
+        assertSame(primeOnly, index.find(2, 2, 2, true));
+        assertNull(index.find(2, 2, 2, false));
+        assertSame(damageOnly, index.find(12, 2, 2, false));
+        assertNull(index.find(12, 2, 2, true));
+        assertEquals(List.of(damageOnly), index.blockDamageCandidates(-100, -100, -100, 100, 100, 100));
+    }
+
+    @Test
+    void boxQueryTouchingEdgeIsCandidate() {
+        ProtectedZone zone = ProtectedZone.cuboid("wall", "world", 0, 0, 0, 4, 4, 4, false, true);
+        ZoneIndex index = new ZoneIndex(List.of(zone));
+
+        assertEquals(List.of(zone), index.blockDamageCandidates(4, 4, 4, 8, 8, 8));
+        assertTrue(index.blockDamageCandidates(5, 0, 0, 8, 4, 4).isEmpty());
+    }
+
+    @Test
+    void manyZonesMatchBruteForce() {
+        // Размеры вокруг границ узла (16) и уровней дерева
+        for (int count : new int[]{1, 15, 16, 17, 256, 257, 3000}) {
+            Random random = new Random(count);
+            List<ProtectedZone> zones = randomZones(random, count);
+            ZoneIndex index = new ZoneIndex(zones);
+            assertEquals(count, index.size());
+
+            for (int i = 0; i < 5000; i++) {
+                int x = random.nextInt(2200) - 1100;
+                int y = random.nextInt(300) - 50;
+                int z = random.nextInt(2200) - 1100;
+                boolean prime = random.nextBoolean();
+
+                ProtectedZone found = index.find(x, y, z, prime);
+                boolean expected = false;
+                for (ProtectedZone zone : zones) {
+                    if ((prime ? zone.isDenyPrime() : zone.isDenyBlockDamage()) && zone.contains(x, y, z)) {
+                        expected = true;
+                        break;
+                    }
+                }
+                assertEquals(expected, found != null, "count=" + count + " at " + x + " " + y + " " + z);
+                if (found != null) {
+                    assertTrue(found.contains(x, y, z));
+                    assertTrue(prime ? found.isDenyPrime() : found.isDenyBlockDamage());
+                }
+            }
+
+            for (int i = 0; i < 500; i++) {
+                int x = random.nextInt(2200) - 1100;
+                int y = random.nextInt(300) - 50;
+                int z = random.nextInt(2200) - 1100;
+                int size = random.nextInt(40);
+
+                Set<ProtectedZone> expected = new HashSet<>();
+                for (ProtectedZone zone : zones) {
+                    if (zone.isDenyBlockDamage() && x <= zone.getMaxX() && x + size >= zone.getMinX()
+                            && y <= zone.getMaxY() && y + size >= zone.getMinY()
+                            && z <= zone.getMaxZ() && z + size >= zone.getMinZ()) {
+                        expected.add(zone);
+                    }
+                }
+                List<ProtectedZone> candidates = index.blockDamageCandidates(x, y, z, x + size, y + size, z + size);
+                assertEquals(expected.size(), candidates.size());
+                assertEquals(expected, new HashSet<>(candidates));
+            }
+        }
+    }
+
+    private static List<ProtectedZone> randomZones(Random random, int count) {
+        List<ProtectedZone> zones = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int x = random.nextInt(2000) - 1000;
+            int y = random.nextInt(200);
+            int z = random.nextInt(2000) - 1000;
+            boolean denyPrime = random.nextInt(4) != 0;
+            boolean denyBlockDamage = random.nextInt(4) != 0;
+            if (random.nextBoolean()) {
+                zones.add(ProtectedZone.cuboid("zone-" + i, "world", x, y, z,
+                        x + random.nextInt(60), y + random.nextInt(30), z + random.nextInt(60),
+                        denyPrime, denyBlockDamage));
+            } else {
+                zones.add(ProtectedZone.sphere("zone-" + i, "world", x + random.nextDouble(), y + random.nextDouble(),
+                        z + random.nextDouble(), 1.0 + random.nextDouble() * 30.0, denyPrime, denyBlockDamage));
+            }
+        }
+        return zones;
+    }
+}
\ No newline at end of file